@@ -0,0 +1,181 @@
+package com.cs370.springdemo.benchmark;
+
+import com.cs370.springdemo.model.AisleLocation;
+import com.cs370.springdemo.model.CustomerType;
+import com.cs370.springdemo.model.Inventory;
+import com.cs370.springdemo.model.InventoryLocation;
+import com.cs370.springdemo.model.ModelOutcome;
+import com.cs370.springdemo.model.OutputSinks;
+import com.cs370.springdemo.model.ShelfLevel;
+import com.cs370.springdemo.model.Store;
+import com.cs370.springdemo.model.StoreModelException;
+import com.cs370.springdemo.model.StoreModelService;
+import com.cs370.springdemo.model.StoreShardEngine;
+import com.cs370.springdemo.model.Temperature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multi-threaded throughput benchmarks of the Store Model Service. Every thread shops with its own Customer
+ * and Basket; with placement disjoint every thread has a Store of its own, with placement shared all threads
+ * shop in the same Store, and with placement hot all threads take the same Product off the same Inventory.
+ * Reads (show inventory, show store) copy a snapshot without taking locks. The sharded benchmark posts the same
+ * shopping to a StoreShardEngine, which runs every Store on the single thread owning its shard.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="ConcurrentStoreModelBenchmark -t 4"
+ * The thread count given with -t applies to the ungrouped benchmarks; the mixed group runs 3 readers per writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class ConcurrentStoreModelBenchmark {
+
+    private static final AtomicInteger TRIALS = new AtomicInteger();
+    private static final int CAPACITY = 1_000_000;
+    //Upper bound of the number of threads a trial can run with
+    private static final int MAX_THREADS = 64;
+
+    @Param({"disjoint", "shared", "hot"})
+    public String placement;
+
+    @Param({"8"})
+    public int aisles;
+
+    private StoreModelService storeModelService;
+    private StoreShardEngine engine;
+    private String prefix;
+    private final AtomicInteger shoppers = new AtomicInteger();
+    //Inventory reserved from directly, shared by the Shoppers of an Inventory like the provisioned Inventory
+    private final Map<String, Inventory> reservations = new ConcurrentHashMap<>();
+
+    @Setup(Level.Trial)
+    public void provisionModel() throws StoreModelException {
+        OutputSinks.install(OutputSinks.quiet());
+        storeModelService = StoreModelService.getInstance();
+        prefix = "jmhc" + TRIALS.incrementAndGet() + "_";
+
+        int stores = placement.equals("disjoint") ? MAX_THREADS : 1;
+        for (int s = 0; s < stores; s++) {
+            String storeId = prefix + "store_" + s;
+            storeModelService.provisionStore(storeId, "Store " + s, "Address " + s, null);
+            for (int a = 0; a < aisles; a++) {
+                String aisleId = "aisle_" + a;
+                storeModelService.provisionAisle(storeId, aisleId, aisleId, aisleId, AisleLocation.floor, null);
+                storeModelService.provisionShelf(storeId, aisleId, "shelf_0", "shelf_0", ShelfLevel.high, "shelf_0",
+                        Temperature.ambient, null);
+                String suffix = s + "_" + a;
+                storeModelService.provisionProduct(prefix + "prod_" + suffix, "Product " + suffix, suffix,
+                        "1", "grocery", 1.0, Temperature.ambient, null);
+                storeModelService.provisionInventory(prefix + "inv_" + suffix, storeId, aisleId, "shelf_0",
+                        CAPACITY, CAPACITY / 2, prefix + "prod_" + suffix, null);
+            }
+        }
+        engine = new StoreShardEngine(storeModelService);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopShards() {
+        engine.close();
+    }
+
+    /**
+     * Customer, Basket and Store used by one benchmark thread
+     */
+    @State(Scope.Thread)
+    public static class Shopper {
+
+        String storeId;
+        String basketId;
+        String productId;
+        String inventoryId;
+        Inventory inventory;
+
+        @Setup(Level.Trial)
+        public void enterStore(ConcurrentStoreModelBenchmark model) throws StoreModelException {
+            int n = model.shoppers.getAndIncrement();
+            int store = model.placement.equals("disjoint") ? n % MAX_THREADS : 0;
+            int aisle = model.placement.equals("hot") ? 0 : n % model.aisles;
+            String aisleId = "aisle_" + aisle;
+            String customerId = model.prefix + "cust_" + n;
+
+            storeId = model.prefix + "store_" + store;
+            basketId = model.prefix + "basket_" + n;
+            productId = model.prefix + "prod_" + store + "_" + aisle;
+            inventoryId = model.prefix + "inv_" + store + "_" + aisle;
+
+            StoreModelService service = model.storeModelService;
+            service.provisionCustomer(customerId, "Shopper", "Shopper", CustomerType.registered, "s@x", "s", null);
+            service.updateCustomer(customerId, storeId, aisleId, null);
+            service.provisionBasket(basketId, null);
+            service.assignCustomerBasket(customerId, basketId, null);
+            inventory = model.reservations.computeIfAbsent(inventoryId, id -> Inventory.create(id,
+                    new InventoryLocation(storeId, aisleId, "shelf_0"), CAPACITY, CAPACITY / 2, productId));
+        }
+    }
+
+    @Benchmark
+    public ModelOutcome<?> shop(Shopper shopper) {
+        storeModelService.tryAddBasketProduct(shopper.basketId, shopper.productId, 1, null);
+        return storeModelService.tryRemoveBasketProduct(shopper.basketId, shopper.productId, 1, null);
+    }
+
+    @Benchmark
+    public ModelOutcome<?> shopSharded(Shopper shopper) {
+        engine.addBasketProduct(shopper.basketId, shopper.productId, 1);
+        return engine.removeBasketProduct(shopper.basketId, shopper.productId, 1).join();
+    }
+
+    @Benchmark
+    public ModelOutcome<Inventory> restock(Shopper shopper) {
+        storeModelService.tryUpdateInventory(shopper.inventoryId, 1, null);
+        return storeModelService.tryUpdateInventory(shopper.inventoryId, -1, null);
+    }
+
+    @Benchmark
+    public boolean reserveRelease(Shopper shopper) {
+        return shopper.inventory.reserve(1) && shopper.inventory.release(1);
+    }
+
+    @Benchmark
+    public ModelOutcome<Store> browse(Shopper shopper) {
+        storeModelService.tryShowInventory(shopper.inventoryId, null);
+        return storeModelService.tryShowStore(shopper.storeId, null);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public ModelOutcome<Store> mixedBrowse(Shopper shopper) {
+        return browse(shopper);
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public ModelOutcome<?> mixedShop(Shopper shopper) {
+        return shop(shopper);
+    }
+}
@@ -0,0 +1,100 @@
+package com.cs370.springdemo.benchmark;
+
+import com.cs370.springdemo.model.Inventory;
+import com.cs370.springdemo.model.InventoryLedger;
+import com.cs370.springdemo.model.InventoryLocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of whole-chain Inventory scans with Inventory numbers held in the Inventory objects or in an
+ * installed InventoryLedger. Object scans visit the Inventory in shuffled order, as a model built up over
+ * time does not keep them adjacent in memory.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="InventoryScanBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class InventoryScanBenchmark {
+
+    private static final double LOW_STOCK = 0.1;
+
+    @Param({"1000000"})
+    public int slots;
+
+    @Param({"objects", "ledger"})
+    public String backend;
+
+    private Inventory[] inventories;
+    private InventoryLedger ledger;
+
+    @Setup(Level.Trial)
+    public void provisionInventory() {
+        ledger = backend.equals("ledger") ? new InventoryLedger() : null;
+        InventoryLedger.install(ledger);
+
+        Random random = new Random(42);
+        InventoryLocation location = new InventoryLocation("store_0", "aisle_0", "shelf_0");
+        inventories = new Inventory[slots];
+        for (int i = 0; i < slots; i++) {
+            int capacity = 10 + random.nextInt(1000);
+            inventories[i] = Inventory.create("inv_" + i, location, capacity, random.nextInt(capacity + 1), "prod_" + i);
+        }
+        for (int i = slots - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Inventory swapped = inventories[i];
+            inventories[i] = inventories[j];
+            inventories[j] = swapped;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void uninstallLedger() {
+        InventoryLedger.install(null);
+    }
+
+    @Benchmark
+    public double fillRatio() {
+        if (ledger != null)
+            return ledger.fillRatio();
+
+        long count = 0;
+        long capacity = 0;
+        for (Inventory inventory : inventories) {
+            count += inventory.getCount();
+            capacity += inventory.getCapacity();
+        }
+        return (double) count / capacity;
+    }
+
+    @Benchmark
+    public long lowStock() {
+        if (ledger != null)
+            return ledger.lowStock(LOW_STOCK).count();
+
+        long low = 0;
+        for (Inventory inventory : inventories) {
+            if (inventory.getCount() < LOW_STOCK * inventory.getCapacity())
+                low++;
+        }
+        return low;
+    }
+}
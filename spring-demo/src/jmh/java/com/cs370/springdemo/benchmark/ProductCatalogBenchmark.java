@@ -0,0 +1,118 @@
+package com.cs370.springdemo.benchmark;
+
+import com.cs370.springdemo.model.Product;
+import com.cs370.springdemo.model.ProductCatalog;
+import com.cs370.springdemo.model.Temperature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of category-wide catalog operations with Product price and category held in the Product
+ * objects or in a ProductCatalog. Object scans visit the Products in shuffled order, as a catalog built up
+ * over time does not keep them adjacent in memory. Searches look for the refrigerated Products of a category
+ * under a price, which the catalog answers from its indexes. Repricing alternates between raising and lowering prices
+ * so that they stay in range.
+ *
+ * Run with: mvn -Pjmh compile exec:exec -Djmh.args="ProductCatalogBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ProductCatalogBenchmark {
+
+    private static final int CATEGORIES = 16;
+    private static final String CATEGORY = "category_3";
+    private static final double PRICE_UNDER = 5.0;
+
+    @Param({"1000000"})
+    public int products;
+
+    @Param({"objects", "catalog"})
+    public String backend;
+
+    private Product[] catalogProducts;
+    private ProductCatalog catalog;
+    private boolean raise;
+
+    @Setup(Level.Trial)
+    public void provisionProducts() {
+        catalog = backend.equals("catalog") ? new ProductCatalog() : null;
+
+        Random random = new Random(42);
+        Temperature[] temperatures = Temperature.values();
+        catalogProducts = new Product[products];
+        for (int i = 0; i < products; i++) {
+            catalogProducts[i] = new Product("prod_" + i, "Product " + i, "Product " + i, "1",
+                    "category_" + random.nextInt(CATEGORIES), (100 + random.nextInt(10_000)) / 100.0,
+                    temperatures[random.nextInt(temperatures.length)]);
+            if (catalog != null)
+                catalog.add(catalogProducts[i]);
+        }
+        for (int i = products - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Product swapped = catalogProducts[i];
+            catalogProducts[i] = catalogProducts[j];
+            catalogProducts[j] = swapped;
+        }
+    }
+
+    @Benchmark
+    public long totalPrice() {
+        if (catalog != null)
+            return catalog.totalPriceCents(CATEGORY);
+
+        long total = 0;
+        for (Product product : catalogProducts) {
+            if (CATEGORY.equals(product.getCategory()))
+                total += Math.round(product.getPrice() * 100);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long search() {
+        if (catalog != null)
+            return catalog.find(CATEGORY, Temperature.refrigerated, null, PRICE_UNDER).count();
+
+        long found = 0;
+        for (Product product : catalogProducts) {
+            if (CATEGORY.equals(product.getCategory()) && product.getTemperature() == Temperature.refrigerated
+                    && product.getPrice() < PRICE_UNDER)
+                found++;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int reprice() {
+        double percent = (raise = !raise) ? 5 : -100.0 * 5 / 105;
+        if (catalog != null)
+            return catalog.reprice(CATEGORY, percent);
+
+        double factor = 1 + percent / 100;
+        int repriced = 0;
+        for (Product product : catalogProducts) {
+            if (CATEGORY.equals(product.getCategory())) {
+                product.setPrice(Math.round(product.getPrice() * 100 * factor) / 100.0);
+                repriced++;
+            }
+        }
+        return repriced;
+    }
+}
@@ -0,0 +1,202 @@
+package com.cs370.springdemo.benchmark;
+
+import com.cs370.springdemo.model.AisleLocation;
+import com.cs370.springdemo.model.Basket;
+import com.cs370.springdemo.model.CommandException;
+import com.cs370.springdemo.model.Customer;
+import com.cs370.springdemo.model.CustomerType;
+import com.cs370.springdemo.model.Inventory;
+import com.cs370.springdemo.model.ModelOutcome;
+import com.cs370.springdemo.model.OutputSinks;
+import com.cs370.springdemo.model.ShelfLevel;
+import com.cs370.springdemo.model.StoreModelException;
+import com.cs370.springdemo.model.StoreModelService;
+import com.cs370.springdemo.model.Temperature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * JMH benchmarks of the Store Model Service operations over models of different sizes. Every trial
+ * provisions a fresh model of stores x aisles x shelves x inventories under its own id prefix, since the
+ * service keeps its state in static maps. Output of Devices and commands is discarded.
+ *
+ * Run with: mvn -Pjmh compile exec:exec
+ * Extra JMH options are passed through jmh.args, e.g. -Djmh.args="-prof gc -p stores=1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreModelBenchmark {
+
+    private static final AtomicInteger TRIALS = new AtomicInteger();
+    private static final ShelfLevel[] LEVELS = ShelfLevel.values();
+    private static final int CAPACITY = 1_000_000;
+
+    @Param({"1", "16"})
+    public int stores;
+
+    @Param({"4", "32"})
+    public int aisles;
+
+    //At most one Shelf per level is allowed in an Aisle
+    @Param({"1", "3"})
+    public int shelves;
+
+    @Param({"1", "8"})
+    public int inventories;
+
+    private StoreModelService storeModelService;
+    private String prefix;
+    private String homeStoreId;
+    private String productId;
+    private String shopperAisleId;
+    private String shopperProductId;
+    private String inventoryId;
+    private String missingInventoryId;
+    private String deviceId;
+    private String moverId;
+    private String hopperId;
+    private String shopperBasketId;
+    private String clearerId;
+    private String clearBasketId;
+    private String showInventoryCommand;
+    private int provisioned;
+    private int moves;
+
+    @Setup(Level.Trial)
+    public void provisionModel() throws StoreModelException {
+        OutputSinks.install(OutputSinks.quiet());
+        storeModelService = StoreModelService.getInstance();
+        prefix = "jmh" + TRIALS.incrementAndGet() + "_";
+
+        for (int s = 0; s < stores; s++) {
+            String storeId = prefix + "store_" + s;
+            storeModelService.provisionStore(storeId, "Store " + s, "Address " + s, null);
+            for (int a = 0; a < aisles; a++) {
+                String aisleId = "aisle_" + a;
+                storeModelService.provisionAisle(storeId, aisleId, aisleId, aisleId, AisleLocation.floor, null);
+                for (int h = 0; h < shelves; h++) {
+                    String shelfId = "shelf_" + h;
+                    storeModelService.provisionShelf(storeId, aisleId, shelfId, shelfId, LEVELS[h], shelfId,
+                            Temperature.ambient, null);
+                    for (int i = 0; i < inventories; i++) {
+                        //Every inventory holds its own product so that a product is never ambiguous in an aisle
+                        String suffix = s + "_" + a + "_" + h + "_" + i;
+                        storeModelService.provisionProduct(prefix + "prod_" + suffix, "Product " + suffix, suffix,
+                                "1", "grocery", 1.0, Temperature.ambient, null);
+                        storeModelService.provisionInventory(prefix + "inv_" + suffix, storeId, aisleId, shelfId,
+                                CAPACITY, CAPACITY / 2, prefix + "prod_" + suffix, null);
+                    }
+                }
+            }
+        }
+
+        homeStoreId = prefix + "store_0";
+        productId = prefix + "prod_0_0_0_0";
+        //Shoppers use the last Aisle, so that no index key is small enough to come from a cache of boxed keys
+        shopperAisleId = "aisle_" + (aisles - 1);
+        shopperProductId = prefix + "prod_0_" + (aisles - 1) + "_0_0";
+        inventoryId = prefix + "inv_0_0_0_0";
+        missingInventoryId = prefix + "inv_missing";
+        showInventoryCommand = "show  inventory  " + inventoryId;
+
+        deviceId = prefix + "cam_0";
+        storeModelService.provisionDevice(deviceId, "Camera", "camera", homeStoreId, "aisle_0", null);
+
+        moverId = prefix + "cust_mover";
+        storeModelService.provisionCustomer(moverId, "Mover", "Mover", CustomerType.registered, "m@x", "m", null);
+        storeModelService.updateCustomer(moverId, homeStoreId, "aisle_0", null);
+
+        hopperId = prefix + "cust_hopper";
+        storeModelService.provisionCustomer(hopperId, "Hopper", "Hopper", CustomerType.registered, "h@x", "h", null);
+        storeModelService.updateCustomer(hopperId, homeStoreId, "aisle_0", null);
+
+        shopperBasketId = prefix + "basket_shopper";
+        provisionShopper(prefix + "cust_shopper", shopperBasketId);
+        clearerId = prefix + "cust_clearer";
+        clearBasketId = prefix + "basket_clearer";
+        provisionShopper(clearerId, clearBasketId);
+    }
+
+    private void provisionShopper(String customerId, String basketId) throws StoreModelException {
+        storeModelService.provisionCustomer(customerId, "Shopper", "Shopper", CustomerType.registered, "s@x", "s", null);
+        storeModelService.updateCustomer(customerId, homeStoreId, shopperAisleId, null);
+        storeModelService.provisionBasket(basketId, null);
+        storeModelService.assignCustomerBasket(customerId, basketId, null);
+    }
+
+    @Benchmark
+    public Inventory provisionInventory() throws StoreModelException {
+        int n = provisioned++;
+        String storeId = prefix + "store_" + (n % stores);
+        String aisleId = "aisle_" + (n / stores % aisles);
+        return storeModelService.provisionInventory(prefix + "inv_new_" + n, storeId, aisleId, "shelf_0",
+                CAPACITY, 0, productId, null);
+    }
+
+    @Benchmark
+    public Customer updateCustomer() throws StoreModelException {
+        String aisleId = "aisle_" + (++moves % aisles);
+        return storeModelService.updateCustomer(moverId, homeStoreId, aisleId, null);
+    }
+
+    @Benchmark
+    public ModelOutcome<Customer> changeStoreOutcome() {
+        String storeId = prefix + "store_" + (++moves % stores);
+        return storeModelService.tryUpdateCustomer(hopperId, storeId, "aisle_0", null);
+    }
+
+    @Benchmark
+    public Basket addRemoveBasketProduct() throws StoreModelException {
+        storeModelService.addBasketProduct(shopperBasketId, shopperProductId, 1, null);
+        return storeModelService.removeBasketProduct(shopperBasketId, shopperProductId, 1, null);
+    }
+
+    @Benchmark
+    public ModelOutcome<Basket> addRemoveBasketProductOutcome() {
+        storeModelService.tryAddBasketProduct(shopperBasketId, shopperProductId, 1, null);
+        return storeModelService.tryRemoveBasketProduct(shopperBasketId, shopperProductId, 1, null);
+    }
+
+    @Benchmark
+    public Basket clearBasket() throws StoreModelException {
+        storeModelService.addBasketProduct(clearBasketId, shopperProductId, 1, null);
+        Basket basket = storeModelService.clearBasket(clearBasketId, null);
+        //Clearing retires the Basket id, so it is provisioned again, reusing the cleared Basket, and handed back
+        //for the next invocation
+        storeModelService.tryProvisionBasket(clearBasketId, null);
+        storeModelService.tryAssignCustomerBasket(clearerId, clearBasketId, null);
+        return basket;
+    }
+
+    @Benchmark
+    public void raiseEvent() throws StoreModelException {
+        storeModelService.raiseEvent(deviceId, "customer_seen " + moverId, null);
+    }
+
+    @Benchmark
+    public void processCommand() throws CommandException, StoreModelException {
+        storeModelService.processCommand(showInventoryCommand);
+    }
+
+    @Benchmark
+    public ModelOutcome<Inventory> rejectedOperationOutcome() {
+        return storeModelService.tryShowInventory(missingInventoryId, null);
+    }
+}
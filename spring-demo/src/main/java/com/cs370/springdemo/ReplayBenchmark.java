@@ -0,0 +1,152 @@
+package com.cs370.springdemo;
+
+import com.cs370.springdemo.model.CommandScriptCompiler;
+import com.cs370.springdemo.model.OutputSink;
+import com.cs370.springdemo.model.OutputSinks;
+import com.cs370.springdemo.model.ParallelCommandRunner;
+import com.cs370.springdemo.model.StoreModelService;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Replay benchmark for the DSL engine. Scales a script up by concatenating renamed copies of it
+ * and reports how many lines per second processCommandFile gets through.
+ *
+ * Usage: ReplayBenchmark &lt;script&gt; [copies] [warmup copies] [partitions | compiled | batch | serial] [sink]
+ * A positive partition count replays through the ParallelCommandRunner, compiled replays the cached
+ * binary form of the script (compiled before the timed run) and batch pushes all the lines through
+ * processCommandBatch in a single call.
+ * The sink is one of quiet (default, output discarded), console (asynchronous System.out), sync
+ * (System.out.println on the calling thread) or file (asynchronous, to a temporary file). The timed run
+ * includes flushing the sink.
+ */
+public class ReplayBenchmark {
+
+    //Globally unique identifiers of store.script that have to be renamed in every copy
+    private static final Pattern ID_PATTERN = Pattern.compile(
+            "\\b(store_\\d+|prod\\d+|inv_\\w+|cust_\\w+|b\\d+|cam_\\w+|mic_\\w+|spk_\\w+|turn_\\w+|rob_\\w+)\\b");
+
+    public static void main(String[] args) throws IOException {
+
+        Path script = Path.of(args[0]);
+        int copies = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int warmupCopies = args.length > 2 ? Integer.parseInt(args[2]) : copies / 4;
+        boolean compiled = args.length > 3 && args[3].equals("compiled");
+        boolean batch = args.length > 3 && args[3].equals("batch");
+        boolean serial = args.length <= 3 || args[3].equals("serial");
+        int partitions = !serial && !compiled && !batch ? Integer.parseInt(args[3]) : 0;
+        String sinkType = args.length > 4 ? args[4] : "quiet";
+
+        List<String> lines = Files.readAllLines(script);
+        Path warmup = scale(lines, 0, warmupCopies);
+        Path measured = scale(lines, warmupCopies, copies);
+        long lineCount = copies * (long) lines.size();
+
+        StoreModelService storeModelService = StoreModelService.getInstance();
+        Consumer<String> replay = batch ? fileName -> processBatch(storeModelService, fileName)
+                : compiled ? storeModelService::processCompiledCommandFile
+                : partitions > 0 ? new ParallelCommandRunner(storeModelService, partitions)::processCommandFile
+                : storeModelService::processCommandFile;
+        Path outputFile = sinkType.equals("file") ? Files.createTempFile("replay", ".out") : null;
+        OutputSink sink = switch (sinkType) {
+            case "quiet" -> OutputSinks.quiet();
+            case "console" -> OutputSinks.console();
+            case "sync" -> new SyncConsoleSink();
+            case "file" -> OutputSinks.file(outputFile);
+            default -> throw new IllegalArgumentException("Unknown sink " + sinkType);
+        };
+        OutputSinks.install(sink);
+
+        long elapsed;
+        try {
+            replay.accept(warmup.toString());
+            sink.flush();
+            if (compiled)
+                CommandScriptCompiler.compileIfStale(measured);
+
+            long start = System.nanoTime();
+            replay.accept(measured.toString());
+            sink.flush();
+            elapsed = System.nanoTime() - start;
+        } finally {
+            OutputSinks.install(OutputSinks.quiet());
+            sink.close();
+            Files.deleteIfExists(warmup);
+            Files.deleteIfExists(measured);
+            Files.deleteIfExists(CommandScriptCompiler.cacheFile(warmup));
+            Files.deleteIfExists(CommandScriptCompiler.cacheFile(measured));
+            if (outputFile != null)
+                Files.deleteIfExists(outputFile);
+        }
+
+        System.out.printf("Replayed %d lines in %.1f ms with %s output : %.0f lines/s%n",
+                lineCount, elapsed / 1e6, sinkType, lineCount / (elapsed / 1e9));
+    }
+
+    /**
+     * Method for replaying a script as a single batch
+     *
+     * @param storeModelService
+     * @param fileName
+     */
+    private static void processBatch(StoreModelService storeModelService, String fileName) {
+        try (Stream<String> lines = Files.lines(Path.of(fileName))) {
+            storeModelService.processCommandBatch(lines.iterator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Method for writing copies of the script into a temporary file, suffixing identifiers with the copy number
+     *
+     * @param lines
+     * @param firstCopy
+     * @param copies
+     * @return
+     * @throws IOException
+     */
+    static Path scale(List<String> lines, int firstCopy, int copies) throws IOException {
+        Path scaled = Files.createTempFile("replay", ".script");
+        try (BufferedWriter writer = Files.newBufferedWriter(scaled)) {
+            for (int copy = firstCopy; copy < firstCopy + copies; copy++) {
+                String suffix = "_" + copy;
+                for (String line : lines) {
+                    Matcher matcher = ID_PATTERN.matcher(line);
+                    writer.write(matcher.replaceAll(result -> result.group(1) + suffix));
+                    writer.newLine();
+                }
+            }
+        }
+        return scaled;
+    }
+
+    /**
+     * Synchronous sink printing on the calling thread, the way output was written before sinks existed
+     */
+    private static final class SyncConsoleSink implements OutputSink {
+
+        @Override
+        public void println(String line) {
+            System.out.println(line);
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -12,7 +12,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 
-@SpringBootApplication(scanBasePackages = {"com.cs370.springdemo.controller","com.cs370.springdemo.service","com.cs370.springdemo.model", "com.cs370.springdemo.repository"})
+@SpringBootApplication(scanBasePackages = {"com.cs370.springdemo.config", "com.cs370.springdemo.controller","com.cs370.springdemo.service","com.cs370.springdemo.model", "com.cs370.springdemo.repository"})
 @SecurityScheme(
         type = SecuritySchemeType.HTTP,
         name = "basicAuth",
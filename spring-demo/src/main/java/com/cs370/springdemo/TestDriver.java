@@ -1,12 +1,87 @@
 package com.cs370.springdemo;
 
+import com.cs370.springdemo.model.CommandDaemon;
+import com.cs370.springdemo.model.OutputSinks;
+import com.cs370.springdemo.model.ParallelCommandRunner;
 import com.cs370.springdemo.model.StoreModelService;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
 
 public class TestDriver {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+
+        //--daemon <port | socket path> keeps the model resident, --connect <port | socket path> [script] talks to it
+        if (args[0].equals("--daemon")) {
+            try (CommandDaemon daemon = new CommandDaemon(StoreModelService.getInstance(),
+                    CommandDaemon.parseAddress(args[1]))) {
+                System.out.println("Command daemon listening on " + daemon.getLocalAddress());
+                daemon.serve();
+            }
+            return;
+        }
+        if (args[0].equals("--connect")) {
+            connect(CommandDaemon.parseAddress(args[1]), args.length > 2 ? Path.of(args[2]) : null);
+            return;
+        }
 
         StoreModelService storeModelService = StoreModelService.getInstance();
-        storeModelService.processCommandFile(args[0]);
+
+        //Optional second argument runs the script partitioned by Store on the given number of threads
+        if (args.length > 1) {
+            new ParallelCommandRunner(storeModelService, Integer.parseInt(args[1])).processCommandFile(args[0]);
+        } else {
+            storeModelService.processCommandFile(args[0]);
+        }
+        OutputSinks.current().flush();
+    }
+
+    /**
+     * Method for sending a script, or the lines of standard input, to a running daemon and printing its output
+     *
+     * @param address
+     * @param script
+     * @throws IOException
+     */
+    private static void connect(SocketAddress address, Path script) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            //Requests are written straight to the channel so that sending does not wait for the blocked reader
+            Thread sender = new Thread(() -> {
+                try {
+                    if (script != null) {
+                        send(channel, "@run " + script.toAbsolutePath());
+                    } else {
+                        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+                        String line;
+                        while ((line = reader.readLine()) != null) {
+                            send(channel, line);
+                        }
+                    }
+                    send(channel, "@quit");
+                } catch (IOException e) {
+                    //The daemon closed the connection, for example after @shutdown
+                }
+            }, "daemon-client");
+            sender.setDaemon(true);
+            sender.start();
+
+            Channels.newInputStream(channel).transferTo(System.out);
+            System.out.flush();
+        }
+    }
+
+    private static void send(SocketChannel channel, String line) throws IOException {
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(line + "\n");
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
     }
 }
@@ -0,0 +1,419 @@
+package com.cs370.springdemo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic DSL scripts. The same seed and settings always produce the same
+ * script. The script provisions stores, aisles, shelves, products, inventories, devices and registered
+ * customers with baskets, followed by a shopping phase mixing add, remove, clear and move operations
+ * with device events. The generator tracks the model state it produces, so every shopping command
+ * is valid when the script is replayed on an empty model.
+ *
+ * Customers and products are drawn from a Zipf distribution whose exponent is the key skew, 0 being
+ * uniform. Customers only move between aisles of their own store.
+ *
+ * Usage: WorkloadGenerator &lt;output&gt; [name=value]...
+ * Settings: seed, stores, aisles, shelves, products, inventories, customers, devices, events, operations,
+ * mix (add:remove:clear:move ratios) and skew
+ */
+public class WorkloadGenerator {
+
+    private static final String[] LEVELS = {"high", "medium", "low"};
+    private static final String[] TEMPERATURES = {"ambient", "refrigerated", "frozen"};
+    private static final String[] SENSORS = {"camera", "microphone"};
+    private static final String[] APPLIANCES = {"robot", "speaker", "turnstile"};
+    private static final int CAPACITY = 1000;
+
+    private long seed = 1;
+    private int stores = 4;
+    private int aisles = 8;
+    private int shelves = 3;
+    private int products = 100;
+    private int inventories = 400;
+    private int customers = 200;
+    private int devices = 16;
+    private int events = 1000;
+    private int operations = 10000;
+    private int[] mix = {60, 25, 5, 10};
+    private double skew = 0;
+
+    private Random random;
+    private Writer out;
+
+    //Inventory id by store, aisle and product, and the current count of every inventory
+    private Map<String, Map<Integer, String>> stock;
+    private Map<String, Integer> counts;
+    private List<List<Integer>> stockedAisles;
+    private List<String> sensorIds;
+    private List<String> applianceIds;
+
+    //Per customer state: home store, current aisle, basket id and basket contents
+    private int[] customerStores;
+    private int[] customerAisles;
+    private String[] basketIds;
+    private List<Map<Integer, Integer>> basketContents;
+    private int basketSequence;
+
+    public static void main(String[] args) throws IOException {
+
+        WorkloadGenerator generator = new WorkloadGenerator();
+        for (int i = 1; i < args.length; i++) {
+            String[] setting = args[i].split("=", 2);
+            if (setting.length != 2)
+                throw new IllegalArgumentException("Expected name=value but got " + args[i]);
+            generator.set(setting[0], setting[1]);
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(args[0]))) {
+            generator.generate(writer);
+        }
+    }
+
+    /**
+     * Method for changing a setting by name
+     *
+     * @param name
+     * @param value
+     */
+    public void set(String name, String value) {
+        switch (name) {
+            case "seed" -> seed = Long.parseLong(value);
+            case "stores" -> stores = positive(name, value);
+            case "aisles" -> aisles = positive(name, value);
+            case "shelves" -> {
+                shelves = positive(name, value);
+                if (shelves > LEVELS.length)
+                    throw new IllegalArgumentException("At most " + LEVELS.length + " shelves fit in an aisle");
+            }
+            case "products" -> products = positive(name, value);
+            case "inventories" -> inventories = Integer.parseInt(value);
+            case "customers" -> customers = Integer.parseInt(value);
+            case "devices" -> devices = Integer.parseInt(value);
+            case "events" -> events = Integer.parseInt(value);
+            case "operations" -> operations = Integer.parseInt(value);
+            case "mix" -> {
+                mix = Arrays.stream(value.split(":")).mapToInt(Integer::parseInt).toArray();
+                if (mix.length != 4)
+                    throw new IllegalArgumentException("Mix must be add:remove:clear:move");
+            }
+            case "skew" -> skew = Double.parseDouble(value);
+            default -> throw new IllegalArgumentException("Unknown setting " + name);
+        }
+    }
+
+    /**
+     * Method for writing the script
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void generate(Writer out) throws IOException {
+        this.random = new Random(seed);
+        this.out = out;
+
+        line("# Generated workload: seed=" + seed + " stores=" + stores + " aisles=" + aisles + " shelves=" + shelves
+                + " products=" + products + " inventories=" + inventories + " customers=" + customers
+                + " devices=" + devices + " events=" + events + " operations=" + operations
+                + " mix=" + mix[0] + ":" + mix[1] + ":" + mix[2] + ":" + mix[3] + " skew=" + skew);
+        defineStores();
+        defineProducts();
+        defineInventories();
+        defineDevices();
+        defineCustomers();
+        shop();
+        out.flush();
+    }
+
+    private void defineStores() throws IOException {
+        line("# Stores");
+        for (int s = 0; s < stores; s++) {
+            line("define  store  " + storeId(s) + " name Store_" + s + " address \"" + (100 + s) + " Main St\"");
+            for (int a = 0; a < aisles; a++) {
+                String aisle = "aisle_" + a;
+                line("define  aisle  " + storeId(s) + ":" + aisle + "  name  AISLE_" + a
+                        + "  description  " + aisle + "_desc location  " + (a % 4 == 3 ? "store_room" : "floor"));
+                for (int h = 0; h < shelves; h++) {
+                    line("define  shelf  " + storeId(s) + ":" + aisle + ":shelf_" + h + "  name  Shelf_" + h
+                            + "  level  " + LEVELS[h] + "  description  Shelf_" + h + "_desc temperature  "
+                            + TEMPERATURES[h]);
+                }
+            }
+        }
+    }
+
+    private void defineProducts() throws IOException {
+        line("# Products");
+        for (int p = 0; p < products; p++) {
+            line("define  product  " + productId(p) + "  name  product_" + p + "  description  product_" + p
+                    + "  size 1  category  Food  unit_price  " + (1 + p % 20) + "  temperature  "
+                    + TEMPERATURES[productShelf(p)]);
+        }
+    }
+
+    private void defineInventories() throws IOException {
+        line("# Inventories");
+        stock = new HashMap<>();
+        counts = new HashMap<>();
+        stockedAisles = new ArrayList<>();
+        for (int s = 0; s < stores; s++) {
+            stockedAisles.add(new ArrayList<>());
+        }
+
+        //A product is stocked at most once per aisle, otherwise it can't be put in a basket there
+        int placed = 0;
+        int attempts = 0;
+        while (placed < inventories && attempts < inventories * 10) {
+            attempts++;
+            int s = random.nextInt(stores);
+            int a = random.nextInt(aisles);
+            int p = random.nextInt(products);
+            Map<Integer, String> aisleStock = stock.computeIfAbsent(s + ":" + a, key -> new LinkedHashMap<>());
+            if (aisleStock.containsKey(p))
+                continue;
+
+            String inventoryId = "inv_" + placed;
+            int count = CAPACITY / 2;
+            line("define  inventory  " + inventoryId + "  location  " + storeId(s) + ":aisle_" + a + ":shelf_"
+                    + productShelf(p) + " capacity  " + CAPACITY + "  count  " + count + "  product  " + productId(p));
+            if (aisleStock.isEmpty())
+                stockedAisles.get(s).add(a);
+            aisleStock.put(p, inventoryId);
+            counts.put(inventoryId, count);
+            placed++;
+        }
+    }
+
+    private void defineDevices() throws IOException {
+        line("# Devices");
+        sensorIds = new ArrayList<>();
+        applianceIds = new ArrayList<>();
+        for (int d = 0; d < devices; d++) {
+            String location = storeId(d % stores) + ":aisle_" + (d / stores % aisles);
+            if (d % 2 == 0) {
+                String type = SENSORS[d / 2 % SENSORS.length];
+                String deviceId = type.substring(0, 3) + "_" + d;
+                line("define  device  " + deviceId + "  name  " + deviceId + "  type  " + type + "  location " + location);
+                sensorIds.add(deviceId);
+            } else {
+                String type = APPLIANCES[d / 2 % APPLIANCES.length];
+                String deviceId = type.substring(0, 3) + "_" + d;
+                line("define  device  " + deviceId + "  name  " + deviceId + "  type  " + type + "  location " + location);
+                applianceIds.add(deviceId);
+            }
+        }
+    }
+
+    private void defineCustomers() throws IOException {
+        line("# Customers");
+        customerStores = new int[customers];
+        customerAisles = new int[customers];
+        basketIds = new String[customers];
+        basketContents = new ArrayList<>();
+
+        for (int c = 0; c < customers; c++) {
+            //Customers live in stores that have stock, so that they have something to shop for
+            int s = c % stores;
+            List<Integer> aislesWithStock = stockedAisles.get(s);
+            customerStores[c] = s;
+            customerAisles[c] = aislesWithStock.isEmpty() ? 0 : aislesWithStock.get(random.nextInt(aislesWithStock.size()));
+            basketContents.add(new HashMap<>());
+
+            line("define  customer  " + customerId(c) + "  first_name  FIRST_" + c + "  last_name  LAST_" + c
+                    + " type  registered  email_address  customer" + c + "@example.com  account  customer" + c);
+            line("update  customer  " + customerId(c) + "  location  " + storeId(s) + ":aisle_" + customerAisles[c]);
+            newBasket(c);
+        }
+    }
+
+    private void shop() throws IOException {
+        line("# Shopping");
+        if (customers == 0)
+            return;
+
+        Zipf customerKeys = new Zipf(customers, skew);
+        int total = operations + events;
+        int mixTotal = mix[0] + mix[1] + mix[2] + mix[3];
+        for (int i = 0; i < total; i++) {
+            if (random.nextInt(total) < events) {
+                event();
+                continue;
+            }
+
+            int c = customerKeys.next(random);
+            int pick = random.nextInt(mixTotal);
+            boolean done;
+            if (pick < mix[0]) {
+                done = add(c);
+            } else if (pick < mix[0] + mix[1]) {
+                done = remove(c);
+            } else if (pick < mix[0] + mix[1] + mix[2]) {
+                done = clear(c);
+            } else {
+                done = move(c);
+            }
+
+            //Operations that are not possible in the current state turn into an add or a move
+            if (!done && !add(c))
+                move(c);
+        }
+    }
+
+    private boolean add(int c) throws IOException {
+        Map<Integer, String> aisleStock = stock.get(customerStores[c] + ":" + customerAisles[c]);
+        if (aisleStock == null || aisleStock.isEmpty())
+            return false;
+
+        List<Integer> stocked = new ArrayList<>(aisleStock.keySet());
+        int p = stocked.get(new Zipf(stocked.size(), skew).next(random));
+        String inventoryId = aisleStock.get(p);
+        int count = 1 + random.nextInt(3);
+        if (counts.get(inventoryId) < count)
+            return false;
+
+        counts.merge(inventoryId, -count, Integer::sum);
+        basketContents.get(c).merge(p, count, Integer::sum);
+        line("add_basket_item  " + basketIds[c] + "  product  " + productId(p) + "  item_count  " + count);
+        return true;
+    }
+
+    private boolean remove(int c) throws IOException {
+        Map<Integer, String> aisleStock = stock.get(customerStores[c] + ":" + customerAisles[c]);
+        if (aisleStock == null)
+            return false;
+
+        //Products can only be put back on a shelf of the aisle the customer is in
+        for (Map.Entry<Integer, Integer> item : basketContents.get(c).entrySet()) {
+            String inventoryId = aisleStock.get(item.getKey());
+            if (inventoryId != null) {
+                int count = 1 + random.nextInt(item.getValue());
+                counts.merge(inventoryId, count, Integer::sum);
+                line("remove_basket_item  " + basketIds[c] + "  product  " + productId(item.getKey())
+                        + "  item_count  " + count);
+                if (item.getValue() == count) {
+                    basketContents.get(c).remove(item.getKey());
+                } else {
+                    item.setValue(item.getValue() - count);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean clear(int c) throws IOException {
+        Map<Integer, String> aisleStock = stock.get(customerStores[c] + ":" + customerAisles[c]);
+        Map<Integer, Integer> contents = basketContents.get(c);
+        if (aisleStock == null || !aisleStock.keySet().containsAll(contents.keySet()))
+            return false;
+
+        for (Map.Entry<Integer, Integer> item : contents.entrySet()) {
+            counts.merge(aisleStock.get(item.getKey()), item.getValue(), Integer::sum);
+        }
+        contents.clear();
+        line("clear_basket  " + basketIds[c]);
+
+        //Clearing releases the basket, so the customer picks up a new one
+        newBasket(c);
+        return true;
+    }
+
+    private boolean move(int c) throws IOException {
+        List<Integer> aislesWithStock = stockedAisles.get(customerStores[c]);
+        if (aislesWithStock.size() < 2)
+            return false;
+
+        int a = customerAisles[c];
+        while (a == customerAisles[c]) {
+            a = aislesWithStock.get(random.nextInt(aislesWithStock.size()));
+        }
+        customerAisles[c] = a;
+        line("update  customer  " + customerId(c) + "  location  " + storeId(customerStores[c]) + ":aisle_" + a);
+        return true;
+    }
+
+    private void event() throws IOException {
+        if (random.nextBoolean() && !sensorIds.isEmpty()) {
+            String deviceId = sensorIds.get(random.nextInt(sensorIds.size()));
+            line("create_event  " + deviceId + "  event  customer_seen " + customerId(random.nextInt(Math.max(1, customers))) + " x");
+        } else if (!applianceIds.isEmpty()) {
+            String deviceId = applianceIds.get(random.nextInt(applianceIds.size()));
+            line("create  command  " + deviceId + "  message  CLEAN_FLOOR " + storeId(random.nextInt(stores)));
+        }
+    }
+
+    private void newBasket(int c) throws IOException {
+        basketIds[c] = "b" + basketSequence++;
+        line("define basket " + basketIds[c]);
+        line("assign basket " + basketIds[c] + " customer  " + customerId(c));
+    }
+
+    /**
+     * Method for mapping a product to the shelf (and therefore temperature) it is stocked on
+     *
+     * @param p
+     * @return
+     */
+    private int productShelf(int p) {
+        return p % shelves;
+    }
+
+    private static String storeId(int s) {
+        return "store_" + s;
+    }
+
+    private static String productId(int p) {
+        return "prod" + p;
+    }
+
+    private static String customerId(int c) {
+        return "cust_" + c;
+    }
+
+    private void line(String line) throws IOException {
+        out.write(line);
+        out.write(System.lineSeparator());
+    }
+
+    private static int positive(String name, String value) {
+        int number = Integer.parseInt(value);
+        if (number < 1)
+            throw new IllegalArgumentException(name + " must be positive");
+        return number;
+    }
+
+    /**
+     * Zipf distributed index sampler over [0, n). An exponent of 0 is uniform
+     */
+    static final class Zipf {
+
+        private final double[] cumulative;
+
+        Zipf(int n, double exponent) {
+            cumulative = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1 / Math.pow(i + 1, exponent);
+                cumulative[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cumulative[i] /= sum;
+            }
+        }
+
+        int next(Random random) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble());
+            return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+        }
+    }
+}
@@ -22,16 +22,15 @@ public class ApplicationSecurityConfig {
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+        //Scripts are posted to /commands by clients without a session, CSRF stays on everywhere else
         http
-                .csrf().disable()
+                .csrf().ignoringRequestMatchers("/commands")
+                .and()
                 .authorizeHttpRequests()
                 .anyRequest().authenticated()
                 .and()
                 .httpBasic();
 
-        http.csrf().disable();
-        http.headers().frameOptions().disable();
-
         return http.build();
     }
 
@@ -0,0 +1,43 @@
+package com.cs370.springdemo.controller;
+
+import com.cs370.springdemo.service.CommandService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+
+@RestController
+@SecurityRequirement(name = "basicAuth")
+public class CommandRestController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    CommandService commandService;
+
+    @Operation(summary = "Execute DSL Commands", tags = {"commands"},
+            description = "Executes a stream of DSL lines as they arrive and streams back one JSON record per command")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", content = {
+                    @Content(schema = @Schema(type = "string"), mediaType = NDJSON) }),
+            @ApiResponse(responseCode = "500", content = { @Content(schema = @Schema()) }) })
+    @PostMapping(value = "/commands", produces = NDJSON)
+    public void processCommands(HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        //DSL scripts are UTF-8 unless the client says otherwise
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        commandService.execute(request.getReader(), response.getOutputStream());
+    }
+}
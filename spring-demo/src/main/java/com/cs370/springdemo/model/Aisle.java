@@ -1,9 +1,8 @@
 package com.cs370.springdemo.model;
 
-import java.util.HashMap;
-import java.util.List;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Aisle class implementation representing aisle in the Store
@@ -18,7 +17,10 @@ public class Aisle {
     private String name;
     private String description;
     private AisleLocation aisleLocation;
-    private final Map<String, Shelf> shelfMap;
+    //Shelves indexed by ShelfLevel ordinal. The array is replaced, never modified, when a Shelf is added
+    private volatile Shelf[] shelves;
+    //Dense key of the Aisle within its Store, assigned when the Aisle is added to the Store
+    private int key = -1;
 
     /**
      * Constructor for Aisle class
@@ -33,7 +35,37 @@ public class Aisle {
         this.name = name;
         this.description = description;
         this.aisleLocation = aisleLocation;
-        this.shelfMap = new HashMap<>();
+        this.shelves = new Shelf[ShelfLevel.values().length];
+    }
+
+    /**
+     * Method for copying the Aisle and its Shelves into a snapshot. Inventory already copied for the
+     * snapshot is shared through copies
+     *
+     * @param copies
+     * @return
+     */
+    Aisle snapshot(Map<Inventory, Inventory> copies) {
+        return snapshot(copies, true);
+    }
+
+    /**
+     * Method for copying the Aisle and its Shelves into a snapshot, leaving the Inventory of the Shelves
+     * out unless inventory is set. Inventory already copied for the snapshot is shared through copies
+     *
+     * @param copies
+     * @param inventory
+     * @return
+     */
+    Aisle snapshot(Map<Inventory, Inventory> copies, boolean inventory) {
+        Aisle aisle = new Aisle(number, name, description, aisleLocation);
+        Shelf[] current = this.shelves;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != null)
+                aisle.shelves[i] = inventory ? current[i].snapshot(copies) : current[i].snapshotWithoutInventory();
+        }
+        aisle.key = key;
+        return aisle;
     }
 
     /**
@@ -108,6 +140,24 @@ public class Aisle {
         this.aisleLocation = aisleLocation;
     }
 
+    /**
+     * Getter method for the dense key of the Aisle within its Store, -1 if the Aisle has not been added to a Store
+     *
+     * @return
+     */
+    int getKey() {
+        return key;
+    }
+
+    /**
+     * Setter method for the dense key of the Aisle within its Store
+     *
+     * @param key
+     */
+    void setKey(int key) {
+        this.key = key;
+    }
+
     /**
      * Method for adding Shelf to the Aisle. If Shelf already exists in the Aisle throws StoreModelException
      *
@@ -121,23 +171,39 @@ public class Aisle {
      */
     public Shelf addShelf(String id, String name, ShelfLevel level, String description,
                           Temperature temperature) throws StoreModelException {
-        Shelf shelf = new Shelf(id, name, level, description, temperature);
+        return tryAddShelf(id, name, level, description, temperature).orThrow();
+    }
 
-        //Check to see if Shelf already exists at the given level
-        List<Shelf> shelfList = this.shelfMap.values()
-                .stream()
-                .filter(tempShelf -> level.equals(tempShelf.getLevel()))
-                .collect(Collectors.toList());
+    /**
+     * Add Shelf to the Aisle. Returns a rejected outcome if Shelf already exists or another Shelf
+     * is at the same level
+     *
+     * @param id
+     * @param name
+     * @param level
+     * @param description
+     * @param temperature
+     * @return
+     */
+    public ModelOutcome<Shelf> tryAddShelf(String id, String name, ShelfLevel level, String description,
+                                           Temperature temperature) {
+        Shelf[] current = this.shelves;
 
-        if (!shelfList.isEmpty()) {
-            throw new StoreModelException("Add Shelf", "Shelf Already Exists at This Level");
+        //Check to see if Shelf already exists at the given level
+        if (current[level.ordinal()] != null) {
+            return ModelOutcome.failure("Add Shelf", ModelError.SHELF_ALREADY_EXISTS_AT_LEVEL);
         }
 
-        //If Shelf already exists throw and exception
-        if (this.shelfMap.putIfAbsent(id, shelf) != null)
-            throw new StoreModelException("Add Shelf", "Shelf Already Exists");
+        //If Shelf already exists return a rejected outcome
+        if (getShelf(id) != null)
+            return ModelOutcome.failure("Add Shelf", ModelError.SHELF_ALREADY_EXISTS);
 
-        return shelf;
+        //Shelves are added under the Store lock, so publishing a copy cannot lose a concurrent addition
+        Shelf shelf = new Shelf(id, name, level, description, temperature);
+        Shelf[] added = current.clone();
+        added[level.ordinal()] = shelf;
+        this.shelves = added;
+        return ModelOutcome.of(shelf);
     }
 
     /**
@@ -147,16 +213,26 @@ public class Aisle {
      * @return
      */
     public Shelf getShelf(String shelfId) {
-        return this.shelfMap.get(shelfId);
+        for (Shelf shelf : this.shelves) {
+            if (shelf != null && shelfId.equals(shelf.getId()))
+                return shelf;
+        }
+        return null;
     }
 
     /**
-     * Method for returning a map of all the Shelves in the Aisle
+     * Method for returning a map of all the Shelves in the Aisle, ordered by level. The map is a read only
+     * snapshot of the Shelves
      *
      * @return
      */
     public Map<String, Shelf> getShelfMap() {
-        return this.shelfMap;
+        Map<String, Shelf> shelfMap = new LinkedHashMap<>();
+        for (Shelf shelf : this.shelves) {
+            if (shelf != null)
+                shelfMap.put(shelf.getId(), shelf);
+        }
+        return Collections.unmodifiableMap(shelfMap);
     }
 
     @Override
@@ -166,7 +242,7 @@ public class Aisle {
                 ", name='" + name + '\'' +
                 ", description='" + description + '\'' +
                 ", aisleLocation=" + aisleLocation +
-                ", shelfMap=" + shelfMap +
+                ", shelfMap=" + getShelfMap() +
                 '}';
     }
 }
\ No newline at end of file
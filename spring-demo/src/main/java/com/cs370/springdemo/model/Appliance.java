@@ -21,12 +21,17 @@ public class Appliance extends Device {
         super(id, name, storeLocation, type);
     }
 
+    @Override
+    Device snapshot() {
+        return new Appliance(getId(), getName(), getStoreLocation(), getType());
+    }
+
     /**
      * Appliance specific event processing
      */
     @Override
     public void processEvent(String event) {
-        System.out.println("Processing Event : " + event);
+        OutputSinks.current().println("Processing Event : " + event);
     }
 
     /**
@@ -35,6 +40,6 @@ public class Appliance extends Device {
      * @param command
      */
     public void processCommand(String command) {
-        System.out.println("<<< " + "Processing Command : " + command);
+        OutputSinks.current().println("<<< " + "Processing Command : " + command);
     }
 }
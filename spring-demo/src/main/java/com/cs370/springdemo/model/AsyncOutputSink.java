@@ -0,0 +1,174 @@
+package com.cs370.springdemo.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Output sink that hands lines to a background thread instead of writing them on the caller's thread.
+ * Lines are appended to an in-memory buffer and the writer thread drains it in batches, so callers only
+ * pay for a short critical section and the destination sees one write and one flush per batch.
+ * Callers block if the writer falls too far behind.
+ */
+public class AsyncOutputSink implements OutputSink {
+
+    //Batch size that wakes the writer thread immediately
+    private static final int BATCH_SIZE = 1 << 16;
+    //Buffered output above which callers wait for the writer thread
+    private static final int MAX_PENDING = 1 << 23;
+    //How long the writer thread waits for a batch to fill up before writing what it has
+    private static final long LINGER_MILLIS = 10;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer writer;
+    private final Thread worker;
+
+    private StringBuilder pending = new StringBuilder(BATCH_SIZE);
+    private StringBuilder writing = new StringBuilder(BATCH_SIZE);
+    private long appended;
+    private long written;
+    private boolean flushRequested;
+    private boolean closed;
+
+    /**
+     * Constructor for the AsyncOutputSink class
+     *
+     * @param writer
+     * @param name
+     */
+    public AsyncOutputSink(Writer writer, String name) {
+        this.writer = writer;
+        this.worker = new Thread(this::drain, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    @Override
+    public synchronized void println(String line) {
+        if (closed)
+            throw new IllegalStateException("Output sink is closed");
+
+        while (pending.length() >= MAX_PENDING && worker.isAlive()) {
+            if (!await(0))
+                break;
+        }
+
+        //Wake up the writer thread when the buffer becomes non empty or a batch is full
+        if (pending.length() == 0 || pending.length() + line.length() >= BATCH_SIZE)
+            notifyAll();
+        pending.append(line).append(LINE_SEPARATOR);
+        appended++;
+    }
+
+    @Override
+    public synchronized void println(Rendering rendering) {
+        if (closed)
+            throw new IllegalStateException("Output sink is closed");
+
+        while (pending.length() >= MAX_PENDING && worker.isAlive()) {
+            if (!await(0))
+                break;
+        }
+
+        //Render straight into the buffer; a rendering that fails leaves no partial line behind
+        int start = pending.length();
+        try {
+            rendering.renderTo(pending);
+        } catch (IOException | RuntimeException e) {
+            pending.setLength(start);
+            throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+        }
+        pending.append(LINE_SEPARATOR);
+        appended++;
+        if (start == 0 || pending.length() >= BATCH_SIZE)
+            notifyAll();
+    }
+
+    @Override
+    public synchronized void flush() {
+        long target = appended;
+        flushRequested = true;
+        notifyAll();
+        while (written < target && worker.isAlive()) {
+            if (!await(0))
+                return;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            notifyAll();
+        }
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method run by the writer thread, swapping the pending buffer out and writing it until the sink is closed
+     */
+    private void drain() {
+        while (true) {
+            long batchEnd;
+            synchronized (this) {
+                while (pending.length() == 0 && !closed) {
+                    await(0);
+                }
+                if (pending.length() == 0) {
+                    return;
+                }
+                //Give a partly filled batch a moment to fill up unless somebody is waiting for it
+                if (pending.length() < BATCH_SIZE && !closed && !flushRequested) {
+                    await(LINGER_MILLIS);
+                }
+
+                StringBuilder batch = pending;
+                pending = writing;
+                writing = batch;
+                batchEnd = appended;
+                flushRequested = false;
+                notifyAll();
+            }
+
+            try {
+                writer.append(writing);
+                writer.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            writing.setLength(0);
+
+            synchronized (this) {
+                written = batchEnd;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Method for waiting on the sink monitor. Returns false if the thread was interrupted
+     *
+     * @param millis
+     * @return
+     */
+    private boolean await(long millis) {
+        try {
+            wait(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
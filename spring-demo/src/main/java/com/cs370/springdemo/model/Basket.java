@@ -3,7 +3,6 @@ package com.cs370.springdemo.model;
 import jakarta.persistence.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Basket class implementation representing Customer basket
@@ -18,21 +17,26 @@ public class Basket {
 
     @Id
     private String id;
+    //Quantities by Product key, primitive so that adding and removing Products does not allocate. Kept with
+    //the storage they grew to while the Basket is pooled by the Store it was cleared in
     @Transient
-    private final Map<String, Integer> productMap;
+    private BasketLines lines;
+    //Every successful operation returns the Basket itself, so the outcome is shared
+    @Transient
+    private final ModelOutcome<Basket> success;
     @ManyToOne
     @JoinColumn(name = "customer_id")
-    private Customer customer;
+    private volatile Customer customer;
     @ManyToOne
     @JoinColumn(name = "store_id")
-    private Store store;
+    private volatile Store store;
 
     /**
      * Constructor for Basket class
      *
      */
     public Basket(){
-        this.productMap = new HashMap<>();
+        this.success = ModelOutcome.of(this);
     }
 
     /**
@@ -42,7 +46,7 @@ public class Basket {
      */
     public Basket(String id) {
         this.id = id;
-        this.productMap = new HashMap<>();
+        this.success = ModelOutcome.of(this);
     }
 
     /**
@@ -66,129 +70,152 @@ public class Basket {
     /**
      * Method to add Product to the Customer's Basket. It throws StoreModel Exception on
      * various model inconsistencies
-     * Method is synchronized to guarantee critical section
      *
      * @param productId
      * @param count
      * @throws StoreModelException
      */
-    synchronized public void addProduct(String productId, int count) throws StoreModelException {
+    public void addProduct(String productId, int count) throws StoreModelException {
+        tryAddProduct(productId, count).orThrow();
+    }
+
+    /**
+     * Method to add Product to the Customer's Basket. It returns a rejected outcome on
+     * various model inconsistencies
+     * Method is synchronized to guarantee critical section
+     *
+     * @param productId
+     * @param count
+     * @return
+     */
+    synchronized public ModelOutcome<Basket> tryAddProduct(String productId, int count) {
 
         //Make sure that the customer is registered
         if (customer.getType() == CustomerType.guest) {
-            throw new StoreModelException("Add Product", "Guests Are Not Allowed to Shop");
+            return ModelOutcome.failure("Add Product", ModelError.GUEST_NOT_ALLOWED);
         }
 
         //Get location of the customer associated with this basket
         StoreLocation location = this.customer.getStoreLocation();
         //Get the aisle where the customer was last seen
-        Aisle aisle = store.getAisle(location.getAisleId());
+        ModelOutcome<Aisle> aisleOutcome = store.tryGetAisle(location.getAisleId());
 
         //Check to see if exists
-        if (aisle == null) {
-            throw new StoreModelException("Add Product", "Aisle Does Not Exist");
+        if (!aisleOutcome.isSuccess()) {
+            return aisleOutcome.propagate();
         }
+        Aisle aisle = aisleOutcome.getValue();
 
         //Get all inventory items from the shelves in the aisle where customer was last seen
-        List<Inventory> inventoryList = aisle.getShelfMap().values()
-                .stream()
-                .flatMap(shelf -> shelf.getInventoryMap().values().
-                        stream())
-                .filter(inventory -> productId.equals(inventory.getProductId()))
-                .collect(Collectors.toList());
+        int productKey = StoreModelService.productKey(productId);
+        List<Inventory> inventoryList = findInventory(aisle, productKey);
 
         //If inventory list is empty that means product is not available to be put in the basket
         if (inventoryList.isEmpty()) {
-            System.out.println("\u001B[31m" + "Error : " + customer + "\u001B[0m");
-            throw new StoreModelException("Add Product", "Customer Is Not Near Product");
+            OutputSinks.current().println("\u001B[31m" + "Error : " + customer + "\u001B[0m");
+            return ModelOutcome.failure("Add Product", ModelError.CUSTOMER_NOT_NEAR_PRODUCT);
         }
 
         //If inventory list is larger than one that means that there are multiple product are available
         //where customer was last seen
         if (inventoryList.size() > 1) {
-            System.out.println("\u001B[31m" + "Error : " + inventoryList + "\u001B[0m");
-            throw new StoreModelException("Add Product", "There Are Several Products In the Aisle");
+            OutputSinks.current().println("\u001B[31m" + "Error : " + inventoryList + "\u001B[0m");
+            return ModelOutcome.failure("Add Product", ModelError.SEVERAL_PRODUCTS_IN_AISLE);
         }
 
-        //If the count of the product on the shelf is smaller than the customer is trying to buy throw and exception
+        //Take the product off the shelf unless the count on the shelf is smaller than the customer is trying to buy
         Inventory inventory = inventoryList.get(0);
-        if ((inventory.getCount() - count) < 0) {
-            System.out.println("\u001B[31m" + "Error : " + inventory + "\u001B[0m");
-            throw new StoreModelException("Add Product", "There Is Not Enough Inventory on the Shelf");
+        if (!inventory.reserve(count)) {
+            OutputSinks.current().println("\u001B[31m" + "Error : " + inventory + "\u001B[0m");
+            return ModelOutcome.failure("Add Product", ModelError.NOT_ENOUGH_INVENTORY);
         }
 
-        //Put the product in the basket and decrement product on the shelf
-        this.productMap.merge(productId, count, Integer::sum);
-        inventory.setCount(inventory.getCount() - count);
+        //Put the product in the basket
+        lines().add(productKey, count);
+        return success;
     }
 
     /**
      * Remove Product from the Customer's Basket. It throws StoreModel Exception on
      * various model inconsistencies
-     * Method is synchronized to guarantee critical section
      *
      * @param productId
      * @param count
      * @throws StoreModelException
      */
-    synchronized public void removeProduct(String productId, int count) throws StoreModelException {
+    public void removeProduct(String productId, int count) throws StoreModelException {
+        tryRemoveProduct(productId, count).orThrow();
+    }
+
+    /**
+     * Remove Product from the Customer's Basket. It returns a rejected outcome on
+     * various model inconsistencies
+     * Method is synchronized to guarantee critical section
+     *
+     * @param productId
+     * @param count
+     * @return
+     */
+    synchronized public ModelOutcome<Basket> tryRemoveProduct(String productId, int count) {
+        return tryRemoveProduct(StoreModelService.productKey(productId), count);
+    }
+
+    /**
+     * Remove Product with the given dense key from the Customer's Basket
+     *
+     * @param productKey
+     * @param count
+     * @return
+     */
+    private ModelOutcome<Basket> tryRemoveProduct(int productKey, int count) {
 
         //If Customer is trying to remove more units of the products from the basket than he/she has put in
         //throw an exception
-        Integer tempCount = this.productMap.get(productId);
-        if (tempCount == null) {
-            throw new StoreModelException("Remove Product", "Product Does Not Exist");
+        int tempCount = lines().get(productKey);
+        if (tempCount == 0) {
+            return ModelOutcome.failure("Remove Product", ModelError.PRODUCT_DOES_NOT_EXIST);
         } else if (count > tempCount) {
-            throw new StoreModelException("Remove Product", "Trying To Remove More Quantity Than Exists");
+            return ModelOutcome.failure("Remove Product", ModelError.REMOVING_MORE_THAN_EXISTS);
         }
 
         //Get location of the customer associated with this basket
         StoreLocation location = this.customer.getStoreLocation();
         //Get the aisle where the customer was last seen
-        Aisle aisle = store.getAisle(location.getAisleId());
+        ModelOutcome<Aisle> aisleOutcome = store.tryGetAisle(location.getAisleId());
 
         //Check to see if exists
-        if (aisle == null) {
-            throw new StoreModelException("Remove Product", "Aisle Does Not Exist");
+        if (!aisleOutcome.isSuccess()) {
+            return aisleOutcome.propagate();
         }
+        Aisle aisle = aisleOutcome.getValue();
 
         //Get all inventory items from the shelves in the aisle where customer was last seen
-        List<Inventory> inventoryList = aisle.getShelfMap().values()
-                .stream()
-                .flatMap(shelf -> shelf.getInventoryMap().values().
-                        stream())
-                .filter(inventory -> productId.equals(inventory.getProductId()))
-                .collect(Collectors.toList());
+        List<Inventory> inventoryList = findInventory(aisle, productKey);
 
         //If inventory list is empty that means product is not available to be put on the shelf
         if (inventoryList.isEmpty()) {
-            System.out.println("\u001B[31m" + "Error: " + customer + "\u001B[0m");
-            throw new StoreModelException("Remove Product", "Customer Is Not Near Product");
+            OutputSinks.current().println("\u001B[31m" + "Error: " + customer + "\u001B[0m");
+            return ModelOutcome.failure("Remove Product", ModelError.CUSTOMER_NOT_NEAR_PRODUCT);
         }
 
         //If inventory list is larger than one that means that there are multiple product slots are available
         //on the shelves where customer was last seen
         if (inventoryList.size() > 1) {
-            System.out.println("\u001B[31m" + "Error : " + inventoryList + "\u001B[0m");
-            throw new StoreModelException("Remove Product", "There Are Several Products In the Aisle");
+            OutputSinks.current().println("\u001B[31m" + "Error : " + inventoryList + "\u001B[0m");
+            return ModelOutcome.failure("Remove Product", ModelError.SEVERAL_PRODUCTS_IN_AISLE);
         }
 
-        //If product capacity on the shelf is smaller than what the customer is trying to put back throw and exception
+        //Put the product back on the shelf unless the capacity on the shelf is smaller than what the customer
+        //is trying to put back
         Inventory inventory = inventoryList.get(0);
-        if ((inventory.getCount() + count) > inventory.getCapacity()) {
-            System.out.println("\u001B[31m" + "Error : " + inventory + "\u001B[0m");
-            throw new StoreModelException("Remove Product", "There Is Not Enough Capacity on the Shelf");
+        if (!inventory.release(count)) {
+            OutputSinks.current().println("\u001B[31m" + "Error : " + inventory + "\u001B[0m");
+            return ModelOutcome.failure("Remove Product", ModelError.NOT_ENOUGH_CAPACITY);
         }
 
-        //Remove the product in the basket and increment product on the shelf
-        this.productMap.merge(productId, count, (a, b) -> a - b);
-        inventory.setCount(inventory.getCount() + count);
-
-        //if product count in the basket is 0 remove it from the basket completely
-        tempCount = this.productMap.get(productId);
-        if (tempCount == 0) {
-            productMap.remove(productId);
-        }
+        //Remove the product in the basket; the line is dropped once its count reaches 0
+        lines().add(productKey, -count);
+        return success;
     }
 
     /**
@@ -196,25 +223,81 @@ public class Basket {
      *
      * @throws StoreModelException
      */
-    synchronized public void clearBasket() throws StoreModelException {
-
-        //Removal of the products can't occur in the lambda function since we would get a
-        //concurrent object modification exception
-        Set<String> keys = this.productMap.keySet();
-        List<Integer> values = new ArrayList<>(productMap.values());
-
-        //Remove all the products from the Product Map
-        int i = 0;
-        for (String key : keys) {
-            removeProduct(key, values.get(i));
-            i++;
+    public void clearBasket() throws StoreModelException {
+        tryClearBasket().orThrow();
+    }
+
+    /**
+     * Remove all Products from the Customer's Basket. Returns the rejected outcome of the first
+     * Product that could not be put back
+     *
+     * @return
+     */
+    synchronized public ModelOutcome<Basket> tryClearBasket() {
+
+        //Removal of the products can't occur while iterating the lines, so iterate a copy of their keys
+        int[] productKeys = lines().productKeys();
+
+        //Remove all the products from the Basket
+        for (int productKey : productKeys) {
+            ModelOutcome<Basket> removed = tryRemoveProduct(productKey, lines().get(productKey));
+            if (!removed.isSuccess())
+                return removed;
         }
 
-        this.productMap.clear();
+        lines().clear();
 
         //Clear Basket and remove Customer association
         this.customer.assignBasket(null);
         this.customer = null;
+        return success;
+    }
+
+    /**
+     * Method for provisioning a cleared Basket taken from the pool of a Store under a new id. The Basket is
+     * no longer used in the Store, and keeps its empty lines
+     *
+     * @param id
+     * @return
+     */
+    Basket reuse(String id) {
+        this.id = id;
+        this.store = null;
+        return this;
+    }
+
+    //Lines are created on first use, and kept when the Basket is reused
+    private BasketLines lines() {
+        if (this.lines == null)
+            this.lines = new BasketLines();
+        return this.lines;
+    }
+
+    /**
+     * Method for finding the Inventory of a Product on the shelves of an Aisle with a single probe of
+     * the Store's product location index
+     *
+     * @param aisle
+     * @param productKey
+     * @return
+     */
+    private List<Inventory> findInventory(Aisle aisle, int productKey) {
+        return store.findInventory(aisle, productKey);
+    }
+
+    /**
+     * Method for copying the Basket into a snapshot of the Store it is used in, held by the copy of its
+     * Customer. Products in the Basket are not copied
+     *
+     * @param store
+     * @param customer
+     * @return
+     */
+    Basket snapshot(Store store, Customer customer) {
+        Basket basket = new Basket(id);
+        basket.store = this.store == null ? null : store;
+        basket.customer = customer;
+        return basket;
     }
 
     /**
@@ -0,0 +1,143 @@
+package com.cs370.springdemo.model;
+
+import java.util.Arrays;
+
+/**
+ * Quantities of the Products in a Basket keyed by the dense key their id was interned to. Keys and
+ * quantities are held in parallel int arrays of an open addressing table, so adding and removing Products
+ * neither boxes nor allocates once the table has grown to the number of distinct Products in the Basket.
+ *
+ * Lines are not thread safe; they are modified under the monitor of their Basket.
+ */
+final class BasketLines {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    //Product key + 1 of every slot, 0 marks an empty slot
+    private int[] keys = new int[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Getter method for the number of Products in the Basket
+     *
+     * @return
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Method for getting the quantity of a Product, 0 if the Product is not in the Basket
+     *
+     * @param productKey
+     * @return
+     */
+    int get(int productKey) {
+        int slot = find(productKey);
+        return slot < 0 ? 0 : counts[slot];
+    }
+
+    /**
+     * Method for adding a possibly negative quantity of a Product. The line of the Product is removed
+     * once its quantity drops to 0
+     *
+     * @param productKey
+     * @param count
+     */
+    void add(int productKey, int count) {
+        int slot = find(productKey);
+        if (slot >= 0) {
+            counts[slot] += count;
+            if (counts[slot] == 0)
+                delete(slot);
+            return;
+        }
+        if (count == 0)
+            return;
+
+        if ((size + 1) * 4 > keys.length * 3)
+            grow();
+        int mask = keys.length - 1;
+        int i = spread(productKey) & mask;
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = productKey + 1;
+        counts[i] = count;
+        size++;
+    }
+
+    /**
+     * Method for getting the keys of the Products in the Basket
+     *
+     * @return
+     */
+    int[] productKeys() {
+        int[] productKeys = new int[size];
+        int n = 0;
+        for (int key : keys) {
+            if (key != 0)
+                productKeys[n++] = key - 1;
+        }
+        return productKeys;
+    }
+
+    /**
+     * Method for removing every line
+     */
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private int find(int productKey) {
+        int mask = keys.length - 1;
+        for (int i = spread(productKey) & mask; ; i = (i + 1) & mask) {
+            int key = keys[i];
+            if (key == 0)
+                return -1;
+            if (key == productKey + 1)
+                return i;
+        }
+    }
+
+    //Backward shift deletion, keeping every remaining key reachable from its home slot without tombstones
+    private void delete(int slot) {
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (slot + 1) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            int home = spread(keys[i] - 1) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                counts[hole] = counts[i];
+                hole = i;
+            }
+        }
+        keys[hole] = 0;
+        size--;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new int[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0)
+                continue;
+            int i = spread(oldKeys[j] - 1) & mask;
+            while (keys[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+
+    private static int spread(int productKey) {
+        int hash = productKey * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,5 +1,9 @@
 package com.cs370.springdemo.model;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Iterator;
+
 /**
  * Command interface for managing script commands
  *
@@ -25,4 +29,40 @@ public interface CommandAPI {
      */
     void processCommandFile(String fileName);
 
+    /**
+     * Method for processing CLI commands line by line as they are read from the reader. Lines are executed
+     * as soon as they arrive, so memory use does not depend on the size of the input
+     *
+     * @param reader
+     * @throws IOException
+     */
+    void processCommandStream(BufferedReader reader) throws IOException;
+
+    /**
+     * Method for processing grouped CLI commands in a single file from its precompiled binary form.
+     * The script is compiled and cached next to the source file if the cache is missing or out of date
+     *
+     * @param fileName
+     */
+    void processCompiledCommandFile(String fileName);
+
+    /**
+     * Method for processing a batch of CLI commands. Commands are executed in order without printing and
+     * without throwing; the outcome of every command, including blank and comment lines, is recorded in
+     * the returned result
+     *
+     * @param commands
+     * @return
+     */
+    CommandBatchResult processCommandBatch(Iterator<String> commands);
+
+    /**
+     * Method for processing a batch of CLI commands like processCommandBatch, appending the outcomes to an
+     * existing result. Lets callers that report commands one at a time reuse a single result
+     *
+     * @param commands
+     * @param batch
+     */
+    void processCommandBatch(Iterator<String> commands, CommandBatchResult batch);
+
 }
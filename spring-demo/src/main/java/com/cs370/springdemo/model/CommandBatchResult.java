@@ -0,0 +1,217 @@
+package com.cs370.springdemo.model;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Result of processing a batch of commands. Holds one entry per submitted command in parallel arrays:
+ * its status, the model object it produced and, for failed commands, the failing action and reason.
+ * Nothing is printed while the batch runs; writeTo renders the whole batch the way processCommandFile
+ * prints it, using the position in the batch as the line number. Results are the live model objects, so
+ * they render in the state they are in when writeTo is called
+ */
+public class CommandBatchResult {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final CommandStatus[] STATUSES = CommandStatus.values();
+    private static final CommandVerb[] VERBS = CommandVerb.values();
+
+    private int size;
+    private int failureCount;
+    private byte[] statuses = new byte[INITIAL_CAPACITY];
+    //Verb ordinal, or -1 if the verb could not be resolved
+    private byte[] verbs = new byte[INITIAL_CAPACITY];
+    private String[] commands = new String[INITIAL_CAPACITY];
+    private Object[] results = new Object[INITIAL_CAPACITY];
+    //Only allocated once the first command of the batch fails
+    private String[] actions;
+    private String[] reasons;
+
+    /**
+     * Method for recording a command that was skipped because it is blank or a comment
+     *
+     * @param command
+     */
+    void addSkipped(String command) {
+        add(command, null, CommandStatus.SKIPPED, null);
+    }
+
+    /**
+     * Method for recording a successfully executed command together with the object it produced
+     *
+     * @param command
+     * @param verb
+     * @param result
+     */
+    void addResult(String command, CommandVerb verb, Object result) {
+        add(command, verb, CommandStatus.OK, result);
+    }
+
+    /**
+     * Method for recording a failed command
+     *
+     * @param command
+     * @param verb
+     * @param status
+     * @param action
+     * @param reason
+     */
+    void addFailure(String command, CommandVerb verb, CommandStatus status, String action, String reason) {
+        int index = add(command, verb, status, null);
+        if (actions == null) {
+            actions = new String[statuses.length];
+            reasons = new String[statuses.length];
+        }
+        actions[index] = action;
+        reasons[index] = reason;
+        failureCount++;
+    }
+
+    private int add(String command, CommandVerb verb, CommandStatus status, Object result) {
+        if (size == statuses.length) {
+            int capacity = size * 2;
+            statuses = Arrays.copyOf(statuses, capacity);
+            verbs = Arrays.copyOf(verbs, capacity);
+            commands = Arrays.copyOf(commands, capacity);
+            results = Arrays.copyOf(results, capacity);
+            if (actions != null) {
+                actions = Arrays.copyOf(actions, capacity);
+                reasons = Arrays.copyOf(reasons, capacity);
+            }
+        }
+        statuses[size] = (byte) status.ordinal();
+        verbs[size] = verb == null ? -1 : (byte) verb.ordinal();
+        commands[size] = command;
+        results[size] = result;
+        return size++;
+    }
+
+    /**
+     * Method for discarding every recorded command so that the result can be reused for the next batch
+     */
+    public void clear() {
+        Arrays.fill(commands, 0, size, null);
+        Arrays.fill(results, 0, size, null);
+        if (actions != null) {
+            Arrays.fill(actions, 0, size, null);
+            Arrays.fill(reasons, 0, size, null);
+        }
+        size = 0;
+        failureCount = 0;
+    }
+
+    /**
+     * Getter method for the number of commands in the batch
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Getter method for the number of commands in the batch that failed
+     *
+     * @return
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Getter method for the status of a command
+     *
+     * @param index
+     * @return
+     */
+    public CommandStatus getStatus(int index) {
+        return STATUSES[statuses[checkIndex(index)]];
+    }
+
+    /**
+     * Getter method for the verb of a command, null if the command was skipped or not recognized
+     *
+     * @param index
+     * @return
+     */
+    public CommandVerb getVerb(int index) {
+        byte verb = verbs[checkIndex(index)];
+        return verb < 0 ? null : VERBS[verb];
+    }
+
+    /**
+     * Getter method for the command as it was submitted
+     *
+     * @param index
+     * @return
+     */
+    public String getCommand(int index) {
+        return commands[checkIndex(index)];
+    }
+
+    /**
+     * Getter method for the model object produced by a command, null for failed commands and commands
+     * without a result
+     *
+     * @param index
+     * @return
+     */
+    public Object getResult(int index) {
+        return results[checkIndex(index)];
+    }
+
+    /**
+     * Getter method for the action that failed, null if the command did not fail
+     *
+     * @param index
+     * @return
+     */
+    public String getErrorAction(int index) {
+        checkIndex(index);
+        return actions == null ? null : actions[index];
+    }
+
+    /**
+     * Getter method for the reason a command failed, null if the command did not fail
+     *
+     * @param index
+     * @return
+     */
+    public String getErrorReason(int index) {
+        checkIndex(index);
+        return reasons == null ? null : reasons[index];
+    }
+
+    /**
+     * Method for writing the whole batch in the same format processCommandFile prints to the console
+     *
+     * @param out
+     * @throws IOException
+     */
+    public void writeTo(Appendable out) throws IOException {
+        for (int i = 0; i < size; i++) {
+            CommandStatus status = STATUSES[statuses[i]];
+            if (status == CommandStatus.SKIPPED)
+                continue;
+
+            out.append(">>> Processing DSL : ").append(commands[i]).append(System.lineSeparator());
+            switch (status) {
+                case OK -> {
+                    String prefix = VERBS[verbs[i]].getOutputPrefix();
+                    if (prefix != null)
+                        out.append(prefix).append(String.valueOf(results[i])).append(System.lineSeparator());
+                }
+                case UNRECOGNIZED_COMMAND -> out.append("\u001B[31m" + "Failed due to: ").append(reasons[i])
+                        .append(" for Command: ").append(actions[i]).append(" On Line Number: ")
+                        .append(String.valueOf(i + 1)).append("\u001B[0m").append(System.lineSeparator());
+                default -> out.append("\u001B[31m" + "Failed due to: ").append(reasons[i])
+                        .append(" for Command: ").append(actions[i]).append("\u001B[0m").append(System.lineSeparator());
+            }
+        }
+    }
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+}
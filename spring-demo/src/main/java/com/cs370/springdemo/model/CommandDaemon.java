@@ -0,0 +1,243 @@
+package com.cs370.springdemo.model;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Long lived command server keeping a warm StoreModelService resident, so that scripts and operator
+ * commands do not pay for JVM startup and JIT warm-up on every run. Listens on a loopback port or a
+ * Unix domain socket and reads one request per line:
+ *
+ * <pre>
+ * &lt;DSL command&gt;        executed immediately, its output is streamed back
+ * &#64;run &lt;script&gt;        script on the daemon's file system, streamed line by line
+ * &#64;compiled &lt;script&gt;   script executed from its cached binary form
+ * &#64;quit                 closes the connection
+ * &#64;shutdown             closes the connection and stops the daemon
+ * </pre>
+ *
+ * Output is written back in the console format of processCommandFile. Every &#64;run and &#64;compiled request
+ * ends with a "# ok" or "# error" status line, which starts with the DSL comment marker so that the
+ * response can be fed back as a script. Connections are served one at a time in the order they were
+ * accepted, so commands of different clients never interleave.
+ */
+public class CommandDaemon implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String RUN = "@run";
+    private static final String COMPILED = "@compiled";
+    private static final String QUIT = "@quit";
+    private static final String SHUTDOWN = "@shutdown";
+
+    private final StoreModelService storeModelService;
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+
+    /**
+     * Constructor for the CommandDaemon class. Binds the address right away; a stale Unix domain socket
+     * file left behind by a previous daemon is replaced
+     *
+     * @param storeModelService
+     * @param address
+     * @throws IOException
+     */
+    public CommandDaemon(StoreModelService storeModelService, SocketAddress address) throws IOException {
+        this.storeModelService = storeModelService;
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            socketFile = unixAddress.getPath();
+            if (Files.exists(socketFile, LinkOption.NOFOLLOW_LINKS) && Files.readAttributes(socketFile,
+                    BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS).isOther()) {
+                Files.delete(socketFile);
+            }
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            socketFile = null;
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+    }
+
+    /**
+     * Method for turning a command line argument into a daemon address: a number is a port on the
+     * loopback interface, anything else the path of a Unix domain socket
+     *
+     * @param address
+     * @return
+     */
+    public static SocketAddress parseAddress(String address) {
+        if (address.chars().allMatch(Character::isDigit)) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+        }
+        return UnixDomainSocketAddress.of(address);
+    }
+
+    /**
+     * Getter method for the bound address, useful when the daemon was started on port 0
+     *
+     * @return
+     * @throws IOException
+     */
+    public SocketAddress getLocalAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /**
+     * Method for accepting and serving connections until a client requests a shutdown or the daemon is closed
+     *
+     * @throws IOException
+     */
+    public void serve() throws IOException {
+        try {
+            while (true) {
+                try (SocketChannel channel = server.accept()) {
+                    if (serve(channel))
+                        return;
+                } catch (ClosedChannelException e) {
+                    return;
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Method for serving a single connection. Returns true if the client asked for a shutdown
+     *
+     * @param channel
+     * @return
+     * @throws IOException
+     */
+    private boolean serve(SocketChannel channel) throws IOException {
+        //Reads and writes stay on this thread: the channel stream adapters lock the channel while blocked
+        BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE);
+        ConnectionSink sink = new ConnectionSink(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        OutputSink previous = OutputSinks.install(sink);
+        try {
+            String line;
+            for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+                String request = line.trim();
+                if (request.equals(QUIT)) {
+                    return false;
+                } else if (request.equals(SHUTDOWN)) {
+                    return true;
+                } else if (request.startsWith(RUN + " ")) {
+                    runScript(Path.of(request.substring(RUN.length()).trim()), false, sink);
+                } else if (request.startsWith(COMPILED + " ")) {
+                    runScript(Path.of(request.substring(COMPILED.length()).trim()), true, sink);
+                } else {
+                    storeModelService.processCommandLine(line, lineNumber);
+                }
+
+                //Pipelined requests share a write, an idle client gets its answer right away
+                if (!reader.ready())
+                    sink.flush();
+            }
+            return false;
+        } finally {
+            OutputSinks.install(previous);
+            sink.close();
+        }
+    }
+
+    /**
+     * Method for executing a script on behalf of a client and reporting how it went
+     *
+     * @param script
+     * @param compiled
+     * @param sink
+     */
+    private void runScript(Path script, boolean compiled, OutputSink sink) {
+        if (!Files.isReadable(script)) {
+            sink.println("# error Script Not Found: " + script);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (compiled) {
+                CommandScriptCompiler.execute(CommandScriptCompiler.compileIfStale(script.toAbsolutePath()),
+                        storeModelService);
+            } else {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(script),
+                        StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                    storeModelService.processCommandStream(reader);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            sink.println("# error " + e);
+            return;
+        }
+        sink.println(String.format("# ok %s in %.1f ms", script, (System.nanoTime() - start) / 1e6));
+    }
+
+    /**
+     * Method for stopping the daemon. A connection being served is finished first
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+        if (socketFile != null)
+            Files.deleteIfExists(socketFile);
+    }
+
+    /**
+     * Sink writing the output of a connection on the thread serving it
+     */
+    private static final class ConnectionSink implements OutputSink {
+
+        private final Writer writer;
+        private boolean failed;
+
+        ConnectionSink(Writer writer) {
+            this.writer = new BufferedWriter(writer, BUFFER_SIZE);
+        }
+
+        @Override
+        public synchronized void println(String line) {
+            if (failed)
+                return;
+            try {
+                writer.write(line);
+                writer.write(System.lineSeparator());
+            } catch (IOException e) {
+                //The client went away; keep executing its commands without output
+                failed = true;
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            if (failed)
+                return;
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                failed = true;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            flush();
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.cs370.springdemo.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiler turning a command script into a compact binary form that can be executed without tokenizing.
+ *
+ * The compiled file starts with a magic number and the SHA-256 hash of the source script, followed by a
+ * stream of records. A string record appends a token to the interned string table, a command record holds
+ * the verb opcode, the line number delta and the indices of its tokens in the string table. Strings are
+ * emitted the first time they are used, so both compiling and executing stream through the file.
+ * Compiled files are cached next to the source as &lt;script&gt;.bin and recompiled when the hash of the
+ * source no longer matches.
+ */
+public final class CommandScriptCompiler {
+
+    //"SMC" followed by the format version. Bump the version whenever CommandVerb constants are reordered
+    private static final int MAGIC = 0x534D4302;
+    private static final int HASH_LENGTH = 32;
+    private static final int HEADER_LENGTH = 4 + HASH_LENGTH;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private static final int OP_UNRECOGNIZED = 0xFD;
+    private static final int OP_STRING = 0xFE;
+    private static final int OP_END = 0xFF;
+
+    private static final String CACHE_SUFFIX = ".bin";
+
+    private CommandScriptCompiler() {
+    }
+
+    /**
+     * Method for getting the location of the compiled form of a script
+     *
+     * @param script
+     * @return
+     */
+    public static Path cacheFile(Path script) {
+        return script.resolveSibling(script.getFileName() + CACHE_SUFFIX);
+    }
+
+    /**
+     * Method for getting an up to date compiled form of a script, compiling it if the cached copy is
+     * missing or was compiled from different content
+     *
+     * @param script
+     * @return
+     * @throws IOException
+     */
+    public static Path compileIfStale(Path script) throws IOException {
+        Path compiled = cacheFile(script);
+        byte[] hash = hash(script);
+        if (!Arrays.equals(hash, readHash(compiled))) {
+            compile(script, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Method for compiling a script into its binary form. The target is written to a temporary file
+     * first and moved into place once complete
+     *
+     * @param script
+     * @param target
+     * @throws IOException
+     */
+    public static void compile(Path script, Path target) throws IOException {
+        MessageDigest digest = newDigest();
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".tmp");
+
+        try {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                    new DigestInputStream(Files.newInputStream(script), digest), StandardCharsets.UTF_8), BUFFER_SIZE);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp),
+                         BUFFER_SIZE))) {
+
+                out.writeInt(MAGIC);
+                out.write(new byte[HASH_LENGTH]);
+
+                Map<String, Integer> strings = new HashMap<>();
+                int previousLine = 0;
+                String line;
+                for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+                    if (!StoreModelService.isCommandLine(line))
+                        continue;
+
+                    List<String> tokens = CommandTokenizer.tokenize(line);
+                    int[] indices = new int[tokens.size()];
+                    for (int i = 0; i < indices.length; i++) {
+                        indices[i] = intern(out, strings, tokens.get(i));
+                    }
+
+                    CommandVerb verb = CommandVerb.lookup(tokens);
+                    out.writeByte(verb == null ? OP_UNRECOGNIZED : verb.ordinal());
+                    writeVarInt(out, lineNumber - previousLine);
+                    writeVarInt(out, indices.length);
+                    for (int index : indices) {
+                        writeVarInt(out, index);
+                    }
+                    previousLine = lineNumber;
+                }
+                out.writeByte(OP_END);
+            }
+
+            //The hash is only written once the whole script has been compiled
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.seek(4);
+                file.write(digest.digest());
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Method for executing a compiled script against the Store Model Service. Errors are reported the same
+     * way processCommandFile reports them
+     *
+     * @param compiled
+     * @param storeModelService
+     * @throws IOException
+     */
+    static void execute(Path compiled, StoreModelService storeModelService) throws IOException {
+        CommandVerb[] verbs = CommandVerb.values();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(compiled),
+                BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC)
+                throw new IOException("Not a compiled command script: " + compiled);
+            in.skipNBytes(HASH_LENGTH);
+
+            List<String> strings = new ArrayList<>();
+            int lineNumber = 0;
+            while (true) {
+                int op = in.readUnsignedByte();
+                if (op == OP_END) {
+                    return;
+                } else if (op == OP_STRING) {
+                    byte[] bytes = new byte[readVarInt(in)];
+                    in.readFully(bytes);
+                    strings.add(new String(bytes, StandardCharsets.UTF_8));
+                    continue;
+                } else if (op != OP_UNRECOGNIZED && op >= verbs.length) {
+                    throw new IOException("Unknown opcode " + op + " in " + compiled);
+                }
+
+                lineNumber += readVarInt(in);
+                String[] tokens = new String[readVarInt(in)];
+                for (int i = 0; i < tokens.length; i++) {
+                    tokens[i] = strings.get(readVarInt(in));
+                }
+
+                storeModelService.processCommandLine(toCommand(tokens), op == OP_UNRECOGNIZED ? null : verbs[op],
+                        Arrays.asList(tokens), lineNumber);
+            }
+        }
+    }
+
+    /**
+     * Method for rebuilding a printable command from its tokens, quoting tokens that contain spaces
+     *
+     * @param tokens
+     * @return
+     */
+    private static String toCommand(String[] tokens) {
+        StringBuilder command = new StringBuilder();
+        for (String token : tokens) {
+            if (command.length() != 0)
+                command.append(' ');
+            if (token.indexOf(' ') >= 0) {
+                command.append('"').append(token).append('"');
+            } else {
+                command.append(token);
+            }
+        }
+        return command.toString();
+    }
+
+    private static int intern(DataOutputStream out, Map<String, Integer> strings, String token) throws IOException {
+        Integer index = strings.get(token);
+        if (index == null) {
+            index = strings.size();
+            strings.put(token, index);
+
+            byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
+            out.writeByte(OP_STRING);
+            writeVarInt(out, bytes.length);
+            out.write(bytes);
+        }
+        return index;
+    }
+
+    private static byte[] hash(Path script) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream in = new DigestInputStream(Files.newInputStream(script), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Method for reading the source hash recorded in a compiled file. Returns null if the file is missing,
+     * truncated or in a different format
+     *
+     * @param compiled
+     * @return
+     */
+    private static byte[] readHash(Path compiled) {
+        if (!Files.isRegularFile(compiled))
+            return null;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(compiled))) {
+            if (Files.size(compiled) <= HEADER_LENGTH || in.readInt() != MAGIC)
+                return null;
+            byte[] hash = new byte[HASH_LENGTH];
+            in.readFully(hash);
+            return hash;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new EOFException("Malformed variable length integer");
+    }
+}
@@ -0,0 +1,12 @@
+package com.cs370.springdemo.model;
+
+/**
+ * Enumeration representing the outcome of a single command processed as part of a batch
+ */
+public enum CommandStatus {
+    OK,
+    SKIPPED,
+    UNRECOGNIZED_COMMAND,
+    MODEL_ERROR,
+    INVALID_COMMAND
+}
@@ -0,0 +1,44 @@
+package com.cs370.springdemo.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizer for the Store Model DSL. Splits a command line into tokens between spaces and quotes
+ * using a single precompiled pattern shared by all callers
+ */
+public final class CommandTokenizer {
+
+    //Split the line into tokens between spaces and quotes
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("([^\"]\\S*|\".+?\")\\s*");
+    private static final Pattern SPACES_PATTERN = Pattern.compile(" +");
+
+    private CommandTokenizer() {
+    }
+
+    /**
+     * Method for splitting a command line into tokens. Quotes are stripped from quoted tokens
+     *
+     * @param command
+     * @return
+     */
+    public static List<String> tokenize(String command) {
+        List<String> tokens = new ArrayList<>();
+        Matcher matcher = TOKEN_PATTERN.matcher(command);
+        while (matcher.find())
+            tokens.add(matcher.group(1).replace("\"", ""));
+        return tokens;
+    }
+
+    /**
+     * Method for normalizing a command line for error reporting by trimming it and collapsing repeated spaces
+     *
+     * @param command
+     * @return
+     */
+    public static String normalize(String command) {
+        return SPACES_PATTERN.matcher(command.trim()).replaceAll(" ");
+    }
+}
@@ -0,0 +1,112 @@
+package com.cs370.springdemo.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Enumeration representing verbs of the Store Model DSL. Verbs are either a single keyword
+ * (add_basket_item) or a keyword followed by a noun (define store). Lookup walks a two level
+ * keyword table, so resolving a verb costs at most two hash probes regardless of the number of verbs
+ */
+public enum CommandVerb {
+    DEFINE_STORE("define", "store", null),
+    SHOW_STORE("show", "store", "<<< "),
+    DEFINE_AISLE("define", "aisle", null),
+    SHOW_AISLE("show", "aisle", "<<< "),
+    DEFINE_SHELF("define", "shelf", null),
+    SHOW_SHELF("show", "shelf", "<<< "),
+    DEFINE_PRODUCT("define", "product", null),
+    SHOW_PRODUCT("show", "product", "<<< "),
+    LIST_PRODUCT("list", "product", "<<< "),
+    DEFINE_INVENTORY("define", "inventory", null),
+    SHOW_INVENTORY("show", "inventory", "<<< "),
+    UPDATE_INVENTORY("update", "inventory", ""),
+    DEFINE_CUSTOMER("define", "customer", null),
+    UPDATE_CUSTOMER("update", "customer", "<<< "),
+    SHOW_CUSTOMER("show", "customer", ""),
+    DEFINE_BASKET("define", "basket", null),
+    ASSIGN_BASKET("assign", "basket", null),
+    GET_CUSTOMER_BASKET("get_customer_basket", null, "<<< "),
+    ADD_BASKET_ITEM("add_basket_item", null, "<<< "),
+    REMOVE_BASKET_ITEM("remove_basket_item", null, ""),
+    CLEAR_BASKET("clear_basket", null, "<<< "),
+    SHOW_BASKET_ITEMS("show", "basket_items", "<<< "),
+    DEFINE_DEVICE("define", "device", null),
+    SHOW_DEVICE("show", "device", "<<< "),
+    CREATE_EVENT("create", "event", null),
+    CREATE_EVENT_INLINE("create_event", null, null),
+    CREATE_COMMAND("create", "command", null);
+
+    private static final Map<String, CommandVerb> KEYWORDS = new HashMap<>();
+    private static final Map<String, Map<String, CommandVerb>> COMPOUND_KEYWORDS = new HashMap<>();
+
+    static {
+        for (CommandVerb verb : values()) {
+            if (verb.noun == null) {
+                KEYWORDS.put(verb.keyword, verb);
+            } else {
+                COMPOUND_KEYWORDS.computeIfAbsent(verb.keyword, key -> new HashMap<>()).put(verb.noun, verb);
+            }
+        }
+    }
+
+    private final String keyword;
+    private final String noun;
+    private final String outputPrefix;
+
+    CommandVerb(String keyword, String noun, String outputPrefix) {
+        this.keyword = keyword;
+        this.noun = noun;
+        this.outputPrefix = outputPrefix;
+    }
+
+    /**
+     * Getter method for the leading keyword of the verb
+     *
+     * @return
+     */
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Getter method for the noun following the keyword, null for single keyword verbs
+     *
+     * @return
+     */
+    public String getNoun() {
+        return noun;
+    }
+
+    /**
+     * Getter method for the prefix the result of the verb is printed with on the console, null for verbs
+     * whose result is not printed
+     *
+     * @return
+     */
+    public String getOutputPrefix() {
+        return outputPrefix;
+    }
+
+    /**
+     * Method for resolving the verb of a tokenized command. Keywords are matched case insensitively.
+     * Returns null if the command does not start with a known verb
+     *
+     * @param tokens
+     * @return
+     */
+    public static CommandVerb lookup(List<String> tokens) {
+        if (tokens.isEmpty())
+            return null;
+
+        String keyword = tokens.get(0).trim().toLowerCase(Locale.ROOT);
+        CommandVerb verb = KEYWORDS.get(keyword);
+        if (verb != null || tokens.size() < 2)
+            return verb;
+
+        Map<String, CommandVerb> nouns = COMPOUND_KEYWORDS.get(keyword);
+        return nouns == null ? null : nouns.get(tokens.get(1).toLowerCase(Locale.ROOT));
+    }
+}
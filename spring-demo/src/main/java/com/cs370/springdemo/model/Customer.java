@@ -23,11 +23,14 @@ public class Customer {
     private String accountAddress;
     private CustomerAgeGroup ageGroup;
     @OneToOne
-    private StoreLocation storeLocation;
-    private Date lastSeen;
+    private volatile StoreLocation storeLocation;
+    private volatile Date lastSeen;
     @ManyToOne
     @JoinColumn(name = "basket_id")
-    private Basket basket;
+    private volatile Basket basket;
+    //Store whose Customer map holds the Customer, maintained by Store.addCustomer and Store.removeCustomer
+    @Transient
+    private volatile Store currentStore;
 
     /**
      * Constructor for Customer class
@@ -235,6 +238,42 @@ public class Customer {
         this.basket = basket;
     }
 
+    /**
+     * Getter method for the Store the Customer was last added to, null if the Customer is in no Store
+     *
+     * @return
+     */
+    Store getCurrentStore() {
+        return currentStore;
+    }
+
+    /**
+     * Setter method for the Store the Customer was last added to
+     *
+     * @param currentStore
+     */
+    void setCurrentStore(Store currentStore) {
+        this.currentStore = currentStore;
+    }
+
+    /**
+     * Method for copying the Customer and its Basket into a snapshot of the Store the Customer is in
+     *
+     * @param store
+     * @return
+     */
+    Customer snapshot(Store store) {
+        Customer customer = new Customer(id, firstName, lastName, type, email, accountAddress);
+        customer.ageGroup = ageGroup;
+        customer.storeLocation = storeLocation;
+        Date seen = lastSeen;
+        customer.lastSeen = seen == null ? null : new Date(seen.getTime());
+        customer.currentStore = currentStore == null ? null : store;
+        Basket held = basket;
+        customer.basket = held == null ? null : held.snapshot(store, customer);
+        return customer;
+    }
+
     @Override
     public String toString() {
         return "Customer{" +
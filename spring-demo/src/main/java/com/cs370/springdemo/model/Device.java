@@ -101,6 +101,13 @@ public abstract class Device {
         this.type = type;
     }
 
+    /**
+     * Method for copying the Device into a snapshot
+     *
+     * @return
+     */
+    abstract Device snapshot();
+
     /**
      * Abstract method that gets implemented by Sensor or Appliance devices
      *
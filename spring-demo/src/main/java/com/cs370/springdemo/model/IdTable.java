@@ -0,0 +1,247 @@
+package com.cs370.springdemo.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Table of model entities keyed by their String id. Every id is interned into a dense int key, starting at 0,
+ * the first time it is added, so internal indexes can refer to entities by key with primitive arrays instead
+ * of String keyed maps. Keys are never reused unless ids are removed: the key of a removed id is given to the
+ * next id added, so tables that remove ids must not be indexed by key, and stay as large as the most ids they
+ * held at once.
+ *
+ * Ids are held in an open addressing table of key slots; entities are stored in an array indexed by key.
+ * Lookups do not lock and never box. Changes are serialized, and a slot is only published once its id
+ * and entity have been written, so a lookup that finds an id also sees its entity. The slot of a removed id
+ * stays behind until the slots are rebuilt, and no longer matches once its key holds another id.
+ *
+ * @param <T>
+ */
+public class IdTable<T> {
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle ENTITIES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int INITIAL_CAPACITY = 64;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private volatile int size;
+    //Slots published in the current table, including the ones left behind by removed ids
+    private int occupied;
+    //Keys of removed ids, reused before new keys are assigned
+    private int[] freeKeys = new int[0];
+    private int freeCount;
+
+    /**
+     * Method for getting the dense key of an id, -1 if the id has never been added
+     *
+     * @param id
+     * @return
+     */
+    public int keyOf(String id) {
+        return table.keyOf(id);
+    }
+
+    /**
+     * Method for getting the entity with the given id, null if there is none
+     *
+     * @param id
+     * @return
+     */
+    public T get(String id) {
+        Table current = table;
+        int key = current.keyOf(id);
+        if (key < 0)
+            return null;
+        T entity = current.entity(key);
+        //The key may have been given to another id since it was found
+        return entity == null || id.equals(current.ids[key]) ? entity : null;
+    }
+
+    /**
+     * Method for getting the entity with the given key, null if there is none
+     *
+     * @param key
+     * @return
+     */
+    public T get(int key) {
+        Table current = table;
+        return key < 0 || key >= current.ids.length ? null : current.entity(key);
+    }
+
+    /**
+     * Method for getting the id a key was assigned to, null if the key has not been assigned
+     *
+     * @param key
+     * @return
+     */
+    public String idOf(int key) {
+        Table current = table;
+        return key < 0 || key >= Math.min(size, current.ids.length) ? null : current.ids[key];
+    }
+
+    /**
+     * Method for adding an entity unless its id already has one. Returns the entity already stored under
+     * the id, or null if the entity was added
+     *
+     * @param id
+     * @param entity
+     * @return
+     */
+    public synchronized T putIfAbsent(String id, T entity) {
+        int key = table.keyOf(id);
+        if (key >= 0) {
+            T previous = table.entity(key);
+            if (previous != null)
+                return previous;
+            ENTITIES.setRelease(table.entities, key, entity);
+            return null;
+        }
+        add(id, entity);
+        return null;
+    }
+
+    /**
+     * Method for storing an entity under its id, keeping the key of an id that was added before. Returns
+     * the entity previously stored under the id
+     *
+     * @param id
+     * @param entity
+     * @return
+     */
+    public synchronized T put(String id, T entity) {
+        int key = table.keyOf(id);
+        if (key >= 0) {
+            T previous = table.entity(key);
+            ENTITIES.setRelease(table.entities, key, entity);
+            return previous;
+        }
+        add(id, entity);
+        return null;
+    }
+
+    /**
+     * Method for removing an id if it is still stored with the given entity. The key of the id is reused by
+     * the next id added. Returns whether the id was removed
+     *
+     * @param id
+     * @param entity
+     * @return
+     */
+    public synchronized boolean remove(String id, T entity) {
+        Table current = table;
+        int key = current.keyOf(id);
+        if (key < 0 || current.entity(key) != entity)
+            return false;
+        ENTITIES.setRelease(current.entities, key, null);
+        current.ids[key] = null;
+        if (freeCount == freeKeys.length)
+            freeKeys = Arrays.copyOf(freeKeys, Math.max(8, freeCount * 2));
+        freeKeys[freeCount++] = key;
+        return true;
+    }
+
+    /**
+     * Getter method for the number of keys assigned so far, including the keys of removed ids
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method for streaming the entities in key order, that is in the order they were added
+     *
+     * @return
+     */
+    public Stream<T> values() {
+        Table current = table;
+        return IntStream.range(0, Math.min(size, current.ids.length))
+                .mapToObj(current::<T>entity)
+                .filter(entity -> entity != null);
+    }
+
+    private void add(String id, T entity) {
+        Table current = table;
+        //Slots are rebuilt without the ones left behind by removed ids once half of them are taken, in a table
+        //twice as large if every key is in use
+        if (occupied == current.ids.length) {
+            int held = size - freeCount;
+            current = current.rebuild(held == current.ids.length ? held * 2 : current.ids.length);
+            occupied = held;
+            table = current;
+        }
+        if (freeCount > 0) {
+            int key = freeKeys[--freeCount];
+            current.ids[key] = id;
+            ENTITIES.setRelease(current.entities, key, entity);
+            current.publish(id, key);
+        } else {
+            current.ids[size] = id;
+            current.entities[size] = entity;
+            current.publish(id, size);
+            size++;
+        }
+        occupied++;
+    }
+
+    /**
+     * Key slots, ids and entities of one capacity. Slots hold key + 1 so that 0 marks an empty slot;
+     * there are twice as many slots as keys to keep probe sequences short
+     */
+    private static final class Table {
+
+        private final int[] slots;
+        private final String[] ids;
+        private final Object[] entities;
+
+        Table(int capacity) {
+            this.slots = new int[capacity * 2];
+            this.ids = new String[capacity];
+            this.entities = new Object[capacity];
+        }
+
+        int keyOf(String id) {
+            int mask = slots.length - 1;
+            for (int i = spread(id.hashCode()) & mask; ; i = (i + 1) & mask) {
+                int slot = (int) SLOTS.getAcquire(slots, i);
+                if (slot == 0)
+                    return -1;
+                if (id.equals(ids[slot - 1]))
+                    return slot - 1;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T entity(int key) {
+            return (T) ENTITIES.getAcquire(entities, key);
+        }
+
+        void publish(String id, int key) {
+            int mask = slots.length - 1;
+            int i = spread(id.hashCode()) & mask;
+            while (slots[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            SLOTS.setRelease(slots, i, key + 1);
+        }
+
+        Table rebuild(int capacity) {
+            Table rebuilt = new Table(capacity);
+            System.arraycopy(ids, 0, rebuilt.ids, 0, ids.length);
+            System.arraycopy(entities, 0, rebuilt.entities, 0, entities.length);
+            for (int key = 0; key < ids.length; key++) {
+                if (ids[key] != null)
+                    rebuilt.publish(ids[key], key);
+            }
+            return rebuilt;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
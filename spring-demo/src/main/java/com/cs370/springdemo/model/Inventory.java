@@ -1,154 +1,315 @@
 package com.cs370.springdemo.model;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
- * Inventory class implementation representing inventory on the shelf of the store
+ * Inventory class implementation representing inventory on the shelf of the store. Inventory is either held
+ * in an object of its own or, while an InventoryLedger is installed, in the columns of the ledger with the
+ * Inventory being a view of its slot
  *
  * @author Sergey L. Sundukovskiy
  * @version 1.0
  * @since 2021-09-27
  */
-public class Inventory {
-
-    private String id;
-    private InventoryLocation inventoryLocation;
-    private int capacity;
-    private int count;
-    private String productId;
+public abstract class Inventory {
 
     /**
-     * Constructor for the Inventory class
+     * Method for creating an Inventory, stored in the installed ledger if there is one and in its own
+     * fields otherwise
      *
      * @param id
      * @param inventoryLocation
      * @param capacity
      * @param count
      * @param productId
+     * @return
      */
-    public Inventory(String id, InventoryLocation inventoryLocation, int capacity, int count, String productId) {
-        this.id = id;
-        this.inventoryLocation = inventoryLocation;
-        this.capacity = capacity;
-        this.count = count;
-        this.productId = productId;
+    public static Inventory create(String id, InventoryLocation inventoryLocation, int capacity, int count,
+                                   String productId) {
+        InventoryLedger ledger = InventoryLedger.installed();
+        if (ledger == null)
+            return new Fields(id, inventoryLocation, capacity, count, productId);
+        return ledger.add(id, inventoryLocation, capacity, count, productId);
     }
 
     /**
-     * Getter method for Inventory id
+     * Method for copying the Inventory into a snapshot that later changes to the Inventory do not affect.
+     * The snapshot is held in its own fields whether or not a ledger is installed
      *
      * @return
      */
-    public String getId() {
-        return id;
+    Inventory snapshot() {
+        return new Fields(getId(), getInventoryLocation(), getCapacity(), getCount(), getProductId());
     }
 
+    /**
+     * Getter method for Inventory id
+     *
+     * @return
+     */
+    public abstract String getId();
+
     /**
      * Setter method for Inventory id
      *
      * @param id
      */
-    public void setId(String id) {
-        this.id = id;
-    }
+    public abstract void setId(String id);
 
     /**
      * Getter method for Inventory Location on the shelf of the store
      *
      * @return
      */
-    public InventoryLocation getInventoryLocation() {
-        return inventoryLocation;
-    }
+    public abstract InventoryLocation getInventoryLocation();
 
     /**
      * Setter method for Inventory Location on the shelf of the store
      *
      * @param inventoryLocation
      */
-    public void setInventoryLocation(InventoryLocation inventoryLocation) {
-        this.inventoryLocation = inventoryLocation;
-    }
+    public abstract void setInventoryLocation(InventoryLocation inventoryLocation);
 
     /**
      * Getter method for Inventory capacity on the shelf of the store
      *
      * @return
      */
-    public int getCapacity() {
-        return capacity;
-    }
+    public abstract int getCapacity();
 
     /**
      * Setter method for Inventory capacity on the shelf of the store
      *
      * @param capacity
      */
-    public void setCapacity(int capacity) {
-        this.capacity = capacity;
-    }
+    public abstract void setCapacity(int capacity);
 
     /**
      * Getter method for Inventory count on the shelf of the store
      *
      * @return
      */
-    public int getCount() {
-        return count;
-    }
+    public abstract int getCount();
 
     /**
      * Setter method for Inventory count on the shelf of the store
      *
      * @param count
      */
-    public void setCount(int count) {
-        this.count = count;
-    }
+    public abstract void setCount(int count);
 
     /**
      * Getter method for the Product associated with the Inventory item
      *
      * @return
      */
-    public String getProductId() {
-        return productId;
-    }
+    public abstract String getProductId();
 
     /**
      * Setter method for the Product associated with the Inventory item
      *
      * @param productId
      */
-    public void setProductId(String productId) {
-        this.productId = productId;
+    public abstract void setProductId(String productId);
+
+    /**
+     * Getter method for the dense key of the Product held in the Inventory, -1 if the Product
+     * has not been provisioned
+     *
+     * @return
+     */
+    abstract int getProductKey();
+
+    /**
+     * Method for atomically taking units of the Product off the shelf. Returns false, leaving the count
+     * unchanged, if fewer units are on the shelf. Does not lock, so concurrent Baskets can never oversell
+     *
+     * @param count
+     * @return
+     */
+    public boolean reserve(int count) {
+        return write(-count);
+    }
+
+    /**
+     * Method for atomically putting units of the Product back on the shelf. Returns false, leaving the count
+     * unchanged, if the units would exceed the capacity of the shelf
+     *
+     * @param count
+     * @return
+     */
+    public boolean release(int count) {
+        return write(count);
     }
 
     /**
      * Method for updating (incrementing or decrementing) Inventory on the shelf of the store.
-     * Throws StoreModelException if count does not stay within allowable bounds.
-     * Method is synchronized to avoid a race condition
+     * Throws StoreModelException if count does not stay within allowable bounds
      *
      * @param count
      * @throws StoreModelException
      */
-    synchronized public void updateInventory(int count) throws StoreModelException {
+    public void updateInventory(int count) throws StoreModelException {
+        tryUpdateInventory(count).orThrow();
+    }
+
+    /**
+     * Method for updating (incrementing or decrementing) Inventory on the shelf of the store.
+     * Returns a rejected outcome if count does not stay within allowable bounds
+     *
+     * @param count
+     * @return
+     */
+    public ModelOutcome<Inventory> tryUpdateInventory(int count) {
 
         //Check to see that count will remain within proper bounds
-        if ((this.count + count < 0) || (this.count + count) > this.capacity)
-            throw new StoreModelException("Update Inventory", "Inventory Count Is Smaller Than O " +
-                    "or Larger Than Shelf Capacity");
+        if (!write(count))
+            return ModelOutcome.failure("Update Inventory", ModelError.INVENTORY_COUNT_OUT_OF_BOUNDS);
 
-        this.count += count;
+        return ModelOutcome.of(this);
     }
 
+    /**
+     * Method for adjusting the count as a shared write of the Store the Inventory is located in, so that
+     * snapshots of the Store are copied either before or after the write
+     *
+     * @param delta
+     * @return
+     */
+    private boolean write(int delta) {
+        Store store = StoreModelService.storeOf(this);
+        if (store == null)
+            return adjust(delta);
+
+        store.beginSharedWrite();
+        try {
+            return adjust(delta);
+        } finally {
+            store.endSharedWrite();
+        }
+    }
+
+    /**
+     * Method for adding a delta to the count with compare and set, as long as the count stays within 0 and
+     * the capacity
+     *
+     * @param delta
+     * @return
+     */
+    abstract boolean adjust(int delta);
+
     @Override
     public String toString() {
         return "Inventory{" +
-                "id='" + id + '\'' +
-                ", inventoryLocation=" + inventoryLocation +
-                ", capacity=" + capacity +
-                ", count=" + count +
-                ", productId='" + productId + '\'' +
+                "id='" + getId() + '\'' +
+                ", inventoryLocation=" + getInventoryLocation() +
+                ", capacity=" + getCapacity() +
+                ", count=" + getCount() +
+                ", productId='" + getProductId() + '\'' +
                 '}';
     }
 
+    /**
+     * Inventory held in its own fields
+     */
+    private static final class Fields extends Inventory {
+
+        private static final VarHandle COUNT;
+
+        static {
+            try {
+                COUNT = MethodHandles.lookup().findVarHandle(Fields.class, "count", int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private String id;
+        private InventoryLocation inventoryLocation;
+        private int capacity;
+        private volatile int count;
+        private String productId;
+        //Dense key of the Product, resolved on first use
+        private int productKey = -1;
+
+        Fields(String id, InventoryLocation inventoryLocation, int capacity, int count, String productId) {
+            this.id = id;
+            this.inventoryLocation = inventoryLocation;
+            this.capacity = capacity;
+            this.count = count;
+            this.productId = productId;
+        }
+
+        @Override
+        public String getId() {
+            return id;
+        }
+
+        @Override
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        @Override
+        public InventoryLocation getInventoryLocation() {
+            return inventoryLocation;
+        }
+
+        @Override
+        public void setInventoryLocation(InventoryLocation inventoryLocation) {
+            this.inventoryLocation = inventoryLocation;
+        }
+
+        @Override
+        public int getCapacity() {
+            return capacity;
+        }
+
+        @Override
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public String getProductId() {
+            return productId;
+        }
+
+        @Override
+        public void setProductId(String productId) {
+            this.productId = productId;
+            this.productKey = -1;
+        }
+
+        @Override
+        int getProductKey() {
+            if (productKey < 0)
+                productKey = StoreModelService.productKey(productId);
+            return productKey;
+        }
+
+        @Override
+        boolean adjust(int delta) {
+            int current;
+            long next;
+            do {
+                current = this.count;
+                next = (long) current + delta;
+                if (next < 0 || next > this.capacity)
+                    return false;
+            } while (!COUNT.compareAndSet(this, current, (int) next));
+            return true;
+        }
+    }
 }
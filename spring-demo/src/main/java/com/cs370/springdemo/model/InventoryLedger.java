@@ -0,0 +1,376 @@
+package com.cs370.springdemo.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar storage of Inventory. Every Inventory created while a ledger is installed is given a dense slot,
+ * and its id, location, Product, capacity and count live in columns indexed by that slot; the Inventory
+ * handed out is a flyweight view holding nothing but the ledger and the slot. Locations and Product ids are
+ * interned, so the Inventory of a Shelf share one location object instead of having one each. Whole-chain
+ * scans such as fill ratios and low stock walk the primitive columns sequentially instead of chasing
+ * Inventory objects.
+ *
+ * Columns are split into fixed size pages that never move once allocated, so growing the ledger does not
+ * race with counts being updated with compare and set. Scans read the size before the pages, which are
+ * published before the size, so growing does not race with scans either. Inventory is held in objects of
+ * its own unless a ledger is installed.
+ */
+public final class InventoryLedger {
+
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private static volatile InventoryLedger installed;
+
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+    //Interned locations and Product ids, only used while adding Inventory
+    private final Map<String, InventoryLocation> locations = new HashMap<>();
+    private final Map<String, String> productIds = new HashMap<>();
+
+    /**
+     * Method for installing the ledger that Inventory created from now on is stored in. Installing null
+     * stores new Inventory in its own fields again. Returns the previously installed ledger
+     *
+     * @param ledger
+     * @return
+     */
+    public static synchronized InventoryLedger install(InventoryLedger ledger) {
+        InventoryLedger previous = installed;
+        installed = ledger;
+        return previous;
+    }
+
+    /**
+     * Method for getting the installed ledger, null if Inventory is stored in its own fields
+     *
+     * @return
+     */
+    public static InventoryLedger installed() {
+        return installed;
+    }
+
+    /**
+     * Getter method for the number of slots allocated so far
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method for adding up the counts of all the Inventory in the ledger. Counts changing meanwhile may or
+     * may not be included
+     *
+     * @return
+     */
+    public long totalCount() {
+        return sum(true);
+    }
+
+    /**
+     * Method for adding up the capacities of all the Inventory in the ledger
+     *
+     * @return
+     */
+    public long totalCapacity() {
+        return sum(false);
+    }
+
+    /**
+     * Method for getting the share of the total capacity of the ledger that is filled, 0 for an empty ledger
+     *
+     * @return
+     */
+    public double fillRatio() {
+        long capacity = totalCapacity();
+        return capacity == 0 ? 0 : (double) totalCount() / capacity;
+    }
+
+    /**
+     * Method for streaming the Inventory filled below the given share of its capacity, in slot order
+     *
+     * @param fillRatio
+     * @return
+     */
+    public Stream<Inventory> lowStock(double fillRatio) {
+        //Size before pages, see allocate
+        int limit = size;
+        Page[] current = pages;
+        IntStream.Builder slots = IntStream.builder();
+        for (int p = 0; p < pages(limit); p++) {
+            int[] counts = current[p].counts;
+            int[] capacities = current[p].capacities;
+            int length = Math.min(PAGE_SIZE, limit - (p << PAGE_BITS));
+            for (int i = 0; i < length; i++) {
+                if (counts[i] < fillRatio * capacities[i])
+                    slots.add((p << PAGE_BITS) | i);
+            }
+        }
+        return slots.build().mapToObj(slot -> new View(this, slot));
+    }
+
+    /**
+     * Method for adding an Inventory to a new slot, returning the view of the slot. The Inventory is
+     * included in scans once it has been added
+     *
+     * @param id
+     * @param inventoryLocation
+     * @param capacity
+     * @param count
+     * @param productId
+     * @return
+     */
+    synchronized Inventory add(String id, InventoryLocation inventoryLocation, int capacity, int count,
+                               String productId) {
+        int slot = size;
+        Page[] current = pages;
+        if ((slot >> PAGE_BITS) == current.length) {
+            Page[] grown = new Page[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = new Page();
+            pages = grown;
+            current = grown;
+        }
+        Page page = current[slot >> PAGE_BITS];
+        int i = slot & PAGE_MASK;
+        page.ids[i] = id;
+        page.locations[i] = intern(inventoryLocation);
+        page.productIds[i] = productId == null ? null : productIds.computeIfAbsent(productId, key -> key);
+        page.capacities[i] = capacity;
+        page.counts[i] = count;
+        page.products[i] = -1;
+        //Published after the pages, so a scan reading the size first sees pages holding all of its slots
+        size = slot + 1;
+        return new View(this, slot);
+    }
+
+    /**
+     * Getter method for the count of a slot
+     *
+     * @param slot
+     * @return
+     */
+    int count(int slot) {
+        return (int) INTS.getVolatile(page(slot).counts, slot & PAGE_MASK);
+    }
+
+    /**
+     * Setter method for the count of a slot
+     *
+     * @param slot
+     * @param count
+     */
+    void setCount(int slot, int count) {
+        INTS.setVolatile(page(slot).counts, slot & PAGE_MASK, count);
+    }
+
+    /**
+     * Getter method for the capacity of a slot
+     *
+     * @param slot
+     * @return
+     */
+    int capacity(int slot) {
+        return page(slot).capacities[slot & PAGE_MASK];
+    }
+
+    /**
+     * Setter method for the capacity of a slot
+     *
+     * @param slot
+     * @param capacity
+     */
+    void setCapacity(int slot, int capacity) {
+        page(slot).capacities[slot & PAGE_MASK] = capacity;
+    }
+
+    /**
+     * Getter method for the dense Product key of a slot, -1 if it has not been resolved
+     *
+     * @param slot
+     * @return
+     */
+    int productKey(int slot) {
+        return page(slot).products[slot & PAGE_MASK];
+    }
+
+    /**
+     * Setter method for the dense Product key of a slot
+     *
+     * @param slot
+     * @param productKey
+     */
+    void setProductKey(int slot, int productKey) {
+        page(slot).products[slot & PAGE_MASK] = productKey;
+    }
+
+    /**
+     * Method for adding a delta to the count of a slot with compare and set, as long as the count stays
+     * within 0 and the capacity
+     *
+     * @param slot
+     * @param delta
+     * @return
+     */
+    boolean adjust(int slot, int delta) {
+        Page page = page(slot);
+        int i = slot & PAGE_MASK;
+        int current;
+        long next;
+        do {
+            current = (int) INTS.getVolatile(page.counts, i);
+            next = (long) current + delta;
+            if (next < 0 || next > page.capacities[i])
+                return false;
+        } while (!INTS.compareAndSet(page.counts, i, current, (int) next));
+        return true;
+    }
+
+    private long sum(boolean counts) {
+        //Size before pages, see allocate
+        int limit = size;
+        Page[] current = pages;
+        long total = 0;
+        for (int p = 0; p < pages(limit); p++) {
+            int[] column = counts ? current[p].counts : current[p].capacities;
+            int length = Math.min(PAGE_SIZE, limit - (p << PAGE_BITS));
+            for (int i = 0; i < length; i++) {
+                total += column[i];
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method for getting the location equal to the given one that was added first. Called while adding
+     *
+     * @param location
+     * @return
+     */
+    private InventoryLocation intern(InventoryLocation location) {
+        if (location == null)
+            return null;
+        String key = location.getStoreId() + ':' + location.getAisleId() + ':' + location.getShelfId();
+        return locations.computeIfAbsent(key, k -> location);
+    }
+
+    private Page page(int slot) {
+        return pages[slot >> PAGE_BITS];
+    }
+
+    private static int pages(int slots) {
+        return (slots + PAGE_MASK) >> PAGE_BITS;
+    }
+
+    /**
+     * Columns of one page of slots
+     */
+    private static final class Page {
+
+        private final int[] capacities = new int[PAGE_SIZE];
+        private final int[] counts = new int[PAGE_SIZE];
+        private final int[] products = new int[PAGE_SIZE];
+        private final String[] ids = new String[PAGE_SIZE];
+        private final InventoryLocation[] locations = new InventoryLocation[PAGE_SIZE];
+        private final String[] productIds = new String[PAGE_SIZE];
+    }
+
+    /**
+     * Inventory held in a slot of the ledger. Views of the same slot are equal
+     */
+    private static final class View extends Inventory {
+
+        private final InventoryLedger ledger;
+        private final int slot;
+
+        View(InventoryLedger ledger, int slot) {
+            this.ledger = ledger;
+            this.slot = slot;
+        }
+
+        @Override
+        public String getId() {
+            return ledger.page(slot).ids[slot & PAGE_MASK];
+        }
+
+        @Override
+        public void setId(String id) {
+            ledger.page(slot).ids[slot & PAGE_MASK] = id;
+        }
+
+        @Override
+        public InventoryLocation getInventoryLocation() {
+            return ledger.page(slot).locations[slot & PAGE_MASK];
+        }
+
+        @Override
+        public void setInventoryLocation(InventoryLocation inventoryLocation) {
+            ledger.page(slot).locations[slot & PAGE_MASK] = inventoryLocation;
+        }
+
+        @Override
+        public int getCapacity() {
+            return ledger.capacity(slot);
+        }
+
+        @Override
+        public void setCapacity(int capacity) {
+            ledger.setCapacity(slot, capacity);
+        }
+
+        @Override
+        public int getCount() {
+            return ledger.count(slot);
+        }
+
+        @Override
+        public void setCount(int count) {
+            ledger.setCount(slot, count);
+        }
+
+        @Override
+        public String getProductId() {
+            return ledger.page(slot).productIds[slot & PAGE_MASK];
+        }
+
+        @Override
+        public void setProductId(String productId) {
+            ledger.page(slot).productIds[slot & PAGE_MASK] = productId;
+            ledger.setProductKey(slot, -1);
+        }
+
+        @Override
+        int getProductKey() {
+            int key = ledger.productKey(slot);
+            if (key < 0) {
+                key = StoreModelService.productKey(getProductId());
+                ledger.setProductKey(slot, key);
+            }
+            return key;
+        }
+
+        @Override
+        boolean adjust(int delta) {
+            return ledger.adjust(slot, delta);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof View view && view.ledger == ledger && view.slot == slot;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(ledger) + slot;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.cs370.springdemo.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Table of values keyed by a primitive long, for internal indexes whose keys combine several dense keys.
+ * Lookups neither lock nor box the key, unlike a Map keyed by Long.
+ *
+ * Keys and values are held in parallel arrays of an open addressing table. Puts are serialized, and a
+ * value is only published once its key has been written, so a lookup that finds a value also sees its key.
+ * Entries are never removed.
+ *
+ * @param <V>
+ */
+final class LongTable<V> {
+
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final int INITIAL_CAPACITY = 16;
+
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * Method for getting the value stored under a key, null if there is none
+     *
+     * @param key
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Table current = table;
+        int mask = current.keys.length - 1;
+        for (int i = spread(key) & mask; ; i = (i + 1) & mask) {
+            Object value = VALUES.getAcquire(current.values, i);
+            if (value == null)
+                return null;
+            if (current.keys[i] == key)
+                return (V) value;
+        }
+    }
+
+    /**
+     * Method for storing a value under a key, replacing the value stored before
+     *
+     * @param key
+     * @param value
+     */
+    synchronized void put(long key, V value) {
+        Table current = table;
+        if ((size + 1) * 2 > current.keys.length) {
+            current = current.grow();
+            table = current;
+        }
+        if (current.put(key, value))
+            size++;
+    }
+
+    private static int spread(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Keys and values of one capacity; a slot is empty while its value is null
+     */
+    private static final class Table {
+
+        private final long[] keys;
+        private final Object[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+        }
+
+        //Returns true if the key was added rather than replaced
+        boolean put(long key, Object value) {
+            int mask = keys.length - 1;
+            int i = spread(key) & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    VALUES.setRelease(values, i, value);
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            VALUES.setRelease(values, i, value);
+            return true;
+        }
+
+        Table grow() {
+            Table grown = new Table(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (values[i] != null)
+                    grown.put(keys[i], values[i]);
+            }
+            return grown;
+        }
+    }
+}
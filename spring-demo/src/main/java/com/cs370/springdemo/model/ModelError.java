@@ -0,0 +1,53 @@
+package com.cs370.springdemo.model;
+
+/**
+ * Enumeration representing the reasons a Store Model operation can be rejected
+ */
+public enum ModelError {
+    STORE_ALREADY_EXISTS("Store Already Exists"),
+    STORE_DOES_NOT_EXIST("Store Does Not Exist"),
+    STORE_OPTIONS_NOT_VALID("Show Store Options Are Not Valid"),
+    AISLE_ALREADY_EXISTS("Aisle Already Exists"),
+    AISLE_DOES_NOT_EXIST("Aisle Does Not Exist"),
+    SHELF_ALREADY_EXISTS("Shelf Already Exists"),
+    SHELF_ALREADY_EXISTS_AT_LEVEL("Shelf Already Exists at This Level"),
+    SHELF_DOES_NOT_EXIST("Shelf Does Not Exist"),
+    PRODUCT_ALREADY_EXISTS("Product Already Exists"),
+    PRODUCT_DOES_NOT_EXIST("Product Does Not Exist"),
+    PRODUCT_FILTER_NOT_VALID("Product Filter Is Not Valid"),
+    TEMPERATURE_NOT_CONSISTENT("Product and Shelf Temperature Is Not Consistent"),
+    INVENTORY_ALREADY_EXISTS("Inventory Already Exists"),
+    INVENTORY_DOES_NOT_EXIST("Inventory Does Not Exist"),
+    INVENTORY_OUT_OF_BOUNDS("Inventory Is Smaller Than O or Larger Than Shelf Capacity"),
+    INVENTORY_COUNT_OUT_OF_BOUNDS("Inventory Count Is Smaller Than O or Larger Than Shelf Capacity"),
+    CUSTOMER_ALREADY_EXISTS("Customer Already Exists"),
+    CUSTOMER_DOES_NOT_EXIST("Customer Does Not Exist"),
+    CUSTOMER_HAS_NO_BASKET("Customer Does Not Have a Basket"),
+    CUSTOMER_NOT_IN_STORE("Customer Is Not in a Store"),
+    CUSTOMER_NOT_NEAR_PRODUCT("Customer Is Not Near Product"),
+    GUEST_NOT_ALLOWED("Guests Are Not Allowed to Shop"),
+    BASKET_ALREADY_EXISTS("Basket Already Exists"),
+    BASKET_DOES_NOT_EXIST("Basket Does Not Exist"),
+    BASKET_NOT_ASSIGNED("Basket Has Not Being Assigned"),
+    SEVERAL_PRODUCTS_IN_AISLE("There Are Several Products In the Aisle"),
+    NOT_ENOUGH_INVENTORY("There Is Not Enough Inventory on the Shelf"),
+    NOT_ENOUGH_CAPACITY("There Is Not Enough Capacity on the Shelf"),
+    REMOVING_MORE_THAN_EXISTS("Trying To Remove More Quantity Than Exists"),
+    DEVICE_ALREADY_EXISTS("Device Already Exists"),
+    DEVICE_DOES_NOT_EXIST("Device Does Not Exist");
+
+    private final String reason;
+
+    ModelError(String reason) {
+        this.reason = reason;
+    }
+
+    /**
+     * Getter method for the human readable reason, as reported by StoreModelException
+     *
+     * @return
+     */
+    public String getReason() {
+        return reason;
+    }
+}
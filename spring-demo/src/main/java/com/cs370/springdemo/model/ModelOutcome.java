@@ -0,0 +1,134 @@
+package com.cs370.springdemo.model;
+
+/**
+ * Outcome of a Store Model operation: either the value the operation produced or the action that was
+ * rejected together with the error code. Rejections are ordinary return values, so they cost a single
+ * small object instead of an exception with a stack trace
+ *
+ * @param <T>
+ */
+public final class ModelOutcome<T> {
+
+    private static final ModelOutcome<?> EMPTY = new ModelOutcome<>(null, null, null);
+
+    private final T value;
+    private final String action;
+    private final ModelError error;
+
+    private ModelOutcome(T value, String action, ModelError error) {
+        this.value = value;
+        this.action = action;
+        this.error = error;
+    }
+
+    /**
+     * Method for creating a successful outcome holding a value
+     *
+     * @param value
+     * @param <T>
+     * @return
+     */
+    public static <T> ModelOutcome<T> of(T value) {
+        return new ModelOutcome<>(value, null, null);
+    }
+
+    /**
+     * Method for getting the shared successful outcome of operations without a value
+     *
+     * @param <T>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ModelOutcome<T> empty() {
+        return (ModelOutcome<T>) EMPTY;
+    }
+
+    /**
+     * Method for creating a rejected outcome
+     *
+     * @param action
+     * @param error
+     * @param <T>
+     * @return
+     */
+    public static <T> ModelOutcome<T> failure(String action, ModelError error) {
+        return new ModelOutcome<>(null, action, error);
+    }
+
+    /**
+     * Method for checking whether the operation succeeded
+     *
+     * @return
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Getter method for the value produced by a successful operation
+     *
+     * @return
+     */
+    public T getValue() {
+        return value;
+    }
+
+    /**
+     * Getter method for the action that was rejected, null on success
+     *
+     * @return
+     */
+    public String getAction() {
+        return action;
+    }
+
+    /**
+     * Getter method for the error code, null on success
+     *
+     * @return
+     */
+    public ModelError getError() {
+        return error;
+    }
+
+    /**
+     * Getter method for the reason the action was rejected, null on success
+     *
+     * @return
+     */
+    public String getReason() {
+        return error == null ? null : error.getReason();
+    }
+
+    /**
+     * Method for re-typing a rejected outcome so that it can be passed on by an operation with a
+     * different result type
+     *
+     * @param <U>
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public <U> ModelOutcome<U> propagate() {
+        if (error == null)
+            throw new IllegalStateException("Only rejected outcomes can be propagated");
+        return (ModelOutcome<U>) this;
+    }
+
+    /**
+     * Method for getting the value, throwing StoreModelException if the operation was rejected
+     *
+     * @return
+     * @throws StoreModelException
+     */
+    public T orThrow() throws StoreModelException {
+        if (error != null)
+            throw new StoreModelException(action, error.getReason());
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return error == null ? "ModelOutcome{value=" + value + '}'
+                : "ModelOutcome{action='" + action + "', error=" + error + '}';
+    }
+}
@@ -0,0 +1,46 @@
+package com.cs370.springdemo.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Destination for the console output of DSL commands and Devices. Implementations must be safe to
+ * call from several threads
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Method for writing a line of output
+     *
+     * @param line
+     */
+    void println(String line);
+
+    /**
+     * Method for writing a line of output produced by a rendering. Sinks with a buffer of their own can
+     * let the rendering write into it; by default the line is rendered into a String first
+     *
+     * @param rendering
+     */
+    default void println(Rendering rendering) {
+        StringBuilder line = new StringBuilder();
+        try {
+            rendering.renderTo(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        println(line.toString());
+    }
+
+    /**
+     * Method for blocking until every line written so far has reached its destination
+     */
+    void flush();
+
+    /**
+     * Method for flushing the remaining output and releasing the destination
+     */
+    @Override
+    void close();
+}
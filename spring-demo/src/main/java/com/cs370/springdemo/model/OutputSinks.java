@@ -0,0 +1,130 @@
+package com.cs370.springdemo.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Factory and holder of the output sink used by the Store Model. Output goes to an asynchronous console
+ * sink unless another sink is installed
+ */
+public final class OutputSinks {
+
+    private static final OutputSink QUIET = new OutputSink() {
+        @Override
+        public void println(String line) {
+        }
+
+        @Override
+        public void println(Rendering rendering) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private static volatile OutputSink current;
+
+    private OutputSinks() {
+    }
+
+    /**
+     * Method for getting the installed output sink, creating the default console sink on first use
+     *
+     * @return
+     */
+    public static OutputSink current() {
+        OutputSink sink = current;
+        if (sink == null) {
+            synchronized (OutputSinks.class) {
+                sink = current;
+                if (sink == null) {
+                    sink = console();
+                    current = sink;
+                }
+            }
+        }
+        return sink;
+    }
+
+    /**
+     * Method for installing an output sink. The previously installed sink is flushed and returned,
+     * but not closed
+     *
+     * @param sink
+     * @return
+     */
+    public static synchronized OutputSink install(OutputSink sink) {
+        OutputSink previous = current;
+        if (previous != null)
+            previous.flush();
+        current = sink;
+        return previous;
+    }
+
+    /**
+     * Method for creating an asynchronous sink writing to System.out. The sink is flushed when the JVM exits
+     *
+     * @return
+     */
+    public static OutputSink console() {
+        OutputSink sink = new AsyncOutputSink(new ConsoleWriter(), "console-output");
+        Runtime.getRuntime().addShutdownHook(new Thread(sink::flush, "console-output-flush"));
+        return sink;
+    }
+
+    /**
+     * Method for creating an asynchronous sink writing to a file. The file is truncated if it exists
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static OutputSink file(Path file) throws IOException {
+        return new AsyncOutputSink(Files.newBufferedWriter(file, StandardCharsets.UTF_8), "file-output");
+    }
+
+    /**
+     * Method for getting the sink discarding all output
+     *
+     * @return
+     */
+    public static OutputSink quiet() {
+        return QUIET;
+    }
+
+    /**
+     * Writer forwarding to whatever System.out is at the time of writing, so that redirecting System.out
+     * also redirects the console sink
+     */
+    private static final class ConsoleWriter extends Writer {
+
+        @Override
+        public Writer append(CharSequence csq) {
+            System.out.append(csq);
+            return this;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) {
+            System.out.append(new String(cbuf, off, len));
+        }
+
+        @Override
+        public void flush() {
+            System.out.flush();
+        }
+
+        @Override
+        public void close() {
+            System.out.flush();
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package com.cs370.springdemo.model;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel runner for command scripts. Commands are partitioned by the Store they operate on and every
+ * partition is executed by its own worker thread, so commands of one Store keep their script order while
+ * different Stores run side by side. Commands that span several Stores (products, customers changing
+ * Stores, anything whose Store cannot be determined) act as a barrier: all workers are drained and the
+ * command runs alone before dispatching continues.
+ */
+public class ParallelCommandRunner {
+
+    //Number of commands a worker may have queued before the reader blocks
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int FILE_BUFFER_SIZE = 1 << 20;
+    private static final Runnable STOP = () -> {
+    };
+
+    private final StoreModelService storeModelService;
+    private final int partitionCount;
+
+    //Store affinity of entities that are not addressed by Store id in the DSL. Only used by the reading thread
+    private final Map<String, String> inventoryStores = new HashMap<>();
+    private final Map<String, String> deviceStores = new HashMap<>();
+    private final Map<String, String> customerStores = new HashMap<>();
+    private final Map<String, String> basketStores = new HashMap<>();
+
+    private Partition[] partitions;
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /**
+     * Constructor for the ParallelCommandRunner class
+     *
+     * @param storeModelService
+     * @param partitionCount
+     */
+    public ParallelCommandRunner(StoreModelService storeModelService, int partitionCount) {
+        if (partitionCount < 1)
+            throw new IllegalArgumentException("Partition count must be positive");
+        this.storeModelService = storeModelService;
+        this.partitionCount = partitionCount;
+    }
+
+    /**
+     * Method for processing grouped CLI commands in a single file in parallel
+     *
+     * @param fileName
+     */
+    public void processCommandFile(String fileName) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Files.newInputStream(Path.of(fileName).toAbsolutePath()), StandardCharsets.UTF_8), FILE_BUFFER_SIZE)) {
+            processCommandStream(reader);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Method for processing CLI commands read from the reader in parallel. Returns once every command
+     * has been executed
+     *
+     * @param reader
+     * @throws IOException
+     */
+    public synchronized void processCommandStream(BufferedReader reader) throws IOException {
+        partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition(i);
+            partitions[i].start();
+        }
+
+        try {
+            String line;
+            for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+                if (StoreModelService.isCommandLine(line)) {
+                    dispatch(line, CommandTokenizer.tokenize(line), lineNumber);
+                }
+            }
+            barrier();
+        } finally {
+            for (Partition partition : partitions) {
+                partition.stopWorker();
+            }
+            partitions = null;
+            inventoryStores.clear();
+            deviceStores.clear();
+            customerStores.clear();
+            basketStores.clear();
+        }
+
+        RuntimeException e = failure.getAndSet(null);
+        if (e != null)
+            throw e;
+    }
+
+    /**
+     * Method for routing a command either to the partition owning its Store or through a barrier
+     *
+     * @param line
+     * @param tokens
+     * @param lineNumber
+     */
+    private void dispatch(String line, List<String> tokens, int lineNumber) {
+        checkFailure();
+
+        CommandVerb verb = CommandVerb.lookup(tokens);
+        String storeId = verb == null ? null : routeStore(verb, tokens);
+
+        if (storeId == null) {
+            //Cross Store command: drain all the partitions and run it alone
+            barrier();
+            storeModelService.processCommandLine(line, verb, tokens, lineNumber);
+            recordAffinity(verb, tokens);
+        } else {
+            partitions[Math.floorMod(storeId.hashCode(), partitionCount)]
+                    .submit(() -> storeModelService.processCommandLine(line, verb, tokens, lineNumber));
+        }
+    }
+
+    /**
+     * Method for determining the Store a command is confined to. Returns null if the command has to be
+     * executed behind a barrier
+     *
+     * @param verb
+     * @param tokens
+     * @return
+     */
+    private String routeStore(CommandVerb verb, List<String> tokens) {
+        switch (verb) {
+            case DEFINE_STORE:
+            case SHOW_STORE:
+            case DEFINE_AISLE:
+            case SHOW_AISLE:
+            case DEFINE_SHELF:
+            case SHOW_SHELF:
+                return storeOf(tokens, 2);
+            case DEFINE_INVENTORY:
+                return claim(inventoryStores, token(tokens, 2), storeOf(tokens, 4));
+            case SHOW_INVENTORY:
+            case UPDATE_INVENTORY:
+                return inventoryStores.get(token(tokens, 2));
+            case DEFINE_DEVICE:
+                return claim(deviceStores, token(tokens, 2), storeOf(tokens, 8));
+            case SHOW_DEVICE:
+            case CREATE_EVENT:
+            case CREATE_COMMAND:
+                return deviceStores.get(token(tokens, 2));
+            case CREATE_EVENT_INLINE:
+                return deviceStores.get(token(tokens, 1));
+            case UPDATE_CUSTOMER: {
+                //Customers moving between Stores touch both Stores and have to go through a barrier
+                String current = customerStores.get(token(tokens, 2));
+                return current != null && current.equals(storeOf(tokens, 4)) ? current : null;
+            }
+            case SHOW_CUSTOMER:
+                return customerStores.get(token(tokens, 2));
+            case GET_CUSTOMER_BASKET:
+                return customerStores.get(token(tokens, 1));
+            case ASSIGN_BASKET: {
+                String storeId = customerStores.get(token(tokens, 4));
+                return storeId == null ? null : claim(basketStores, token(tokens, 2), storeId);
+            }
+            case ADD_BASKET_ITEM:
+            case REMOVE_BASKET_ITEM:
+            case CLEAR_BASKET:
+                return basketStores.get(token(tokens, 1));
+            case SHOW_BASKET_ITEMS:
+                return basketStores.get(token(tokens, 2));
+            default:
+                //Products, Customers and Baskets are global
+                return null;
+        }
+    }
+
+    /**
+     * Method for refreshing Store affinity from the model after a command has been executed behind a barrier
+     *
+     * @param verb
+     * @param tokens
+     */
+    private void recordAffinity(CommandVerb verb, List<String> tokens) {
+        if (verb == CommandVerb.DEFINE_INVENTORY) {
+            String inventoryId = token(tokens, 2);
+            refresh(inventoryStores, inventoryId, storeModelService.inventoryStoreId(inventoryId));
+        }
+        if (verb == CommandVerb.DEFINE_DEVICE) {
+            String deviceId = token(tokens, 2);
+            refresh(deviceStores, deviceId, storeModelService.deviceStoreId(deviceId));
+        }
+        if (verb == CommandVerb.UPDATE_CUSTOMER || verb == CommandVerb.ASSIGN_BASKET) {
+            String customerId = token(tokens, verb == CommandVerb.UPDATE_CUSTOMER ? 2 : 4);
+            try {
+                Customer customer = storeModelService.showCustomer(customerId, null);
+                if (customer.getStoreLocation() != null)
+                    customerStores.put(customerId, customer.getStoreLocation().getStoreId());
+            } catch (StoreModelException e) {
+                customerStores.remove(customerId);
+            }
+        }
+        if (verb == CommandVerb.ASSIGN_BASKET) {
+            String basketId = token(tokens, 2);
+            try {
+                Basket basket = storeModelService.showBasket(basketId, null);
+                if (basket.getStore() != null)
+                    basketStores.put(basketId, basket.getStore().getId());
+            } catch (StoreModelException e) {
+                basketStores.remove(basketId);
+            }
+        }
+    }
+
+    /**
+     * Method for assigning an entity to a Store. Returns null, forcing a barrier, if the entity was
+     * previously assigned to a different Store; the existing assignment is kept and refreshed from the
+     * model once the command has run, since the model may reject the command
+     *
+     * @param affinity
+     * @param id
+     * @param storeId
+     * @return
+     */
+    private static String claim(Map<String, String> affinity, String id, String storeId) {
+        if (id == null || storeId == null)
+            return null;
+        String previous = affinity.putIfAbsent(id, storeId);
+        return previous == null || previous.equals(storeId) ? storeId : null;
+    }
+
+    /**
+     * Method for setting the Store affinity of an entity to the Store the model has it in, dropping the
+     * affinity if the model does not have the entity
+     *
+     * @param affinity
+     * @param id
+     * @param storeId
+     */
+    private static void refresh(Map<String, String> affinity, String id, String storeId) {
+        if (id == null)
+            return;
+        if (storeId == null)
+            affinity.remove(id);
+        else
+            affinity.put(id, storeId);
+    }
+
+    private static String token(List<String> tokens, int index) {
+        return index < tokens.size() ? tokens.get(index) : null;
+    }
+
+    private static String storeOf(List<String> tokens, int index) {
+        String location = token(tokens, index);
+        if (location == null)
+            return null;
+        int separator = location.indexOf(':');
+        return separator < 0 ? location : location.substring(0, separator);
+    }
+
+    /**
+     * Method for waiting until every partition has executed all the commands submitted to it
+     */
+    private void barrier() {
+        CountDownLatch latch = new CountDownLatch(partitions.length);
+        for (Partition partition : partitions) {
+            partition.submit(latch::countDown);
+        }
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for partitions", e);
+        }
+        checkFailure();
+    }
+
+    private void checkFailure() {
+        RuntimeException e = failure.getAndSet(null);
+        if (e != null)
+            throw e;
+    }
+
+    /**
+     * Worker thread executing the commands of the Stores hashed to one partition in submission order
+     */
+    private final class Partition extends Thread {
+
+        private final BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+
+        Partition(int index) {
+            super("command-partition-" + index);
+            setDaemon(true);
+        }
+
+        void submit(Runnable task) {
+            try {
+                queue.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while submitting command", e);
+            }
+        }
+
+        void stopWorker() {
+            queue.clear();
+            submit(STOP);
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = queue.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (task == STOP)
+                    return;
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+}
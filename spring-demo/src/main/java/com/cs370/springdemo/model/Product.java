@@ -16,6 +16,9 @@ public class Product {
     private String category;
     private Double price;
     private Temperature temperature;
+    //Catalog holding price, category and temperature once the Product has been added to one, and its row there
+    private volatile ProductCatalog catalog;
+    private int row = -1;
 
     /**
      * Constructor for the Product class
@@ -39,6 +42,18 @@ public class Product {
         this.temperature = temperature;
     }
 
+    /**
+     * Method for attaching the Product to its row in a catalog, which holds its price, category and
+     * temperature from then on
+     *
+     * @param catalog
+     * @param row
+     */
+    void attach(ProductCatalog catalog, int row) {
+        this.row = row;
+        this.catalog = catalog;
+    }
+
     /**
      * Getter method for Product id
      *
@@ -117,7 +132,8 @@ public class Product {
      * @return
      */
     public String getCategory() {
-        return category;
+        ProductCatalog catalog = this.catalog;
+        return catalog == null ? category : catalog.category(row);
     }
 
     /**
@@ -126,7 +142,11 @@ public class Product {
      * @param category
      */
     public void setCategory(String category) {
-        this.category = category;
+        ProductCatalog catalog = this.catalog;
+        if (catalog == null)
+            this.category = category;
+        else
+            catalog.setCategory(row, category);
     }
 
     /**
@@ -135,7 +155,8 @@ public class Product {
      * @return
      */
     public Double getPrice() {
-        return price;
+        ProductCatalog catalog = this.catalog;
+        return catalog == null ? price : catalog.price(row);
     }
 
     /**
@@ -144,7 +165,11 @@ public class Product {
      * @param price
      */
     public void setPrice(Double price) {
-        this.price = price;
+        ProductCatalog catalog = this.catalog;
+        if (catalog == null)
+            this.price = price;
+        else
+            catalog.setPrice(row, price);
     }
 
     /**
@@ -153,7 +178,8 @@ public class Product {
      * @return
      */
     public Temperature getTemperature() {
-        return temperature;
+        ProductCatalog catalog = this.catalog;
+        return catalog == null ? temperature : catalog.temperature(row);
     }
 
     /**
@@ -162,7 +188,11 @@ public class Product {
      * @param temperature
      */
     public void setTemperature(Temperature temperature) {
-        this.temperature = temperature;
+        ProductCatalog catalog = this.catalog;
+        if (catalog == null)
+            this.temperature = temperature;
+        else
+            catalog.setTemperature(row, temperature);
     }
 
     @Override
@@ -172,9 +202,9 @@ public class Product {
                 ", name='" + name + '\'' +
                 ", description='" + description + '\'' +
                 ", size='" + size + '\'' +
-                ", category='" + category + '\'' +
-                ", price=" + price +
-                ", temperature=" + temperature +
+                ", category='" + getCategory() + '\'' +
+                ", price=" + getPrice() +
+                ", temperature=" + getTemperature() +
                 '}';
     }
 }
@@ -0,0 +1,396 @@
+package com.cs370.springdemo.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Columnar storage of Product price, category and temperature. Every Product added to the catalog is given
+ * a dense row, and its price in cents, interned category key and temperature ordinal live in primitive
+ * columns indexed by that row instead of in the Product object, which remains the view used by the rest
+ * of the model. Catalog-wide operations such as price lists, category totals and repricing then run as
+ * tight loops over the columns instead of walking Product objects one by one.
+ *
+ * Every page also keeps bitmap indexes of its rows by category, temperature and price band (prices between
+ * consecutive powers of two cents), so that queries combining them intersect a few bitmap words per page
+ * and only look at the rows of matching bands, which are then checked against the columns.
+ *
+ * Columns are split into fixed size pages that never move once allocated. Changes to rows are serialized
+ * by the catalog; reads do not lock.
+ */
+public final class ProductCatalog {
+
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle VIEWS = MethodHandles.arrayElementVarHandle(Product[].class);
+    private static final Temperature[] TEMPERATURES = Temperature.values();
+    private static final int PAGE_BITS = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_BITS;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+    private static final int WORDS = PAGE_SIZE >> 6;
+    //Band 0 holds prices up to 0 cents, band b prices from 2^(b-1) to 2^b - 1 cents
+    private static final int PRICE_BANDS = 64;
+    //Price of a Product without one; never matches a price in cents that a Double price can round to
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final IdTable<String> categories = new IdTable<>();
+    private volatile Page[] pages = new Page[0];
+    private volatile int size;
+
+    /**
+     * Getter method for the number of Products in the catalog
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method for adding a Product to the catalog. From then on the price, category and temperature of the
+     * Product are stored in the catalog. Returns the row of the Product
+     *
+     * @param product
+     * @return
+     */
+    public synchronized int add(Product product) {
+        int row = size;
+        Page[] current = pages;
+        if ((row >> PAGE_BITS) == current.length) {
+            Page[] grown = new Page[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, current.length);
+            grown[current.length] = new Page();
+            pages = grown;
+            current = grown;
+        }
+        Page page = current[row >> PAGE_BITS];
+        int i = row & PAGE_MASK;
+        page.prices[i] = toCents(product.getPrice());
+        page.categories[i] = intern(product.getCategory());
+        page.temperatures[i] = toOrdinal(product.getTemperature());
+        page.index(i);
+        page.reband(i, NO_PRICE, page.prices[i]);
+        VIEWS.setRelease(page.views, i, product);
+        product.attach(this, row);
+        size = row + 1;
+        return row;
+    }
+
+    /**
+     * Method for streaming the Products of a category in the order they were added to the catalog
+     *
+     * @param category
+     * @return
+     */
+    public Stream<Product> products(String category) {
+        return find(category, null, null, null);
+    }
+
+    /**
+     * Method for streaming the Products matching all of the given filters in the order they were added to
+     * the catalog. A null filter matches every Product; the minimum price is inclusive and the maximum
+     * price exclusive, and Products without a price only match queries without a price filter
+     *
+     * @param category
+     * @param temperature
+     * @param minPrice
+     * @param maxPrice
+     * @return
+     */
+    public Stream<Product> find(String category, Temperature temperature, Double minPrice, Double maxPrice) {
+        int key = categoryKey(category);
+        if (category != null && key < 0)
+            return Stream.empty();
+
+        byte ordinal = toOrdinal(temperature);
+        boolean priced = minPrice != null || maxPrice != null;
+        long minCents = minPrice == null ? Long.MIN_VALUE + 1 : toCents(minPrice);
+        long maxCents = maxPrice == null ? Long.MAX_VALUE : toCents(maxPrice);
+        if (minCents >= maxCents)
+            return Stream.empty();
+
+        Page[] current = pages;
+        int limit = size;
+        long[] words = new long[WORDS];
+        IntStream.Builder rows = IntStream.builder();
+        for (int p = 0; p < pages(limit); p++) {
+            Page page = current[p];
+            int length = Math.min(PAGE_SIZE, limit - (p << PAGE_BITS));
+            if (!page.select(words, length, key, ordinal, priced ? band(minCents) : -1, band(maxCents - 1)))
+                continue;
+
+            //Bitmaps may lag behind rows changing meanwhile, so candidates are checked against the columns
+            for (int w = 0; w < WORDS; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1) {
+                    int i = (w << 6) | Long.numberOfTrailingZeros(word);
+                    long cents = (long) LONGS.getOpaque(page.prices, i);
+                    if ((key < 0 || page.categories[i] == key) && (ordinal < 0 || page.temperatures[i] == ordinal)
+                            && (!priced || cents != NO_PRICE && cents >= minCents && cents < maxCents))
+                        rows.add((p << PAGE_BITS) | i);
+                }
+            }
+        }
+        return rows.build()
+                .mapToObj(row -> (Product) VIEWS.getAcquire(current[row >> PAGE_BITS].views, row & PAGE_MASK));
+    }
+
+    /**
+     * Method for adding up the prices, in cents, of the Products of a category. Products without a price
+     * are left out, and prices changing meanwhile may or may not be included
+     *
+     * @param category
+     * @return
+     */
+    public long totalPriceCents(String category) {
+        int key = categoryKey(category);
+        if (key < 0)
+            return 0;
+
+        Page[] current = pages;
+        int limit = size;
+        long total = 0;
+        for (int p = 0; p < pages(limit); p++) {
+            long[] prices = current[p].prices;
+            int[] column = current[p].categories;
+            int length = Math.min(PAGE_SIZE, limit - (p << PAGE_BITS));
+            for (int i = 0; i < length; i++) {
+                long price = prices[i];
+                total += column[i] == key && price != NO_PRICE ? price : 0;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Method for changing the prices of all the Products of a category by a percentage, rounding to the
+     * nearest cent. Returns the number of Products repriced
+     *
+     * @param category
+     * @param percent
+     * @return
+     */
+    public synchronized int reprice(String category, double percent) {
+        int key = categoryKey(category);
+        if (key < 0)
+            return 0;
+
+        double factor = 1 + percent / 100;
+        Page[] current = pages;
+        int limit = size;
+        int repriced = 0;
+        for (int p = 0; p < pages(limit); p++) {
+            long[] prices = current[p].prices;
+            int[] column = current[p].categories;
+            int length = Math.min(PAGE_SIZE, limit - (p << PAGE_BITS));
+            for (int i = 0; i < length; i++) {
+                if (column[i] == key && prices[i] != NO_PRICE) {
+                    long price = Math.round(prices[i] * factor);
+                    current[p].reband(i, prices[i], price);
+                    LONGS.setOpaque(prices, i, price);
+                    repriced++;
+                }
+            }
+        }
+        return repriced;
+    }
+
+    /**
+     * Getter method for the price of a row in cents, or null if the Product has no price
+     *
+     * @param row
+     * @return
+     */
+    Double price(int row) {
+        long cents = (long) LONGS.getOpaque(page(row).prices, row & PAGE_MASK);
+        return cents == NO_PRICE ? null : cents / 100.0;
+    }
+
+    /**
+     * Setter method for the price of a row
+     *
+     * @param row
+     * @param price
+     */
+    synchronized void setPrice(int row, Double price) {
+        Page page = page(row);
+        int i = row & PAGE_MASK;
+        long cents = toCents(price);
+        page.reband(i, page.prices[i], cents);
+        LONGS.setOpaque(page.prices, i, cents);
+    }
+
+    /**
+     * Getter method for the category of a row
+     *
+     * @param row
+     * @return
+     */
+    String category(int row) {
+        int key = page(row).categories[row & PAGE_MASK];
+        return key < 0 ? null : categories.idOf(key);
+    }
+
+    /**
+     * Setter method for the category of a row
+     *
+     * @param row
+     * @param category
+     */
+    synchronized void setCategory(int row, String category) {
+        Page page = page(row);
+        int i = row & PAGE_MASK;
+        page.unindex(i);
+        page.categories[i] = intern(category);
+        page.index(i);
+    }
+
+    /**
+     * Getter method for the temperature of a row
+     *
+     * @param row
+     * @return
+     */
+    Temperature temperature(int row) {
+        byte ordinal = page(row).temperatures[row & PAGE_MASK];
+        return ordinal < 0 ? null : TEMPERATURES[ordinal];
+    }
+
+    /**
+     * Setter method for the temperature of a row
+     *
+     * @param row
+     * @param temperature
+     */
+    synchronized void setTemperature(int row, Temperature temperature) {
+        Page page = page(row);
+        int i = row & PAGE_MASK;
+        page.unindex(i);
+        page.temperatures[i] = toOrdinal(temperature);
+        page.index(i);
+    }
+
+    private int categoryKey(String category) {
+        return category == null ? -1 : categories.keyOf(category);
+    }
+
+    private int intern(String category) {
+        if (category == null)
+            return -1;
+        categories.putIfAbsent(category, category);
+        return categories.keyOf(category);
+    }
+
+    private Page page(int row) {
+        return pages[row >> PAGE_BITS];
+    }
+
+    private static long toCents(Double price) {
+        return price == null ? NO_PRICE : Math.round(price * 100);
+    }
+
+    private static int band(long cents) {
+        return cents <= 0 ? 0 : 64 - Long.numberOfLeadingZeros(cents);
+    }
+
+    private static byte toOrdinal(Temperature temperature) {
+        return temperature == null ? -1 : (byte) temperature.ordinal();
+    }
+
+    private static int pages(int rows) {
+        return (rows + PAGE_MASK) >> PAGE_BITS;
+    }
+
+    /**
+     * Columns and bitmap indexes of one page of rows. Bitmaps are only modified under the catalog lock
+     */
+    private static final class Page {
+
+        private final long[] prices = new long[PAGE_SIZE];
+        private final int[] categories = new int[PAGE_SIZE];
+        private final byte[] temperatures = new byte[PAGE_SIZE];
+        private final Product[] views = new Product[PAGE_SIZE];
+        //Indexed by category key, null for categories without rows in the page; replaced when it grows
+        private volatile long[][] categoryBits = new long[0][];
+        private final long[][] temperatureBits = new long[TEMPERATURES.length][WORDS];
+        private final long[][] priceBits = new long[PRICE_BANDS][WORDS];
+
+        //Sets the category and temperature bits of a row
+        void index(int i) {
+            int key = categories[i];
+            if (key >= 0) {
+                long[][] bits = categoryBits;
+                if (key >= bits.length || bits[key] == null) {
+                    long[][] grown = Arrays.copyOf(bits, Math.max(bits.length, key + 1));
+                    grown[key] = new long[WORDS];
+                    bits = grown;
+                    categoryBits = grown;
+                }
+                bits[key][i >> 6] |= 1L << i;
+            }
+            if (temperatures[i] >= 0)
+                temperatureBits[temperatures[i]][i >> 6] |= 1L << i;
+        }
+
+        //Clears the category and temperature bits of a row
+        void unindex(int i) {
+            int key = categories[i];
+            if (key >= 0)
+                categoryBits[key][i >> 6] &= ~(1L << i);
+            if (temperatures[i] >= 0)
+                temperatureBits[temperatures[i]][i >> 6] &= ~(1L << i);
+        }
+
+        //Moves a row from the band of its previous price to the band of its new price
+        void reband(int i, long previous, long price) {
+            if (previous != NO_PRICE)
+                priceBits[band(previous)][i >> 6] &= ~(1L << i);
+            if (price != NO_PRICE)
+                priceBits[band(price)][i >> 6] |= 1L << i;
+        }
+
+        /**
+         * Method for selecting the candidate rows of a query into words. Filters are skipped for a negative
+         * category key, temperature ordinal or lowest price band. Returns false if no row can match
+         *
+         * @param words
+         * @param length
+         * @param key
+         * @param ordinal
+         * @param lowBand
+         * @param highBand
+         * @return
+         */
+        boolean select(long[] words, int length, int key, byte ordinal, int lowBand, int highBand) {
+            for (int w = 0; w < WORDS; w++) {
+                int rows = length - (w << 6);
+                words[w] = rows >= 64 ? -1L : rows <= 0 ? 0 : (1L << rows) - 1;
+            }
+            if (key >= 0) {
+                long[][] bits = categoryBits;
+                if (key >= bits.length || bits[key] == null)
+                    return false;
+                and(words, bits[key]);
+            }
+            if (ordinal >= 0)
+                and(words, temperatureBits[ordinal]);
+            if (lowBand >= 0) {
+                long[] bands = new long[WORDS];
+                for (int b = lowBand; b <= highBand; b++) {
+                    long[] band = priceBits[b];
+                    for (int w = 0; w < WORDS; w++) {
+                        bands[w] |= band[w];
+                    }
+                }
+                and(words, bands);
+            }
+            return true;
+        }
+
+        private static void and(long[] words, long[] bits) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] &= bits[w];
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.cs370.springdemo.model;
+
+import java.io.IOException;
+
+/**
+ * Output that is written piece by piece to its destination instead of being built into a String first
+ */
+@FunctionalInterface
+public interface Rendering {
+
+    /**
+     * Method for writing the output
+     *
+     * @param out
+     * @throws IOException
+     */
+    void renderTo(Appendable out) throws IOException;
+}
@@ -21,11 +21,16 @@ public class Sensor extends Device {
         super(id, name, storeLocation, type);
     }
 
+    @Override
+    Device snapshot() {
+        return new Sensor(getId(), getName(), getStoreLocation(), getType());
+    }
+
     @Override
     /**
      * Sensor specific event processing
      */
     public void processEvent(String event) {
-        System.out.println("<<< " + "Processing Event : " + event);
+        OutputSinks.current().println("<<< " + "Processing Event : " + event);
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.cs370.springdemo.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -17,7 +19,8 @@ public class Shelf {
     private ShelfLevel level;
     private String description;
     private Temperature temperature;
-    private final Map<String, Inventory> inventoryMap;
+    //Inventory in the order it was added. The array is replaced, never modified, when Inventory is added
+    private volatile Inventory[] inventories;
 
     /**
      * Constructor for the Shelf class
@@ -34,7 +37,34 @@ public class Shelf {
         this.level = level;
         this.description = description;
         this.temperature = temperature;
-        this.inventoryMap = new HashMap<>();
+        this.inventories = new Inventory[0];
+    }
+
+    /**
+     * Method for copying the Shelf and its Inventory into a snapshot. Inventory already copied for the
+     * snapshot is shared through copies
+     *
+     * @param copies
+     * @return
+     */
+    Shelf snapshot(Map<Inventory, Inventory> copies) {
+        Shelf shelf = new Shelf(id, name, level, description, temperature);
+        Inventory[] current = this.inventories;
+        Inventory[] copied = new Inventory[current.length];
+        for (int i = 0; i < current.length; i++) {
+            copied[i] = copies.computeIfAbsent(current[i], Inventory::snapshot);
+        }
+        shelf.inventories = copied;
+        return shelf;
+    }
+
+    /**
+     * Method for copying the Shelf into a snapshot without its Inventory
+     *
+     * @return
+     */
+    Shelf snapshotWithoutInventory() {
+        return new Shelf(id, name, level, description, temperature);
     }
 
     /**
@@ -144,29 +174,58 @@ public class Shelf {
      */
     public Inventory addInventory(String inventoryId, String storeId, String aisleNumber,
                                   String shelfId, int capacity, int count, String productId) throws StoreModelException {
+        return tryAddInventory(inventoryId, storeId, aisleNumber, shelfId, capacity, count, productId).orThrow();
+    }
+
+    /**
+     * Method for adding Inventory to a particular Store Shelf. Returns a rejected outcome if Inventory
+     * already exist or count is not within proper bound
+     *
+     * @param inventoryId
+     * @param storeId
+     * @param aisleNumber
+     * @param shelfId
+     * @param capacity
+     * @param count
+     * @param productId
+     * @return
+     */
+    public ModelOutcome<Inventory> tryAddInventory(String inventoryId, String storeId, String aisleNumber,
+                                                   String shelfId, int capacity, int count, String productId) {
 
         //Check to see if count within proper bounds
         if (count < 0 || count > capacity)
-            throw new StoreModelException("Add Inventory", "Inventory Is Smaller Than O " +
-                    "or Larger Than Shelf Capacity");
-
-        InventoryLocation location = new InventoryLocation(storeId, aisleNumber, shelfId);
-        Inventory inventory = new Inventory(inventoryId, location, capacity, count, productId);
+            return ModelOutcome.failure("Add Inventory", ModelError.INVENTORY_OUT_OF_BOUNDS);
 
         //Make sure already does not exist in the store
-        if (inventoryMap.putIfAbsent(inventoryId, inventory) != null)
-            throw new StoreModelException("Add Inventory", "Inventory Already Exists");
+        Inventory[] current = this.inventories;
+        for (Inventory existing : current) {
+            if (inventoryId.equals(existing.getId()))
+                return ModelOutcome.failure("Add Inventory", ModelError.INVENTORY_ALREADY_EXISTS);
+        }
+
+        InventoryLocation location = new InventoryLocation(storeId, aisleNumber, shelfId);
+        Inventory inventory = Inventory.create(inventoryId, location, capacity, count, productId);
 
-        return inventory;
+        //Inventory is added under the Store lock, so publishing a copy cannot lose a concurrent addition
+        Inventory[] added = Arrays.copyOf(current, current.length + 1);
+        added[current.length] = inventory;
+        this.inventories = added;
+        return ModelOutcome.of(inventory);
     }
 
     /**
-     * Method for getting a Map of Inventory items that belong to the Store
+     * Method for getting a Map of Inventory items that belong to the Store, in the order they were added.
+     * The map is a read only snapshot of the Inventory
      *
      * @return
      */
     public Map<String, Inventory> getInventoryMap() {
-        return this.inventoryMap;
+        Map<String, Inventory> inventoryMap = new LinkedHashMap<>();
+        for (Inventory inventory : this.inventories) {
+            inventoryMap.put(inventory.getId(), inventory);
+        }
+        return Collections.unmodifiableMap(inventoryMap);
     }
 
     @Override
@@ -177,7 +236,7 @@ public class Shelf {
                 ", level=" + level +
                 ", description='" + description + '\'' +
                 ", temperature=" + temperature +
-                ", inventoryMap=" + inventoryMap +
+                ", inventoryMap=" + getInventoryMap() +
                 '}';
     }
 }
@@ -1,7 +1,22 @@
 package com.cs370.springdemo.model;
 
-import java.util.HashMap;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
 
 import jakarta.persistence.*;
 
@@ -15,6 +30,24 @@ import jakarta.persistence.*;
 @Entity
 public class Store {
 
+    //Upper bound of the number of cleared Baskets a Store keeps for reuse
+    static final int BASKET_POOL_SIZE = 64;
+
+    //Shared writes, the writes to Inventory counts that do not hold the Store lock, in progress are held below
+    //SHARED_WRITE_DONE, completed ones from SHARED_WRITE_DONE up; the sign bit is set while they are held off
+    private static final long SHARED_WRITE_DONE = 1L << 20;
+    private static final long SHARED_WRITES_IN_PROGRESS = SHARED_WRITE_DONE - 1;
+    private static final long SHARED_WRITES_HELD = Long.MIN_VALUE;
+    private static final VarHandle SHARED_WRITES;
+
+    static {
+        try {
+            SHARED_WRITES = MethodHandles.lookup().findVarHandle(Store.class, "sharedWrites", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     @Id
     private String id;
     private String address;
@@ -29,17 +62,37 @@ public class Store {
     private final Map<String, Inventory> inventoryMap;
     @Transient
     private final Map<String, Basket> basketMap;
+    //Cleared Baskets kept for reuse with the storage their lines grew to, guarded by the pool itself
+    @Transient
+    private final ArrayDeque<Basket> basketPool;
+    //Inventories by Aisle key and Product key, see productLocation
+    @Transient
+    private final LongTable<List<Inventory>> productLocationMap;
+    //Number of Aisle keys assigned so far; Aisles are added under the Store lock
+    @Transient
+    private int aisleCount;
+    //Odd while a write holding the Store lock is in progress, see beginWrite
+    @Transient
+    private volatile long version;
+    //Writes to Inventory counts, which do not hold the Store lock, see beginSharedWrite
+    @Transient
+    private volatile long sharedWrites;
+    //Snapshot of the whole Store shared by reads until the Store changes, see publish
+    @Transient
+    private volatile Store published;
 
     /**
      * Constructor for the Store class
      *
      */
     public Store(){
-        this.aislesMap = new HashMap<>();
-        this.deviceMap = new HashMap<>();
-        this.customerMap = new HashMap<>();
-        this.inventoryMap = new HashMap<>();
-        this.basketMap = new HashMap<>();
+        this.aislesMap = new ConcurrentHashMap<>();
+        this.deviceMap = new ConcurrentHashMap<>();
+        this.customerMap = new ConcurrentHashMap<>();
+        this.inventoryMap = new ConcurrentHashMap<>();
+        this.basketMap = new ConcurrentHashMap<>();
+        this.basketPool = new ArrayDeque<>();
+        this.productLocationMap = new LongTable<>();
     }
 
     /**
@@ -53,11 +106,67 @@ public class Store {
         this.id = id;
         this.address = address;
         this.description = description;
-        this.aislesMap = new HashMap<>();
-        this.deviceMap = new HashMap<>();
-        this.customerMap = new HashMap<>();
-        this.inventoryMap = new HashMap<>();
-        this.basketMap = new HashMap<>();
+        this.aislesMap = new ConcurrentHashMap<>();
+        this.deviceMap = new ConcurrentHashMap<>();
+        this.customerMap = new ConcurrentHashMap<>();
+        this.inventoryMap = new ConcurrentHashMap<>();
+        this.basketMap = new ConcurrentHashMap<>();
+        this.basketPool = new ArrayDeque<>();
+        this.productLocationMap = new LongTable<>();
+    }
+
+    /**
+     * Constructor for a snapshot of the Store holding what the renderer renders. Every entity is copied and
+     * copies refer to each other instead of to the entities of the Store; maps keep the iteration order of
+     * the Store and cannot be modified. Fields the renderer leaves out are empty, and collections it renders
+     * as their size only hold the ids of their entities, mapped to null
+     *
+     * @param store
+     * @param renderer
+     */
+    private Store(Store store, StoreRenderer renderer) {
+        //A snapshot holds the version and shared writes it was copied at
+        this.version = store.version;
+        this.sharedWrites = store.sharedWrites & ~SHARED_WRITES_HELD;
+        this.id = store.id;
+        this.address = store.address;
+        this.description = store.description;
+        Map<Inventory, Inventory> inventories = new IdentityHashMap<>();
+        Map<Customer, Customer> customers = new IdentityHashMap<>();
+        boolean shelfInventory = renderer.expands(2);
+        this.aislesMap = copy(store.aislesMap, renderer, "aisles",
+                aisle -> aisle.snapshot(inventories, shelfInventory));
+        this.deviceMap = copy(store.deviceMap, renderer, "devices", Device::snapshot);
+        this.customerMap = copy(store.customerMap, renderer, "customers", customer -> copy(customer, customers));
+        this.inventoryMap = copy(store.inventoryMap, renderer, "inventory",
+                inventory -> inventories.computeIfAbsent(inventory, Inventory::snapshot));
+        this.basketMap = copy(store.basketMap, renderer, "baskets", basket -> copy(basket, customers));
+        this.basketPool = new ArrayDeque<>(0);
+        this.productLocationMap = new LongTable<>();
+    }
+
+    //Copies one of the collections of the Store for the snapshot of a renderer, see Store(Store, StoreRenderer)
+    private static <T> Map<String, T> copy(Map<String, T> entities, StoreRenderer renderer, String field,
+                                           UnaryOperator<T> copy) {
+        if (!renderer.renders(field))
+            return Collections.emptyMap();
+        if (!renderer.expands(1))
+            return new Ids<>(entities.keySet().toArray(new String[0]));
+        Map<String, T> copied = new LinkedHashMap<>();
+        entities.forEach((entityId, entity) -> copied.put(entityId, copy.apply(entity)));
+        return Collections.unmodifiableMap(copied);
+    }
+
+    //Copies a Customer, and the Basket it holds, once for the snapshot
+    private Customer copy(Customer customer, Map<Customer, Customer> customers) {
+        return customers.computeIfAbsent(customer, entity -> entity.snapshot(this));
+    }
+
+    //Copies a Basket as the Basket of the copy of its Customer, or on its own if it has no Customer
+    private Basket copy(Basket basket, Map<Customer, Customer> customers) {
+        Customer customer = basket.getCustomer();
+        Basket copied = customer == null ? null : copy(customer, customers).getBasket();
+        return copied != null && copied.getId().equals(basket.getId()) ? copied : basket.snapshot(this, null);
     }
 
     /**
@@ -114,6 +223,51 @@ public class Store {
         this.description = description;
     }
 
+    /**
+     * Getter method for a read only view of the Aisles of the Store
+     *
+     * @return
+     */
+    Map<String, Aisle> getAisleMap() {
+        return Collections.unmodifiableMap(aislesMap);
+    }
+
+    /**
+     * Getter method for a read only view of the Devices of the Store
+     *
+     * @return
+     */
+    Map<String, Device> getDeviceMap() {
+        return Collections.unmodifiableMap(deviceMap);
+    }
+
+    /**
+     * Getter method for a read only view of the Customers in the Store
+     *
+     * @return
+     */
+    Map<String, Customer> getCustomerMap() {
+        return Collections.unmodifiableMap(customerMap);
+    }
+
+    /**
+     * Getter method for a read only view of the Inventory of the Store
+     *
+     * @return
+     */
+    Map<String, Inventory> getInventoryMap() {
+        return Collections.unmodifiableMap(inventoryMap);
+    }
+
+    /**
+     * Getter method for a read only view of the Baskets in the Store
+     *
+     * @return
+     */
+    Map<String, Basket> getBasketMap() {
+        return Collections.unmodifiableMap(basketMap);
+    }
+
     /**
      * Add aisle to the Store. If Aisle already exists in the store throw StoreModelException
      *
@@ -125,13 +279,28 @@ public class Store {
      * @throws StoreModelException
      */
     public Aisle addAisle(String aisleNumber, String name, String description, AisleLocation aisleLocation) throws StoreModelException {
+        return tryAddAisle(aisleNumber, name, description, aisleLocation).orThrow();
+    }
+
+    /**
+     * Add aisle to the Store. Returns a rejected outcome if Aisle already exists in the store
+     *
+     * @param aisleNumber
+     * @param name
+     * @param description
+     * @param aisleLocation
+     * @return
+     */
+    public ModelOutcome<Aisle> tryAddAisle(String aisleNumber, String name, String description,
+                                           AisleLocation aisleLocation) {
 
         //Check to see if Aisle already exists
         Aisle aisle = new Aisle(aisleNumber, name, description, aisleLocation);
-//        if (this.aislesMap.putIfAbsent(aisleNumber, aisle) != null)
-//            throw new StoreModelException("Add Aisle", "Aisle Already Exists");
+        aisle.setKey(aisleCount++);
+        if (this.aislesMap.putIfAbsent(aisleNumber, aisle) != null)
+            return ModelOutcome.failure("Add Aisle", ModelError.AISLE_ALREADY_EXISTS);
 
-        return aisle;
+        return ModelOutcome.of(aisle);
     }
 
     /**
@@ -142,13 +311,23 @@ public class Store {
      * @throws StoreModelException
      */
     public Aisle getAisle(String aisleNumber) throws StoreModelException {
+        return tryGetAisle(aisleNumber).orThrow();
+    }
+
+    /**
+     * Get Aisle from the Store. Returns a rejected outcome if Aisle does not exist
+     *
+     * @param aisleNumber
+     * @return
+     */
+    public ModelOutcome<Aisle> tryGetAisle(String aisleNumber) {
         Aisle aisle = this.aislesMap.get(aisleNumber);
         //Check to see if Aisle exists in the Store
         if (aisle == null) {
-            throw new StoreModelException("Get Aisle", "Aisle Does Not Exist");
+            return ModelOutcome.failure("Get Aisle", ModelError.AISLE_DOES_NOT_EXIST);
         }
 
-        return this.aislesMap.get(aisleNumber);
+        return ModelOutcome.of(aisle);
     }
 
     /**
@@ -158,11 +337,179 @@ public class Store {
      * @param inventory
      */
     public void addInventory(Inventory inventory) throws StoreModelException {
+        tryAddInventory(inventory).orThrow();
+    }
+
+    /**
+     * Method for keeping local reference of the Inventory in the Store.
+     * Returns a rejected outcome if Inventory already exists in the Store
+     *
+     * @param inventory
+     * @return
+     */
+    public ModelOutcome<Inventory> tryAddInventory(Inventory inventory) {
 
         //Check to see if Inventory already exists in the Store
         if (this.inventoryMap.putIfAbsent(inventory.getId(), inventory) != null)
-            throw new StoreModelException("Add Inventory", "Inventory Already Exists");
+            return ModelOutcome.failure("Add Inventory", ModelError.INVENTORY_ALREADY_EXISTS);
+
+        return ModelOutcome.of(inventory);
+    }
+
+    /**
+     * Method for copying what the renderer renders of the Store into a snapshot that later changes to the
+     * Store do not affect. Callers validate the copy against the version and shared writes of the Store
+     *
+     * @param renderer
+     * @return
+     */
+    Store snapshot(StoreRenderer renderer) {
+        return new Store(this, renderer);
+    }
+
+    /**
+     * Method for getting the published snapshot of the whole Store, null unless it was copied at the given
+     * version and shared writes
+     *
+     * @param version
+     * @param sharedWrites
+     * @return
+     */
+    Store getPublished(long version, long sharedWrites) {
+        Store current = this.published;
+        return current != null && current.version == version && current.sharedWrites == sharedWrites ? current : null;
+    }
+
+    /**
+     * Method for publishing a validated snapshot of the whole Store, so that reads share it until the Store
+     * changes. The snapshot must not be modified
+     *
+     * @param snapshot
+     */
+    void publish(Store snapshot) {
+        if (this.published != snapshot)
+            this.published = snapshot;
+    }
+
+    /**
+     * Getter method for the version of the Store, which changes with every write holding the Store lock
+     *
+     * @return
+     */
+    long getVersion() {
+        return version;
+    }
 
+    /**
+     * Getter method for the shared writes of the Store, which change with every write to the count of its
+     * Inventory. Snapshots are only valid if there were no shared writes in progress, see isIdle
+     *
+     * @return
+     */
+    long getSharedWrites() {
+        return sharedWrites;
+    }
+
+    /**
+     * Method for checking whether shared writes were neither in progress nor held off
+     *
+     * @param sharedWrites
+     * @return
+     */
+    static boolean isIdle(long sharedWrites) {
+        return (sharedWrites & (SHARED_WRITES_HELD | SHARED_WRITES_IN_PROGRESS)) == 0;
+    }
+
+    /**
+     * Method for marking the start of a write to the count of Inventory of the Store. Shared writes do not
+     * hold the Store lock and run at the same time as each other; snapshots copied until the matching
+     * endSharedWrite are discarded. Waits while shared writes are held off, so a shared write must not
+     * begin another one of the same Store
+     */
+    void beginSharedWrite() {
+        while ((long) SHARED_WRITES.getAndAdd(this, 1L) < 0) {
+            SHARED_WRITES.getAndAdd(this, -1L);
+            while (sharedWrites < 0)
+                Thread.yield();
+        }
+    }
+
+    /**
+     * Method for marking the end of a write to the count of Inventory of the Store
+     */
+    void endSharedWrite() {
+        SHARED_WRITES.getAndAdd(this, SHARED_WRITE_DONE - 1);
+    }
+
+    /**
+     * Method for holding off shared writes, waiting for the ones in progress, so that a snapshot holding the
+     * Store lock cannot be changed
+     */
+    void holdSharedWrites() {
+        SHARED_WRITES.getAndBitwiseOr(this, SHARED_WRITES_HELD);
+        while ((sharedWrites & SHARED_WRITES_IN_PROGRESS) != 0)
+            Thread.yield();
+    }
+
+    /**
+     * Method for letting shared writes held off by holdSharedWrites proceed
+     */
+    void releaseSharedWrites() {
+        SHARED_WRITES.getAndBitwiseAnd(this, ~SHARED_WRITES_HELD);
+    }
+
+    /**
+     * Method for marking the start of a write holding the Store lock. Snapshots copied until the matching
+     * endWrite are discarded
+     */
+    void beginWrite() {
+        version = version + 1;
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Method for marking the end of a write holding the Store lock
+     */
+    void endWrite() {
+        version = version + 1;
+    }
+
+    /**
+     * Method for indexing Inventory placed on a Shelf of an Aisle of the Store by its Product, so that
+     * Inventory can be found by Aisle and Product without visiting the Shelves
+     *
+     * @param aisle
+     * @param inventory
+     */
+    void indexInventory(Aisle aisle, Inventory inventory) {
+        //Inventory is indexed under the Store lock, so replacing the list cannot lose a concurrent addition
+        long location = productLocation(aisle, inventory.getProductKey());
+        List<Inventory> indexed = productLocationMap.get(location);
+        if (indexed == null) {
+            productLocationMap.put(location, List.of(inventory));
+        } else {
+            List<Inventory> merged = new ArrayList<>(indexed);
+            merged.add(inventory);
+            productLocationMap.put(location, Collections.unmodifiableList(merged));
+        }
+    }
+
+    /**
+     * Method for finding the Inventory holding a Product on the Shelves of an Aisle of the Store
+     *
+     * @param aisle
+     * @param productKey
+     * @return
+     */
+    List<Inventory> findInventory(Aisle aisle, int productKey) {
+        if (productKey < 0)
+            return Collections.emptyList();
+        List<Inventory> indexed = productLocationMap.get(productLocation(aisle, productKey));
+        return indexed == null ? Collections.emptyList() : indexed;
+    }
+
+    private static long productLocation(Aisle aisle, int productKey) {
+        return ((long) aisle.getKey() << 32) | productKey;
     }
 
     /**
@@ -173,10 +520,24 @@ public class Store {
      * @throws StoreModelException
      */
     public void addCustomer(Customer customer) throws StoreModelException {
+        tryAddCustomer(customer).orThrow();
+    }
+
+    /**
+     * Method for keeping local reference of the Customer in the Store.
+     * Returns a rejected outcome if Customer already exists in the Store
+     *
+     * @param customer
+     * @return
+     */
+    public ModelOutcome<Customer> tryAddCustomer(Customer customer) {
 
         //Check to see if Customer already exists in the Store
         if (this.customerMap.putIfAbsent(customer.getId(), customer) != null)
-            throw new StoreModelException("Add Customer", "Customer Already Exists");
+            return ModelOutcome.failure("Add Customer", ModelError.CUSTOMER_ALREADY_EXISTS);
+
+        customer.setCurrentStore(this);
+        return ModelOutcome.of(customer);
     }
 
     /**
@@ -187,11 +548,23 @@ public class Store {
      * @throws StoreModelException
      */
     public void addDevice(Device device) throws StoreModelException {
+        tryAddDevice(device).orThrow();
+    }
+
+    /**
+     * Method for keeping local reference of the Device in the Store.
+     * Returns a rejected outcome if Device already exists in the Store
+     *
+     * @param device
+     * @return
+     */
+    public ModelOutcome<Device> tryAddDevice(Device device) {
 
         //Check to see if Device already exists in the Store
         if (this.deviceMap.putIfAbsent(device.getId(), device) != null)
-            throw new StoreModelException("Add Device", "Device Already Exists");
+            return ModelOutcome.failure("Add Device", ModelError.DEVICE_ALREADY_EXISTS);
 
+        return ModelOutcome.of(device);
     }
 
     /**
@@ -202,10 +575,57 @@ public class Store {
      * @throws StoreModelException
      */
     public void addBasket(Basket basket) throws StoreModelException {
+        tryAddBasket(basket).orThrow();
+    }
+
+    /**
+     * Method for keeping local reference of the Basket in the Store.
+     * Returns a rejected outcome if Basket already exists in the Store
+     *
+     * @param basket
+     * @return
+     */
+    public ModelOutcome<Basket> tryAddBasket(Basket basket) {
         //Check to see if basket already exists in the Store
         if (this.basketMap.putIfAbsent(basket.getId(), basket) != null)
-            throw new StoreModelException("Add Device", "Device Already Exists");
+            return ModelOutcome.failure("Add Device", ModelError.DEVICE_ALREADY_EXISTS);
 
+        return ModelOutcome.of(basket);
+    }
+
+    /**
+     * Method for taking a cleared Basket out of the pool of the Store for a Basket being provisioned, null if
+     * the pool is empty. The Store leaves the pooling Stores once its pool is empty
+     *
+     * @param poolingStores
+     * @return
+     */
+    Basket takeBasket(Queue<Store> poolingStores) {
+        synchronized (basketPool) {
+            Basket basket = basketPool.pollLast();
+            if (basket != null && basketPool.isEmpty())
+                poolingStores.remove(this);
+            return basket;
+        }
+    }
+
+    /**
+     * Method for dropping a cleared Basket from the Store and returning it to the pool of the Store, joining the
+     * pooling Stores once the pool holds a Basket. Once the pool is full the Basket is left to the garbage
+     * collector. Called holding the monitor of the Basket, once its id has been retired
+     *
+     * @param basket
+     * @param poolingStores
+     */
+    void releaseBasket(Basket basket, Queue<Store> poolingStores) {
+        this.basketMap.remove(basket.getId(), basket);
+        synchronized (basketPool) {
+            if (basketPool.size() == BASKET_POOL_SIZE)
+                return;
+            basketPool.addLast(basket);
+            if (basketPool.size() == 1)
+                poolingStores.add(this);
+        }
     }
 
     /**
@@ -225,22 +645,48 @@ public class Store {
      */
     public void removeCustomer(Customer customer) {
 
-        if (this.customerMap.get(customer.getId()) == null) {
-            this.customerMap.remove(customer.getId());
+        this.customerMap.remove(customer.getId(), customer);
+
+        //Keep the Customer's reference to its Store consistent with the Customer map
+        if (customer.getCurrentStore() == this) {
+            customer.setCurrentStore(null);
         }
     }
 
     @Override
     public String toString() {
-        return "Store{" +
-                "id='" + id + '\'' +
-                ", address='" + address + '\'' +
-                ", description='" + description + '\'' +
-                ", aislesMap=" + aislesMap +
-                ", deviceMap=" + deviceMap +
-                ", customerMap=" + customerMap +
-                ", inventoryMap=" + inventoryMap +
-                ", basketMap=" + basketMap +
-                '}';
+        return StoreRenderer.text().render(this);
+    }
+
+    /**
+     * Read only map of the ids of the entities of a collection a snapshot only counts, mapping every id to null
+     */
+    private static final class Ids<T> extends AbstractMap<String, T> {
+
+        private final String[] ids;
+
+        Ids(String[] ids) {
+            this.ids = ids;
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        @Override
+        public Set<Entry<String, T>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, T>> iterator() {
+                    return Arrays.stream(ids).<Entry<String, T>>map(id -> new SimpleImmutableEntry<>(id, null)).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return ids.length;
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,82 @@
+package com.cs370.springdemo.model;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Locks serializing the operations that modify a Store. Every Store has a lock of its own, found by the
+ * dense key of the Store, so operations on different Stores never contend however many Stores there are.
+ * Locks are held in fixed size pages that are added as the key space grows; finding a lock does not lock.
+ * Reads do not take these locks.
+ *
+ * Operations spanning two Stores take both locks in key order, which rules out deadlocks between them.
+ */
+final class StoreLocks {
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    //Pages are fully populated before a directory holding them is published
+    private volatile ReentrantLock[][] pages = new ReentrantLock[0][];
+
+    /**
+     * Method for getting the lock of the Store with the given dense key
+     *
+     * @param storeKey
+     * @return
+     */
+    ReentrantLock of(int storeKey) {
+        int page = storeKey >>> PAGE_SHIFT;
+        ReentrantLock[][] current = pages;
+        if (page >= current.length)
+            current = grow(page);
+        return current[page][storeKey & PAGE_MASK];
+    }
+
+    /**
+     * Method for locking the locks of two Stores in key order. Locks a single lock if both keys are the same
+     *
+     * @param firstKey
+     * @param secondKey
+     */
+    void lockBoth(int firstKey, int secondKey) {
+        of(Math.min(firstKey, secondKey)).lock();
+        if (firstKey != secondKey)
+            of(Math.max(firstKey, secondKey)).lock();
+    }
+
+    /**
+     * Method for releasing the locks locked by lockBoth
+     *
+     * @param firstKey
+     * @param secondKey
+     */
+    void unlockBoth(int firstKey, int secondKey) {
+        if (firstKey != secondKey)
+            of(Math.max(firstKey, secondKey)).unlock();
+        of(Math.min(firstKey, secondKey)).unlock();
+    }
+
+    /**
+     * Method for adding pages until the given page exists, returning the directory holding it
+     *
+     * @param page
+     * @return
+     */
+    private synchronized ReentrantLock[][] grow(int page) {
+        ReentrantLock[][] current = pages;
+        if (page < current.length)
+            return current;
+
+        ReentrantLock[][] grown = new ReentrantLock[Math.max(page + 1, current.length * 2)][];
+        System.arraycopy(current, 0, grown, 0, current.length);
+        for (int i = current.length; i < grown.length; i++) {
+            grown[i] = new ReentrantLock[PAGE_SIZE];
+            for (int j = 0; j < PAGE_SIZE; j++) {
+                grown[i][j] = new ReentrantLock();
+            }
+        }
+        pages = grown;
+        return grown;
+    }
+}
@@ -1,5 +1,6 @@
 package com.cs370.springdemo.model;
 
+import java.util.List;
 
 /**
  * StoreModelAPI interface representing StoreModel API for external entities such as StoreModelController
@@ -155,6 +156,21 @@ public interface StoreModelAPI {
      */
     public Product showProduct(String productId, String token) throws StoreModelException;
 
+    /**
+     * Method for listing the Products matching all of the given filters, skipping null filters. The
+     * minimum price is inclusive and the maximum price exclusive
+     *
+     * @param category
+     * @param temperature
+     * @param minPrice
+     * @param maxPrice
+     * @param token
+     * @return
+     * @throws StoreModelException
+     */
+    public List<Product> listProducts(String category, Temperature temperature, Double minPrice, Double maxPrice,
+                                      String token) throws StoreModelException;
+
     /**
      * Method for provisioning a Customer
      *
@@ -0,0 +1,309 @@
+package com.cs370.springdemo.model;
+
+import java.util.List;
+
+/**
+ * StoreModelOutcomeAPI interface representing the non throwing variant of StoreModel API. Every operation
+ * returns a ModelOutcome holding either its result or the rejected action and error code, so that
+ * rejected operations cost no exception. StoreModelAPI is implemented on top of it
+ */
+public interface StoreModelOutcomeAPI {
+
+    /**
+     * Method for Store provisioning
+     *
+     * @param storeId
+     * @param name
+     * @param address
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Store> tryProvisionStore(String storeId, String name, String address, String token);
+
+    /**
+     * Method for display Store information
+     *
+     * @param storeId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Store> tryShowStore(String storeId, String token);
+
+    /**
+     * Method for provisioning Aisle in the Store
+     *
+     * @param storeId
+     * @param aisleNumber
+     * @param name
+     * @param description
+     * @param location
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Aisle> tryProvisionAisle(String storeId, String aisleNumber, String name,
+                                                 String description, AisleLocation location, String token);
+
+    /**
+     * Method for displaying Aisle information
+     *
+     * @param storeId
+     * @param aisleNumber
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Aisle> tryShowAisle(String storeId, String aisleNumber, String token);
+
+    /**
+     * Method for provisioning Shelf in the Aisle
+     *
+     * @param storeId
+     * @param aisleNumber
+     * @param shelfId
+     * @param name
+     * @param level
+     * @param description
+     * @param temperature
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Shelf> tryProvisionShelf(String storeId, String aisleNumber, String shelfId,
+                                                 String name, ShelfLevel level, String description,
+                                                 Temperature temperature, String token);
+
+    /**
+     * Method for displaying Shelf information
+     *
+     * @param storeId
+     * @param aisleNumber
+     * @param shelfId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Shelf> tryShowShelf(String storeId, String aisleNumber, String shelfId, String token);
+
+    /**
+     * Method for provisioning Inventory on the Shelf
+     *
+     * @param inventoryId
+     * @param storeId
+     * @param aisleNumber
+     * @param shelfId
+     * @param capacity
+     * @param count
+     * @param productId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Inventory> tryProvisionInventory(String inventoryId, String storeId,
+                                                         String aisleNumber, String shelfId, int capacity,
+                                                         int count, String productId, String token);
+
+    /**
+     * Method for displaying Inventory information
+     *
+     * @param inventoryId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Inventory> tryShowInventory(String inventoryId, String token);
+
+    /**
+     * Method for updating Inventory information
+     *
+     * @param inventoryId
+     * @param count
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Inventory> tryUpdateInventory(String inventoryId, int count, String token);
+
+    /**
+     * Method for provisioning Product
+     *
+     * @param productId
+     * @param name
+     * @param description
+     * @param size
+     * @param category
+     * @param price
+     * @param temperature
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Product> tryProvisionProduct(String productId, String name, String description,
+                                                     String size, String category, double price,
+                                                     Temperature temperature, String token);
+
+    /**
+     * Method for displaying Product information
+     *
+     * @param productId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Product> tryShowProduct(String productId, String token);
+
+    /**
+     * Method for listing the Products matching all of the given filters, skipping null filters. The
+     * minimum price is inclusive and the maximum price exclusive
+     *
+     * @param category
+     * @param temperature
+     * @param minPrice
+     * @param maxPrice
+     * @param token
+     * @return
+     */
+    public ModelOutcome<List<Product>> tryListProducts(String category, Temperature temperature, Double minPrice,
+                                                       Double maxPrice, String token);
+
+    /**
+     * Method for provisioning a Customer
+     *
+     * @param customerId
+     * @param firstName
+     * @param lastName
+     * @param type
+     * @param email
+     * @param address
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Customer> tryProvisionCustomer(String customerId, String firstName, String lastName,
+                                                       CustomerType type, String email, String address,
+                                                       String token);
+
+    /**
+     * Method for updating Customer information
+     *
+     * @param customerId
+     * @param storeId
+     * @param aisleNumber
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Customer> tryUpdateCustomer(String customerId, String storeId, String aisleNumber,
+                                                    String token);
+
+    /**
+     * Method for displaying Customer information
+     *
+     * @param customerId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Customer> tryShowCustomer(String customerId, String token);
+
+    /**
+     * Method for provisioning Basket
+     *
+     * @param basketId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryProvisionBasket(String basketId, String token);
+
+    /**
+     * Method for assigning Basket to the Customer
+     *
+     * @param customerId
+     * @param basketId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryAssignCustomerBasket(String customerId, String basketId, String token);
+
+    /**
+     * Method for displaying Customer Basket information
+     *
+     * @param customerId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryGetCustomerBasket(String customerId, String token);
+
+    /**
+     * Method for adding Product to the Customer Basket
+     *
+     * @param basketId
+     * @param productId
+     * @param count
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryAddBasketProduct(String basketId, String productId, int count,
+                                                    String token);
+
+    /**
+     * Method for removing Product from Customer Basket
+     *
+     * @param basketId
+     * @param productId
+     * @param count
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryRemoveBasketProduct(String basketId, String productId, int count,
+                                                       String token);
+
+    /**
+     * Method for removing all Products from the Customer Basket
+     *
+     * @param basketId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryClearBasket(String basketId, String token);
+
+    /**
+     * Method for displaying Customer Basket information
+     *
+     * @param basketId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Basket> tryShowBasket(String basketId, String token);
+
+    /**
+     * Method for provisioning Device in the Store
+     *
+     * @param deviceId
+     * @param name
+     * @param deviceType
+     * @param storeId
+     * @param aisleNumber
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Device> tryProvisionDevice(String deviceId, String name, String deviceType,
+                                                   String storeId, String aisleNumber, String token);
+
+    /**
+     * Method for displaying Store Device information
+     *
+     * @param deviceId
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Device> tryShowDevice(String deviceId, String token);
+
+    /**
+     * Method for triggering Store Device event
+     *
+     * @param deviceId
+     * @param event
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Void> tryRaiseEvent(String deviceId, String event, String token);
+
+    /**
+     * Method for issuing Store Appliance command
+     *
+     * @param deviceId
+     * @param command
+     * @param token
+     * @return
+     */
+    public ModelOutcome<Void> tryIssueCommand(String deviceId, String command, String token);
+}
@@ -1,37 +1,56 @@
 package com.cs370.springdemo.model;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * This is the main service of the system implementing Command API for processing CLI commands and
  * ModelService API for processing Store events
  */
-public class StoreModelService implements StoreModelAPI, CommandAPI {
+public class StoreModelService implements StoreModelAPI, StoreModelOutcomeAPI, CommandAPI {
 
-    private static final Map<String, Store> storeMap;
-    private static final Map<String, Customer> customerMap;
-    private static final Map<String, Product> productMap;
-    private static final Map<String, Inventory> inventoryMap;
-    private static final Map<String, Basket> basketMap;
-    private static final Map<String, Device> deviceMap;
+    private static final IdTable<Store> storeMap;
+    private static final IdTable<Customer> customerMap;
+    private static final IdTable<Product> productMap;
+    private static final IdTable<Inventory> inventoryMap;
+    private static final IdTable<Basket> basketMap;
+    private static final IdTable<Device> deviceMap;
+    //Price, category and temperature of every provisioned Product, held in primitive columns
+    private static final ProductCatalog productCatalog;
 
     private static StoreModelService storeModelService;
 
-    // Initialize genesis block and the account list
+    //Modifications of a Store are serialized by a lock of its own, found by the dense key of the Store
+    private static final StoreLocks storeLocks = new StoreLocks();
+    //Stores holding cleared Baskets in their pool, for provisioned Baskets to reuse
+    private static final Queue<Store> poolingStores = new ConcurrentLinkedQueue<>();
+    //Optimistic copies of a Store tried before show commands copy it under the Store lock
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    //Read buffer used when streaming command files
+    private static final int FILE_BUFFER_SIZE = 1 << 20;
+
+    // Initialize genesis block and the account list. Ids are interned into dense keys when entities are
+    // provisioned; lookups do not lock so that commands of different stores can be executed in parallel
     static {
-        storeMap = new HashMap<>();
-        customerMap = new HashMap<>();
-        productMap = new HashMap<>();
-        inventoryMap = new HashMap<>();
-        basketMap = new HashMap<>();
-        deviceMap = new HashMap<>();
+        storeMap = new IdTable<>();
+        customerMap = new IdTable<>();
+        productMap = new IdTable<>();
+        inventoryMap = new IdTable<>();
+        basketMap = new IdTable<>();
+        deviceMap = new IdTable<>();
+        productCatalog = new ProductCatalog();
     }
 
     /**
@@ -49,669 +68,1303 @@ public class StoreModelService implements StoreModelAPI, CommandAPI {
 
     @Override
     public void processCommand(String commandBefore) throws CommandException, StoreModelException {
+        processCommand(commandBefore, CommandTokenizer.tokenize(commandBefore));
+    }
 
-        List<String> tokens = new ArrayList<>();
-        //Split the line into tokens between spaces and quotes
-        Matcher matcher = Pattern.compile("([^\"]\\S*|\".+?\")\\s*").matcher(commandBefore);
-        while (matcher.find())
-            tokens.add(matcher.group(1).replace("\"", ""));
-
-        System.out.println(">>> Processing DSL : " + commandBefore);
-
-        String command = commandBefore.trim().replaceAll(" +", " ");
-
-        if (command.toLowerCase().contains("define store")) {
-            Store store = provisionStore(tokens.get(2), tokens.get(4), tokens.get(6), null);
-
-            //System.out.println(store);
-        } else if (command.toLowerCase().contains("show store")) {
-
-            System.out.println("<<< " + showStore(tokens.get(2), null));
-
-        } else if (command.toLowerCase().contains("define aisle")) {
-
-            String[] location = tokens.get(2).split(":");
-            Aisle aisle = provisionAisle(location[0], location[1], tokens.get(4), tokens.get(6),
-                    AisleLocation.valueOf(tokens.get(8)), null);
-            //System.out.println(aisle);
+    /**
+     * Method for processing a command that has already been split into tokens
+     *
+     * @param commandBefore
+     * @param tokens
+     * @throws CommandException
+     * @throws StoreModelException
+     */
+    void processCommand(String commandBefore, List<String> tokens) throws CommandException, StoreModelException {
 
-        } else if (command.toLowerCase().contains("show aisle")) {
-            String[] location = tokens.get(2).split(":");
+        //Resolve the verb with a single table lookup instead of scanning the whole line for every keyword
+        processCommand(commandBefore, CommandVerb.lookup(tokens), tokens);
+    }
 
-            System.out.println("<<< " + showAisle(location[0], location[1], null));
+    /**
+     * Method for processing a command whose verb has already been resolved. A null verb is reported as
+     * an unrecognized command
+     *
+     * @param commandBefore
+     * @param verb
+     * @param tokens
+     * @throws CommandException
+     * @throws StoreModelException
+     */
+    void processCommand(String commandBefore, CommandVerb verb, List<String> tokens)
+            throws CommandException, StoreModelException {
 
-        } else if (command.toLowerCase().contains("define shelf")) {
+        OutputSinks.current().println(">>> Processing DSL : " + commandBefore);
 
-            String[] location = tokens.get(2).split(":");
-            Shelf shelf = provisionShelf(location[0], location[1], location[2], tokens.get(4), ShelfLevel.valueOf(tokens.get(6)),
-                    tokens.get(8), Temperature.valueOf(tokens.get(10)), null);
+        if (verb == null) {
+            throw new CommandException(CommandTokenizer.normalize(commandBefore), "Unrecognized Command");
+        }
 
-            //System.out.println(shelf);
+        Object result = executeCommand(verb, tokens);
+        if (verb.getOutputPrefix() != null)
+            printResult(OutputSinks.current(), verb, tokens, result);
+    }
 
-        } else if (command.toLowerCase().contains("show shelf")) {
-            String[] location = tokens.get(2).split(":");
+    /**
+     * Method for printing the result of a command with the output prefix of its verb. Stores are streamed
+     * into the sink with the options of the show store command instead of being converted to a String
+     *
+     * @param out
+     * @param verb
+     * @param tokens
+     * @param result
+     */
+    private void printResult(OutputSink out, CommandVerb verb, List<String> tokens, Object result) {
+        if (result instanceof Store store) {
+            StoreRenderer renderer = verb == CommandVerb.SHOW_STORE ? StoreRenderer.parse(tokens, 3) : StoreRenderer.text();
+            out.println(line -> renderer.render(store, line.append(verb.getOutputPrefix())));
+        } else {
+            out.println(verb.getOutputPrefix() + result);
+        }
+    }
 
-            System.out.println("<<< " + showShelf(location[0], location[1], location[2], null));
+    /**
+     * Method for executing an already tokenized command whose verb has been resolved. Returns the model
+     * object produced by the command, or null for commands without a result
+     *
+     * @param verb
+     * @param tokens
+     * @return
+     * @throws StoreModelException
+     */
+    Object executeCommand(CommandVerb verb, List<String> tokens) throws StoreModelException {
+        return executeOutcome(verb, tokens).orThrow();
+    }
 
-        } else if (command.toLowerCase().contains("define product")) {
+    /**
+     * Method for executing an already tokenized command whose verb has been resolved without throwing
+     * on rejected operations
+     *
+     * @param verb
+     * @param tokens
+     * @return
+     */
+    ModelOutcome<?> executeOutcome(CommandVerb verb, List<String> tokens) {
 
-            Product product = provisionProduct(tokens.get(2), tokens.get(4), tokens.get(6),
+        return switch (verb) {
+            case DEFINE_STORE -> tryProvisionStore(tokens.get(2), tokens.get(4), tokens.get(6), null);
+            case SHOW_STORE -> {
+                //Reject malformed rendering options before the Store is copied
+                StoreRenderer renderer;
+                try {
+                    renderer = StoreRenderer.parse(tokens, 3);
+                } catch (IllegalArgumentException e) {
+                    yield ModelOutcome.failure("Show Store", ModelError.STORE_OPTIONS_NOT_VALID);
+                }
+                yield tryShowStore(tokens.get(2), renderer, null);
+            }
+            case DEFINE_AISLE -> {
+                String[] location = tokens.get(2).split(":");
+                yield tryProvisionAisle(location[0], location[1], tokens.get(4), tokens.get(6),
+                        AisleLocation.valueOf(tokens.get(8)), null);
+            }
+            case SHOW_AISLE -> {
+                String[] location = tokens.get(2).split(":");
+                yield tryShowAisle(location[0], location[1], null);
+            }
+            case DEFINE_SHELF -> {
+                String[] location = tokens.get(2).split(":");
+                yield tryProvisionShelf(location[0], location[1], location[2], tokens.get(4), ShelfLevel.valueOf(tokens.get(6)),
+                        tokens.get(8), Temperature.valueOf(tokens.get(10)), null);
+            }
+            case SHOW_SHELF -> {
+                String[] location = tokens.get(2).split(":");
+                yield tryShowShelf(location[0], location[1], location[2], null);
+            }
+            case DEFINE_PRODUCT -> tryProvisionProduct(tokens.get(2), tokens.get(4), tokens.get(6),
                     tokens.get(8), tokens.get(10), Double.parseDouble(tokens.get(12)),
                     Temperature.valueOf(tokens.get(14)), null);
+            case SHOW_PRODUCT -> tryShowProduct(tokens.get(2), null);
+            case LIST_PRODUCT -> tryListProducts(tokens);
+            case DEFINE_INVENTORY -> {
+                String[] location = tokens.get(4).split(":");
+                yield tryProvisionInventory(tokens.get(2), location[0], location[1],
+                        location[2], Integer.parseInt(tokens.get(6)), Integer.parseInt(tokens.get(8)),
+                        tokens.get(10), null);
+            }
+            case SHOW_INVENTORY -> tryShowInventory(tokens.get(2), null);
+            case UPDATE_INVENTORY -> tryUpdateInventory(tokens.get(2), Integer.parseInt(tokens.get(4)), null);
+            case DEFINE_CUSTOMER -> tryProvisionCustomer(tokens.get(2), tokens.get(4), tokens.get(6),
+                    CustomerType.valueOf(tokens.get(8)), tokens.get(10), tokens.get(12), null);
+            case UPDATE_CUSTOMER -> {
+                String[] location = tokens.get(4).split(":");
+                yield tryUpdateCustomer(tokens.get(2), location[0], location[1], null);
+            }
+            case SHOW_CUSTOMER -> tryShowCustomer(tokens.get(2), null);
+            case DEFINE_BASKET -> tryProvisionBasket(tokens.get(2), null);
+            case ASSIGN_BASKET -> tryAssignCustomerBasket(tokens.get(4), tokens.get(2), null);
+            case GET_CUSTOMER_BASKET -> tryGetCustomerBasket(tokens.get(1), null);
+            case ADD_BASKET_ITEM -> tryAddBasketProduct(tokens.get(1), tokens.get(3), Integer.parseInt(tokens.get(5)), null);
+            case REMOVE_BASKET_ITEM -> tryRemoveBasketProduct(tokens.get(1), tokens.get(3), Integer.parseInt(tokens.get(5)), null);
+            case CLEAR_BASKET -> tryClearBasket(tokens.get(1), null);
+            case SHOW_BASKET_ITEMS -> tryShowBasket(tokens.get(2), null);
+            case DEFINE_DEVICE -> {
+                String[] location = tokens.get(8).split(":");
+                yield tryProvisionDevice(tokens.get(2), tokens.get(4),
+                        tokens.get(6), location[0], location[1], null);
+            }
+            case SHOW_DEVICE -> tryShowDevice(tokens.get(2), null);
+            case CREATE_EVENT -> tryRaiseEvent(tokens.get(2), tokens.get(4) + " " + tokens.get(5), null);
+            case CREATE_EVENT_INLINE -> tryRaiseEvent(tokens.get(1), tokens.get(3) + " " + tokens.get(4) + " " + tokens.get(5), null);
+            case CREATE_COMMAND -> tryIssueCommand(tokens.get(2), tokens.get(4) + " " + tokens.get(5), null);
+        };
+    }
 
-            //System.out.println(product);
+    @Override
+    public void processCommandFile(String fileName) {
+        Path path = FileSystems.getDefault().getPath(Path.of(fileName).toAbsolutePath().toString());
 
-        } else if (command.toLowerCase().contains("show product")) {
+        //Stream the file through a large buffer so that only the current line is held in memory
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(path),
+                StandardCharsets.UTF_8), FILE_BUFFER_SIZE)) {
+            processCommandStream(reader);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            Product product = showProduct(tokens.get(2), null);
-            System.out.println("<<< " + product);
-        } else if (command.toLowerCase().contains("define inventory")) {
+    @Override
+    public void processCommandStream(BufferedReader reader) throws IOException {
+        String line;
 
-            String[] location = tokens.get(4).split(":");
+        //Execute every line as soon as it is read, keeping track of the line number for error reporting
+        for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+            processCommandLine(line, lineNumber);
+        }
+    }
 
-            Inventory inventory = provisionInventory(tokens.get(2), location[0], location[1],
-                    location[2], Integer.parseInt(tokens.get(6)), Integer.parseInt(tokens.get(8)),
-                    tokens.get(10), null);
+    @Override
+    public void processCompiledCommandFile(String fileName) {
+        Path path = Path.of(fileName).toAbsolutePath();
 
-            //System.out.println(inventory);
-        } else if (command.toLowerCase().contains("show inventory")) {
+        //Execute the cached binary form, skipping tokenizing entirely
+        try {
+            CommandScriptCompiler.execute(CommandScriptCompiler.compileIfStale(path), this);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-            System.out.println("<<< " + showInventory(tokens.get(2), null));
+    @Override
+    public CommandBatchResult processCommandBatch(Iterator<String> commands) {
+        CommandBatchResult batch = new CommandBatchResult();
+        processCommandBatch(commands, batch);
+        return batch;
+    }
 
-        } else if (command.toLowerCase().contains("update inventory")) {
+    @Override
+    public void processCommandBatch(Iterator<String> commands, CommandBatchResult batch) {
+
+        //Failures are recorded in the result instead of being thrown and printed one by one
+        while (commands.hasNext()) {
+            String command = commands.next();
+            if (!isCommandLine(command)) {
+                batch.addSkipped(command);
+                continue;
+            }
 
-            Inventory inventory = updateInventory(tokens.get(2), Integer.parseInt(tokens.get(4)), null);
-            System.out.println(inventory);
+            List<String> tokens = CommandTokenizer.tokenize(command);
+            CommandVerb verb = CommandVerb.lookup(tokens);
+            if (verb == null) {
+                batch.addFailure(command, null, CommandStatus.UNRECOGNIZED_COMMAND,
+                        CommandTokenizer.normalize(command), "Unrecognized Command");
+                continue;
+            }
 
-        } else if (command.toLowerCase().contains("define customer")) {
+            try {
+                ModelOutcome<?> outcome = executeOutcome(verb, tokens);
+                if (outcome.isSuccess()) {
+                    batch.addResult(command, verb, outcome.getValue());
+                } else {
+                    batch.addFailure(command, verb, CommandStatus.MODEL_ERROR, outcome.getAction(), outcome.getReason());
+                }
+            } catch (RuntimeException e) {
+                //Missing or malformed arguments
+                batch.addFailure(command, verb, CommandStatus.INVALID_COMMAND,
+                        CommandTokenizer.normalize(command), e.toString());
+            }
+        }
+    }
 
-            Customer customer = provisionCustomer(tokens.get(2), tokens.get(4), tokens.get(6),
-                    CustomerType.valueOf(tokens.get(8)), tokens.get(10), tokens.get(12), null);
+    /**
+     * Method for processing a single line of a command file. Empty lines and lines that start with # are
+     * skipped, errors are reported together with the line number
+     *
+     * @param line
+     * @param lineNumber
+     */
+    void processCommandLine(String line, int lineNumber) {
 
-            //System.out.println(customer);
-        } else if (command.toLowerCase().contains("update customer")) {
+        //Filter out any empty lines and lines that start with #
+        if (isCommandLine(line)) {
+            processCommandLine(line, CommandTokenizer.tokenize(line), lineNumber);
+        }
+    }
 
-            String[] location = tokens.get(4).split(":");
-            Customer customer = updateCustomer(tokens.get(2), location[0], location[1], null);
+    /**
+     * Method for processing a tokenized line of a command file, reporting errors together with the line number
+     *
+     * @param line
+     * @param tokens
+     * @param lineNumber
+     */
+    void processCommandLine(String line, List<String> tokens, int lineNumber) {
+        processCommandLine(line, CommandVerb.lookup(tokens), tokens, lineNumber);
+    }
 
-            System.out.println("<<< " + customer);
-        } else if (command.toLowerCase().contains("show customer")) {
+    /**
+     * Method for processing a line of a command file whose verb has already been resolved, reporting
+     * errors together with the line number
+     *
+     * @param line
+     * @param verb
+     * @param tokens
+     * @param lineNumber
+     */
+    void processCommandLine(String line, CommandVerb verb, List<String> tokens, int lineNumber) {
+        OutputSink out = OutputSinks.current();
+        out.println(">>> Processing DSL : " + line);
+
+        if (verb == null) {
+            out.println("\u001B[31m" + "Failed due to: Unrecognized Command for Command: "
+                    + CommandTokenizer.normalize(line) + " On Line Number: " + lineNumber + "\u001B[0m");
+            return;
+        }
 
-            System.out.println(showCustomer(tokens.get(2), null));
-        } else if (command.toLowerCase().contains("define basket")) {
+        //Rejected operations are reported from the outcome, without throwing
+        ModelOutcome<?> outcome = executeOutcome(verb, tokens);
+        if (!outcome.isSuccess()) {
+            out.println("\u001B[31m" + "Failed due to: " + outcome.getReason() + " for Command: " + outcome.getAction()
+                    + "\u001B[0m");
+        } else if (verb.getOutputPrefix() != null) {
+            printResult(out, verb, tokens, outcome.getValue());
+        }
+    }
 
-            Basket basket = provisionBasket(tokens.get(2), null);
+    /**
+     * Method for checking whether a line of a command file holds a command rather than a comment or a blank
+     *
+     * @param line
+     * @return
+     */
+    static boolean isCommandLine(String line) {
+        String temp = line.trim();
+        return !temp.startsWith("#") && temp.length() != 0;
+    }
 
-            //System.out.println(basket);
-        } else if (command.toLowerCase().contains("assign basket")) {
+    /**
+     * Method for getting the dense key a Product id was interned to when the Product was provisioned,
+     * -1 if there is no such Product
+     *
+     * @param productId
+     * @return
+     */
+    static int productKey(String productId) {
+        return productMap.keyOf(productId);
+    }
 
-            Basket basket = assignCustomerBasket(tokens.get(4), tokens.get(2), null);
-            //System.out.println(basket);
-        } else if (command.toLowerCase().contains("get_customer_basket")) {
+    /**
+     * Method for finding the Store an Inventory is located in, null if there is no such Store
+     *
+     * @param inventory
+     * @return
+     */
+    static Store storeOf(Inventory inventory) {
+        InventoryLocation location = inventory.getInventoryLocation();
+        return location == null ? null : storeMap.get(location.getStoreId());
+    }
 
-            Basket basket = getCustomerBasket(tokens.get(1), null);
-            System.out.println("<<< " + basket);
-        } else if (command.toLowerCase().contains("add_basket_item")) {
+    /**
+     * Getter method for the catalog of all the provisioned Products, used for catalog-wide operations
+     * such as category totals and repricing
+     *
+     * @return
+     */
+    public ProductCatalog getProductCatalog() {
+        return productCatalog;
+    }
 
-            Basket basket = addBasketProduct(tokens.get(1), tokens.get(3),
-                    Integer.parseInt(tokens.get(5)), null);
-            System.out.println("<<< " + basket);
-        } else if (command.toLowerCase().contains("remove_basket_item")) {
+    /**
+     * Method for finding the id of the Store a Customer was last seen in, null if the Customer does not exist
+     * or has not entered a Store. Used to route operations to the thread owning the Store
+     *
+     * @param customerId
+     * @return
+     */
+    String customerStoreId(String customerId) {
+        Customer customer = customerMap.get(customerId);
+        StoreLocation location = customer == null ? null : customer.getStoreLocation();
+        return location == null ? null : location.getStoreId();
+    }
 
-            Basket basket = removeBasketProduct(tokens.get(1), tokens.get(3),
-                    Integer.parseInt(tokens.get(5)), null);
-            System.out.println(basket);
-        } else if (command.toLowerCase().contains("clear_basket")) {
+    /**
+     * Getter method for the number of keys of the global Basket table. Cleared Baskets retire their ids, so
+     * this is the largest number of Baskets provisioned at once
+     *
+     * @return
+     */
+    static int basketKeys() {
+        return basketMap.size();
+    }
 
-            Basket basket = clearBasket(tokens.get(1), null);
-            System.out.println("<<< " + basket);
-        } else if (command.toLowerCase().contains("show basket_items")) {
+    /**
+     * Method for finding the id of the Store a Basket is used in, null if the Basket does not exist or is not
+     * in use
+     *
+     * @param basketId
+     * @return
+     */
+    String basketStoreId(String basketId) {
+        Basket basket = basketMap.get(basketId);
+        Store store = basket == null ? null : basket.getStore();
+        return store == null ? null : store.getId();
+    }
 
-            Basket basket = showBasket(tokens.get(2), null);
-            System.out.println("<<< " + basket);
-        } else if (command.toLowerCase().contains("define device")) {
+    /**
+     * Method for finding the id of the Store an Inventory is located in, null if the Inventory does not exist
+     *
+     * @param inventoryId
+     * @return
+     */
+    String inventoryStoreId(String inventoryId) {
+        Inventory inventory = inventoryMap.get(inventoryId);
+        return inventory == null ? null : inventory.getInventoryLocation().getStoreId();
+    }
 
-            String[] location = tokens.get(8).split(":");
-            Device device = provisionDevice(tokens.get(2), tokens.get(4),
-                    tokens.get(6), location[0], location[1], null);
+    /**
+     * Method for finding the id of the Store a Device is located in, null if the Device does not exist
+     *
+     * @param deviceId
+     * @return
+     */
+    String deviceStoreId(String deviceId) {
+        Device device = deviceMap.get(deviceId);
+        return device == null || device.getStoreLocation() == null ? null : device.getStoreLocation().getStoreId();
+    }
 
-            //System.out.println(device);
-        } else if (command.toLowerCase().contains("show device")) {
-            System.out.println("<<< " + showDevice(tokens.get(2), null));
-        } else if (command.toLowerCase().contains("create event")) {
-            raiseEvent(tokens.get(2), tokens.get(4) + " " + tokens.get(5), null);
-        } else if (command.toLowerCase().contains("create_event")) {
-            raiseEvent(tokens.get(1), tokens.get(3) + " " + tokens.get(4) + " " + tokens.get(5), null);
-        } else if (command.toLowerCase().contains("create command")) {
-            issueCommand(tokens.get(2), tokens.get(4) + " " + tokens.get(5), null);
-        } else {
-            throw new CommandException(command, "Unrecognized Command");
+    /**
+     * Method for running a modification of a Store while holding the lock of the Store
+     *
+     * @param storeId
+     * @param modification
+     * @return
+     */
+    private static <T> ModelOutcome<T> withStoreLock(String storeId, Supplier<ModelOutcome<T>> modification) {
+        Store store = storeMap.get(storeId);
+        ReentrantLock lock = storeLocks.of(storeMap.keyOf(storeId));
+        lock.lock();
+        store.beginWrite();
+        try {
+            return modification.get();
+        } finally {
+            store.endWrite();
+            lock.unlock();
         }
     }
 
-    @Override
-    public void processCommandFile(String fileName) {
-        Path path = FileSystems.getDefault().getPath(Path.of(fileName).toAbsolutePath().toString());
-        List<String> tokens = new ArrayList<>();
-
-        //Process all the lines in the file
-        try (var stream = Files.lines(path)) {
-            tokens = stream
-                    .collect(Collectors.toList());
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /**
+     * Method for marking the start of a write to two Stores whose locks are held, see StoreLocks.lockBoth
+     *
+     * @param firstKey
+     * @param secondKey
+     */
+    private static void beginWrites(int firstKey, int secondKey) {
+        storeMap.get(firstKey).beginWrite();
+        if (secondKey != firstKey)
+            storeMap.get(secondKey).beginWrite();
+    }
 
-        Iterator<String> iterator = tokens.iterator();
+    /**
+     * Method for marking the end of a write to two Stores started with beginWrites
+     *
+     * @param firstKey
+     * @param secondKey
+     */
+    private static void endWrites(int firstKey, int secondKey) {
+        if (secondKey != firstKey)
+            storeMap.get(secondKey).endWrite();
+        storeMap.get(firstKey).endWrite();
+    }
 
-        //Filter out any empty lines and lines that start with #
-        for (int i = 0; iterator.hasNext(); i++) {
-            String temp = iterator.next();
-            if (!temp.trim().startsWith("#") && temp.trim().length() != 0) {
-                try {
-                    processCommand(temp);
-                } catch (CommandException e) {
-                    e.setLineNumber(i + 1);
-                    System.out.println("\u001B[31m" + "Failed due to: " + e.getReason() + " for Command: " + e.getCommand()
-                            + " On Line Number: " + e.getLineNumber() + "\u001B[0m");
-                } catch (StoreModelException e) {
-                    System.out.println("\u001B[31m" + "Failed due to: " + e.getReason() + " for Command: " + e.getAction() + "\u001B[0m");
-                }
+    /**
+     * Method for reading part of a Store without locking it. The part is taken from the published snapshot
+     * of the Store if there is a current one and the published function finds it there, and copied from the
+     * Store otherwise. Copies are retried while writers holding the Store lock or writing Inventory counts
+     * change the Store, and taken holding the lock, with shared writes held off, if they keep it busy
+     *
+     * @param store
+     * @param published
+     * @param copy
+     * @return
+     */
+    private static <T> T snapshot(Store store, Function<Store, T> published, Supplier<T> copy) {
+        for (int attempt = 0; attempt < SNAPSHOT_ATTEMPTS; attempt++) {
+            long version = store.getVersion();
+            long sharedWrites = store.getSharedWrites();
+            if ((version & 1) == 0 && Store.isIdle(sharedWrites)) {
+                Store current = store.getPublished(version, sharedWrites);
+                T snapshot = current == null ? null : published.apply(current);
+                if (snapshot != null)
+                    return snapshot;
+
+                snapshot = copy.get();
+                VarHandle.acquireFence();
+                if (store.getVersion() == version && store.getSharedWrites() == sharedWrites)
+                    return snapshot;
             }
+            Thread.onSpinWait();
         }
 
+        ReentrantLock lock = storeLocks.of(storeMap.keyOf(store.getId()));
+        lock.lock();
+        store.holdSharedWrites();
+        try {
+            return copy.get();
+        } finally {
+            store.releaseSharedWrites();
+            lock.unlock();
+        }
     }
 
     @Override
     public Store provisionStore(String storeId, String name, String address, String token)
             throws StoreModelException {
+        return tryProvisionStore(storeId, name, address, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Store> tryProvisionStore(String storeId, String name, String address, String token) {
 
         Store store = new Store(storeId, name, address);
 
-        //If Store already exists throw and exception
+        //If Store already exists reject the request
         if (storeMap.putIfAbsent(storeId, store) != null) {
-            throw new StoreModelException("Provision Store", "Store Already Exists");
+            return ModelOutcome.failure("Provision Store", ModelError.STORE_ALREADY_EXISTS);
         }
-        return store;
+        return ModelOutcome.of(store);
     }
 
     @Override
     public Store showStore(String storeId, String token) throws StoreModelException {
+        return tryShowStore(storeId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Store> tryShowStore(String storeId, String token) {
+        return tryShowStore(storeId, StoreRenderer.text(), token);
+    }
+
+    /**
+     * Method for showing what the renderer renders of a Store. The point in time copy of the Store only
+     * holds the fields and depth of the renderer
+     *
+     * @param storeId
+     * @param renderer
+     * @param token
+     * @return
+     */
+    ModelOutcome<Store> tryShowStore(String storeId, StoreRenderer renderer, String token) {
 
-        //If Store does not exist throw and exception
+        //If Store does not exist reject the request
         Store store = storeMap.get(storeId);
         if (store == null)
-            throw new StoreModelException("Show Store", "Store Does Not Exist");
-
-        return store;
+            return ModelOutcome.failure("Show Store", ModelError.STORE_DOES_NOT_EXIST);
+
+        //Return a point in time copy of the Store. Copies of the whole Store are published and shared by
+        //the reads that follow until the Store changes
+        if (renderer != StoreRenderer.text())
+            return ModelOutcome.of(snapshot(store, published -> null, () -> store.snapshot(renderer)));
+        Store snapshot = snapshot(store, published -> published, () -> store.snapshot(renderer));
+        store.publish(snapshot);
+        return ModelOutcome.of(snapshot);
     }
 
     @Override
     public Aisle provisionAisle(String storeId, String aisleNumber, String name, String description,
                                 AisleLocation location, String token) throws StoreModelException {
+        return tryProvisionAisle(storeId, aisleNumber, name, description, location, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Aisle> tryProvisionAisle(String storeId, String aisleNumber, String name, String description,
+                                                 AisleLocation location, String token) {
 
         Store store = storeMap.get(storeId);
-        Aisle aisle;
 
         //Check to see if Store already exists;
         if (store == null) {
-            throw new StoreModelException("Provision Aisle", "Store Does Not Exist");
-        } else {
-            aisle = store.addAisle(aisleNumber, name, description, location);
+            return ModelOutcome.failure("Provision Aisle", ModelError.STORE_DOES_NOT_EXIST);
         }
 
-        return aisle;
+        return withStoreLock(storeId, () -> store.tryAddAisle(aisleNumber, name, description, location));
     }
 
     @Override
     public Aisle showAisle(String storeId, String aisleNumber, String token) throws StoreModelException {
+        return tryShowAisle(storeId, aisleNumber, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Aisle> tryShowAisle(String storeId, String aisleNumber, String token) {
         Store store = storeMap.get(storeId);
-        Aisle aisle;
+
         //Check to see if Store exists
         if (store == null) {
-            throw new StoreModelException("Show Aisle", "Store Does Not Exist");
-        } else {
-            //Check to see if Aisle already exists
-            aisle = store.getAisle(aisleNumber);
-            if (aisle == null) {
-                throw new StoreModelException("Show Aisle", "Aisle Does Not Exist");
-            }
+            return ModelOutcome.failure("Show Aisle", ModelError.STORE_DOES_NOT_EXIST);
+        }
+
+        //Check to see if Aisle already exists
+        ModelOutcome<Aisle> aisle = store.tryGetAisle(aisleNumber);
+        if (!aisle.isSuccess()) {
+            return aisle;
         }
-        return aisle;
+
+        //Return a point in time copy of the Aisle
+        return ModelOutcome.of(snapshot(store, published -> published.getAisleMap().get(aisleNumber),
+                () -> aisle.getValue().snapshot(new IdentityHashMap<>())));
     }
 
     @Override
     public Shelf provisionShelf(String storeId, String aisleNumber, String shelfId, String name,
                                 ShelfLevel level, String description, Temperature temperature, String token) throws StoreModelException {
+        return tryProvisionShelf(storeId, aisleNumber, shelfId, name, level, description, temperature, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Shelf> tryProvisionShelf(String storeId, String aisleNumber, String shelfId, String name,
+                                                 ShelfLevel level, String description, Temperature temperature,
+                                                 String token) {
 
         Store store = storeMap.get(storeId);
-        Shelf shelf;
 
         //Check to see if Store exists
         if (store == null) {
-            throw new StoreModelException("Provision Shelf", "Store Does Not Exist");
-        } else {
-            Aisle aisle = store.getAisle(aisleNumber);
+            return ModelOutcome.failure("Provision Shelf", ModelError.STORE_DOES_NOT_EXIST);
+        }
+
+        return withStoreLock(storeId, () -> {
             //Check to see if Aisle exists
-            if (aisle == null) {
-                throw new StoreModelException("Provision Shelf", "Aisle Does Not Exist");
-            } else {
-                shelf = aisle.getShelf(shelfId);
-                //Check to see if Shelf exists
-                if (shelf != null) {
-                    throw new StoreModelException("Provision Shelf", "Shelf Already Exists");
-                }
+            ModelOutcome<Aisle> aisle = store.tryGetAisle(aisleNumber);
+            if (!aisle.isSuccess()) {
+                return aisle.propagate();
+            }
 
-                //Add Shelf to the Aisle
-                shelf = aisle.addShelf(shelfId, name, level, description, temperature);
+            //Check to see if Shelf exists
+            if (aisle.getValue().getShelf(shelfId) != null) {
+                return ModelOutcome.failure("Provision Shelf", ModelError.SHELF_ALREADY_EXISTS);
             }
-        }
-        return shelf;
+
+            //Add Shelf to the Aisle
+            return aisle.getValue().tryAddShelf(shelfId, name, level, description, temperature);
+        });
     }
 
     @Override
     public Shelf showShelf(String storeId, String aisleNumber, String shelfId, String token) throws StoreModelException {
+        return tryShowShelf(storeId, aisleNumber, shelfId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Shelf> tryShowShelf(String storeId, String aisleNumber, String shelfId, String token) {
         Store store = storeMap.get(storeId);
-        Shelf shelf;
 
         //Check to see if Store exists
         if (store == null) {
-            throw new StoreModelException("Show Shelf", "Store Does Not Exist");
-        } else {
-            //Check to see if Aisle exists
-            Aisle aisle = store.getAisle(aisleNumber);
-            if (aisle == null) {
-                throw new StoreModelException("Show Shelf", "Aisle Does Not Exist");
-            } else {
-                //Check to see if Shelf exists
-                shelf = aisle.getShelf(shelfId);
-                if (shelf == null) {
-                    throw new StoreModelException("Show Shelf", "Shelf Does Not Exist");
-                }
-            }
+            return ModelOutcome.failure("Show Shelf", ModelError.STORE_DOES_NOT_EXIST);
+        }
+
+        //Check to see if Aisle exists
+        ModelOutcome<Aisle> aisle = store.tryGetAisle(aisleNumber);
+        if (!aisle.isSuccess()) {
+            return aisle.propagate();
         }
-        return shelf;
+
+        //Check to see if Shelf exists
+        Shelf shelf = aisle.getValue().getShelf(shelfId);
+        if (shelf == null) {
+            return ModelOutcome.failure("Show Shelf", ModelError.SHELF_DOES_NOT_EXIST);
+        }
+
+        //Return a point in time copy of the Shelf
+        return ModelOutcome.of(snapshot(store,
+                published -> published.getAisleMap().get(aisleNumber).getShelf(shelfId),
+                () -> shelf.snapshot(new IdentityHashMap<>())));
     }
 
     @Override
     public Inventory provisionInventory(String inventoryId, String storeId, String aisleNumber, String shelfId,
                                         int capacity, int count, String productId, String token) throws StoreModelException {
+        return tryProvisionInventory(inventoryId, storeId, aisleNumber, shelfId, capacity, count, productId, token)
+                .orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Inventory> tryProvisionInventory(String inventoryId, String storeId, String aisleNumber,
+                                                         String shelfId, int capacity, int count, String productId,
+                                                         String token) {
 
         Store store = storeMap.get(storeId);
         Product product = productMap.get(productId);
-        Inventory inventory;
 
         //Check to see if Store exists
         if (store == null) {
-            throw new StoreModelException("Provision Inventory", "Store Does Not Exist");
-        } else {
+            return ModelOutcome.failure("Provision Inventory", ModelError.STORE_DOES_NOT_EXIST);
+        }
+
+        return withStoreLock(storeId, () -> {
             //Check to see if Aisle exists
-            Aisle aisle = store.getAisle(aisleNumber);
-            if (aisle == null) {
-                throw new StoreModelException("Provision Inventory", "Aisle Does Not Exist");
-            } else {
-                //Check to see if Shelf exists
-                Shelf shelf = aisle.getShelf(shelfId);
-                if (shelf == null) {
-                    throw new StoreModelException("Provision Inventory", "Shelf Does Not Exist");
-                } else if (product == null) {
-                    //Check to see if Product exists
-                    throw new StoreModelException("Provision Inventory", "Product Does Not Exist");
-                } else if (!shelf.getTemperature().equals(product.getTemperature())) {
-                    //Make sure that Product Temperature and Shelf Temperature are consistent
-                    throw new StoreModelException("Provision Inventory", "Product and Shelf Temperature " +
-                            "Is Not Consistent");
-                }
+            ModelOutcome<Aisle> aisle = store.tryGetAisle(aisleNumber);
+            if (!aisle.isSuccess()) {
+                return aisle.propagate();
+            }
 
-                //Add Inventory to the Shelf
-                inventory = shelf.addInventory(inventoryId, storeId, aisleNumber, shelfId,
-                        capacity, count, productId);
+            //Check to see if Shelf exists
+            Shelf shelf = aisle.getValue().getShelf(shelfId);
+            if (shelf == null) {
+                return ModelOutcome.failure("Provision Inventory", ModelError.SHELF_DOES_NOT_EXIST);
+            } else if (product == null) {
+                //Check to see if Product exists
+                return ModelOutcome.failure("Provision Inventory", ModelError.PRODUCT_DOES_NOT_EXIST);
+            } else if (!shelf.getTemperature().equals(product.getTemperature())) {
+                //Make sure that Product Temperature and Shelf Temperature are consistent
+                return ModelOutcome.failure("Provision Inventory", ModelError.TEMPERATURE_NOT_CONSISTENT);
+            }
 
-                //Add Inventory to the global Inventory Map
-                inventoryMap.put(inventoryId, inventory);
+            //Add Inventory to the Shelf
+            ModelOutcome<Inventory> inventory = shelf.tryAddInventory(inventoryId, storeId, aisleNumber, shelfId,
+                    capacity, count, productId);
+            if (!inventory.isSuccess()) {
+                return inventory;
+            }
 
-                //Add Inventory to the Store
-                store.addInventory(inventory);
+            //Index the Inventory by Aisle and Product for the Basket operations
+            store.indexInventory(aisle.getValue(), inventory.getValue());
 
-            }
-        }
+            //Add Inventory to the global Inventory Map
+            inventoryMap.put(inventoryId, inventory.getValue());
 
-        return inventory;
+            //Add Inventory to the Store
+            return store.tryAddInventory(inventory.getValue());
+        });
     }
 
     @Override
     public Inventory showInventory(String inventoryId, String token) throws StoreModelException {
+        return tryShowInventory(inventoryId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Inventory> tryShowInventory(String inventoryId, String token) {
 
         Inventory inventory = inventoryMap.get(inventoryId);
         //Check to see if Inventory exists
         if (inventory == null)
-            throw new StoreModelException("Show Inventory", "Inventory Does Not Exist");
-        return inventory;
+            return ModelOutcome.failure("Show Inventory", ModelError.INVENTORY_DOES_NOT_EXIST);
+
+        //Return a copy of the Inventory, whose count is read atomically
+        return ModelOutcome.of(inventory.snapshot());
     }
 
     @Override
     public Inventory updateInventory(String inventoryId, int count, String token) throws StoreModelException {
+        return tryUpdateInventory(inventoryId, count, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Inventory> tryUpdateInventory(String inventoryId, int count, String token) {
         Inventory inventory = inventoryMap.get(inventoryId);
         //Check to see if Inventory exists
         if (inventory == null)
-            throw new StoreModelException("Update Inventory", "Inventory Does Not Exist");
-
-        //Update Inventory count
-        inventory.updateInventory(count);
+            return ModelOutcome.failure("Update Inventory", ModelError.INVENTORY_DOES_NOT_EXIST);
 
-        return inventory;
+        //Update Inventory count, which is atomic without the Store lock
+        return inventory.tryUpdateInventory(count);
     }
 
     @Override
     public Product provisionProduct(String productId, String name, String description, String size, String category,
                                     double price, Temperature temperature, String token) throws StoreModelException {
+        return tryProvisionProduct(productId, name, description, size, category, price, temperature, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Product> tryProvisionProduct(String productId, String name, String description, String size,
+                                                     String category, double price, Temperature temperature,
+                                                     String token) {
         Product product = new Product(productId, name, description, size, category, price, temperature);
 
         //Check to see if Product already exists
         if (productMap.putIfAbsent(productId, product) != null)
-            throw new StoreModelException("Provision Product", "Product Already Exists");
+            return ModelOutcome.failure("Provision Product", ModelError.PRODUCT_ALREADY_EXISTS);
+
+        productCatalog.add(product);
+        return ModelOutcome.of(product);
+    }
+
+    @Override
+    public List<Product> listProducts(String category, Temperature temperature, Double minPrice, Double maxPrice,
+                                      String token) throws StoreModelException {
+        return tryListProducts(category, temperature, minPrice, maxPrice, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<List<Product>> tryListProducts(String category, Temperature temperature, Double minPrice,
+                                                       Double maxPrice, String token) {
+        //Intersects the catalog indexes instead of scanning every Product
+        return ModelOutcome.of(productCatalog.find(category, temperature, minPrice, maxPrice).toList());
+    }
 
-        return product;
+    /**
+     * Method for listing Products from a list product command. Filters follow the where keyword as
+     * keyword value pairs in any order: category, temperature, price_from (inclusive) and price_under.
+     * Malformed filters are rejected without throwing
+     *
+     * @param tokens
+     * @return
+     */
+    private ModelOutcome<List<Product>> tryListProducts(List<String> tokens) {
+        if (tokens.size() > 2 && (!tokens.get(2).equalsIgnoreCase("where") || tokens.size() % 2 == 0))
+            return ModelOutcome.failure("List Product", ModelError.PRODUCT_FILTER_NOT_VALID);
+
+        String category = null;
+        Temperature temperature = null;
+        Double minPrice = null;
+        Double maxPrice = null;
+        try {
+            for (int i = 3; i < tokens.size(); i += 2) {
+                String value = tokens.get(i + 1);
+                switch (tokens.get(i).toLowerCase(Locale.ROOT)) {
+                    case "category" -> category = value;
+                    case "temperature" -> temperature = Temperature.valueOf(value);
+                    case "price_from" -> minPrice = Double.parseDouble(value);
+                    case "price_under" -> maxPrice = Double.parseDouble(value);
+                    default -> {
+                        return ModelOutcome.failure("List Product", ModelError.PRODUCT_FILTER_NOT_VALID);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            //Unknown temperature or a price that is not a number
+            return ModelOutcome.failure("List Product", ModelError.PRODUCT_FILTER_NOT_VALID);
+        }
+        return tryListProducts(category, temperature, minPrice, maxPrice, null);
     }
 
     @Override
     public Product showProduct(String productId, String token) throws StoreModelException {
+        return tryShowProduct(productId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Product> tryShowProduct(String productId, String token) {
         Product product = productMap.get(productId);
         //Check to see if Product exists
         if (product == null)
-            throw new StoreModelException("Show Product", "Product Does Not Exist");
-        return product;
+            return ModelOutcome.failure("Show Product", ModelError.PRODUCT_DOES_NOT_EXIST);
+        return ModelOutcome.of(product);
     }
 
     @Override
     public Customer provisionCustomer(String customerId, String firstName, String lastName,
                                       CustomerType type, String email, String address, String token)
             throws StoreModelException {
+        return tryProvisionCustomer(customerId, firstName, lastName, type, email, address, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Customer> tryProvisionCustomer(String customerId, String firstName, String lastName,
+                                                       CustomerType type, String email, String address,
+                                                       String token) {
 
         Customer customer = new Customer(customerId, firstName, lastName, type, email, address);
         //Check to see if the Customer already exists
         if (customerMap.putIfAbsent(customerId, customer) != null)
-            throw new StoreModelException("Provision Customer", "Customer Already Exists");
+            return ModelOutcome.failure("Provision Customer", ModelError.CUSTOMER_ALREADY_EXISTS);
 
-        return customer;
+        return ModelOutcome.of(customer);
     }
 
     @Override
     public Customer updateCustomer(String customerId, String storeId, String aisleNumber, String token)
             throws StoreModelException {
+        return tryUpdateCustomer(customerId, storeId, aisleNumber, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Customer> tryUpdateCustomer(String customerId, String storeId, String aisleNumber,
+                                                    String token) {
         Store store = storeMap.get(storeId);
-        Customer customer;
 
         //Check to see if the Store exists
         if (store == null) {
-            throw new StoreModelException("Update Customer", "Store Does Not Exist");
-        } else {
-            //Check to see if Aisle exists
-            Aisle aisle = store.getAisle(aisleNumber);
-            if (aisle == null) {
-                throw new StoreModelException("Update Customer", "Aisle Does Not Exist");
-            } else {
-                //Check to see if Customer exists
-                customer = customerMap.get(customerId);
-                if (customer == null) {
-                    throw new StoreModelException("Update Customer", "Customer Does Not Exist");
-                }
-            }
+            return ModelOutcome.failure("Update Customer", ModelError.STORE_DOES_NOT_EXIST);
         }
 
-        //Check to see if Customer changing Stores
-        if (customer.getStoreLocation() != null && !customer.getStoreLocation().getStoreId().equals(storeId)) {
-            //Check to see if Customer already exists in other Stores
-            Map<Store, Customer> customerStores = storeMap.entrySet()
-                    .stream()
-                    .filter(tempStore -> (tempStore.getValue().getCustomer(customerId) != null && tempStore.getValue().getCustomer(customerId).getId().equals(customerId)))
-                    .collect(Collectors.toMap(Map.Entry::getValue, tempStore -> tempStore.getValue().
-                            getCustomer(customerId)));
+        //Check to see if Aisle exists
+        ModelOutcome<Aisle> aisle = store.tryGetAisle(aisleNumber);
+        if (!aisle.isSuccess()) {
+            return aisle.propagate();
+        }
+
+        //Check to see if Customer exists
+        Customer customer = customerMap.get(customerId);
+        if (customer == null) {
+            return ModelOutcome.failure("Update Customer", ModelError.CUSTOMER_DOES_NOT_EXIST);
+        }
+
+        //Lock the target Store together with the Store the Customer is in, retrying if the Customer moved meanwhile
+        int storeKey = storeMap.keyOf(storeId);
+        while (true) {
+            StoreLocation current = customer.getStoreLocation();
+            int currentKey = current == null ? storeKey : storeMap.keyOf(current.getStoreId());
+            storeLocks.lockBoth(storeKey, currentKey);
+            beginWrites(storeKey, currentKey);
+            try {
+                if (customer.getStoreLocation() == current)
+                    return tryMoveCustomer(customer, store, storeId, aisleNumber);
+            } finally {
+                endWrites(storeKey, currentKey);
+                storeLocks.unlockBoth(storeKey, currentKey);
+            }
+        }
+    }
 
-            //If Customer exist in other stores remove him/her
-            customerStores.forEach((key, value) -> key.removeCustomer(customer));
+    /**
+     * Method for moving a Customer to an Aisle of a Store. The Customer is held by the Customer map of the
+     * Store its location is in. Called with the locks of the target Store and of the Store the Customer is in
+     *
+     * @param customer
+     * @param store
+     * @param storeId
+     * @param aisleNumber
+     * @return
+     */
+    private ModelOutcome<Customer> tryMoveCustomer(Customer customer, Store store, String storeId, String aisleNumber) {
+        StoreLocation location = customer.getStoreLocation();
+        boolean changingStores = location != null && !location.getStoreId().equals(storeId);
 
+        //Check to see if Customer changing Stores
+        if (changingStores) {
             //Before Customer can change the Store he/she must clear the Basket
-            if (customer.getBasket() != null)
-                customer.getBasket().clearBasket();
+            Basket basket = customer.getBasket();
+            if (basket != null) {
+                synchronized (basket) {
+                    ModelOutcome<Basket> cleared = basket.tryClearBasket();
+                    if (!cleared.isSuccess())
+                        return cleared.propagate();
+                    recycleBasket(basket);
+                }
+            }
+
+            //If Customer exists in another Store remove him/her
+            Store currentStore = customer.getCurrentStore();
+            if (currentStore != null) {
+                currentStore.removeCustomer(customer);
+            }
 
             //If the Customer moves to a different Store clear out the basket and the time seen
             customer.assignBasket(null);
             customer.setLastSeen(null);
+        }
 
-            //Add Customer to another store
-            store.addCustomer(customer);
-        } else {
+        //Add Customer to the Store he/she enters
+        if (customer.getCurrentStore() != store) {
+            ModelOutcome<Customer> added = store.tryAddCustomer(customer);
+            if (!added.isSuccess())
+                return added;
+        }
 
-            customer.setStoreLocation(new StoreLocation(storeId, aisleNumber));
+        //The time seen is only kept while the Customer stays in the Store
+        customer.setStoreLocation(new StoreLocation(storeId, aisleNumber));
+        if (!changingStores)
             customer.setLastSeen(new Date(System.currentTimeMillis()));
-        }
 
-        return customer;
+        return ModelOutcome.of(customer);
     }
 
     @Override
     public Customer showCustomer(String customerId, String token) throws StoreModelException {
+        return tryShowCustomer(customerId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Customer> tryShowCustomer(String customerId, String token) {
 
         //Check to see if the Customer exists
         Customer customer = customerMap.get(customerId);
         if (customer == null)
-            throw new StoreModelException("Show Customer", "Customer Does Not Exist");
+            return ModelOutcome.failure("Show Customer", ModelError.CUSTOMER_DOES_NOT_EXIST);
 
-        return customer;
+        return ModelOutcome.of(customer);
     }
 
     @Override
     public Basket provisionBasket(String basketId, String token) throws StoreModelException {
+        return tryProvisionBasket(basketId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryProvisionBasket(String basketId, String token) {
 
-        Basket basket = new Basket(basketId);
         //Check if Basket already exists
+        if (basketMap.get(basketId) != null)
+            return ModelOutcome.failure("Provision Basket", ModelError.BASKET_ALREADY_EXISTS);
+
+        //Reuse a Basket cleared in a Store if there is one
+        Store store = poolingStores.peek();
+        Basket pooled = store == null ? null : store.takeBasket(poolingStores);
+        Basket basket = pooled == null ? new Basket(basketId) : pooled.reuse(basketId);
         if (basketMap.putIfAbsent(basketId, basket) != null)
-            throw new StoreModelException("Provision Basket", "Basket Already Exists");
+            return ModelOutcome.failure("Provision Basket", ModelError.BASKET_ALREADY_EXISTS);
 
-        return basket;
+        return ModelOutcome.of(basket);
     }
 
     @Override
     public Basket assignCustomerBasket(String customerId, String basketId, String token) throws StoreModelException {
+        return tryAssignCustomerBasket(customerId, basketId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryAssignCustomerBasket(String customerId, String basketId, String token) {
 
         Customer customer = customerMap.get(customerId);
         Basket basket = basketMap.get(basketId);
 
         //Check to see Customer and the Basket already exist
         if (customer == null) {
-            throw new StoreModelException("Assign Customer Basket", "Customer Does Not Exist");
-        } else {
-            if (basket == null) {
-                throw new StoreModelException("Assign Customer Basket", "Basket Does Not Exist");
-            }
+            return ModelOutcome.failure("Assign Customer Basket", ModelError.CUSTOMER_DOES_NOT_EXIST);
+        } else if (basket == null) {
+            return ModelOutcome.failure("Assign Customer Basket", ModelError.BASKET_DOES_NOT_EXIST);
         }
 
-        //Assign Basket to the Customer
-        customer.assignBasket(basket);
-        //Keep the global copy of all the baskets
-        basketMap.put(basketId, basket);
-
-        Store store = storeMap.get(customerMap.get(customerId).getStoreLocation().getStoreId());
-
-        //Associate basket with the customer
-        basket.setCustomer(customer);
-        //Create bidirectional association between Store and the Basket
-        basket.setStore(store);
-        store.addBasket(basket);
-
-        return basket;
+        //Lock the Store the Customer is in together with the Store the Basket was used in, retrying if either changed
+        while (true) {
+            //Check to see if the Customer has entered a Store
+            StoreLocation location = customer.getStoreLocation();
+            if (location == null) {
+                return ModelOutcome.failure("Assign Customer Basket", ModelError.CUSTOMER_NOT_IN_STORE);
+            }
+            Store previous = basket.getStore();
+            int storeKey = storeMap.keyOf(location.getStoreId());
+            int previousKey = previous == null ? storeKey : storeMap.keyOf(previous.getId());
+            storeLocks.lockBoth(storeKey, previousKey);
+            beginWrites(storeKey, previousKey);
+            try {
+                if (customer.getStoreLocation() != location || basket.getStore() != previous)
+                    continue;
+
+                Store store = storeMap.get(location.getStoreId());
+
+                //Associate basket with the customer and create bidirectional association between Store and the Basket,
+                //on the Basket so that Basket operations see both or neither
+                synchronized (basket) {
+                    //The Basket may have been cleared and reused under another id since it was found
+                    if (basketMap.get(basketId) != basket) {
+                        return ModelOutcome.failure("Assign Customer Basket", ModelError.BASKET_DOES_NOT_EXIST);
+                    }
+                    //Assign Basket to the Customer
+                    customer.assignBasket(basket);
+                    basket.setCustomer(customer);
+                    basket.setStore(store);
+                }
+                return store.tryAddBasket(basket);
+            } finally {
+                endWrites(storeKey, previousKey);
+                storeLocks.unlockBoth(storeKey, previousKey);
+            }
+        }
     }
 
     @Override
     public Basket getCustomerBasket(String customerId, String token) throws StoreModelException {
+        return tryGetCustomerBasket(customerId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryGetCustomerBasket(String customerId, String token) {
         Customer customer = customerMap.get(customerId);
-        Basket basket;
 
         //Check if Customer exists
         if (customer == null) {
-            throw new StoreModelException("Get Customer Basket", "Customer Does Not Exist");
-        } else {
-            basket = customer.getBasket();
-            //Check to see if Customer has been assigned the Basket
-            if (basket == null) {
-                throw new StoreModelException("Get Customer Basket", "Customer Does Not Have a Basket");
-            }
+            return ModelOutcome.failure("Get Customer Basket", ModelError.CUSTOMER_DOES_NOT_EXIST);
+        }
+
+        //Check to see if Customer has been assigned the Basket
+        Basket basket = customer.getBasket();
+        if (basket == null) {
+            return ModelOutcome.failure("Get Customer Basket", ModelError.CUSTOMER_HAS_NO_BASKET);
         }
-        return basket;
+        return ModelOutcome.of(basket);
     }
 
     @Override
     public Basket addBasketProduct(String basketId, String productId, int count, String token)
             throws StoreModelException {
+        return tryAddBasketProduct(basketId, productId, count, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryAddBasketProduct(String basketId, String productId, int count, String token) {
         Basket basket = basketMap.get(basketId);
         Product product = productMap.get(productId);
 
         //Check to see if basket already exists product we are trying to add to the basket
         //exists as well and basket has been assigned to the customer
         if (basket == null) {
-            throw new StoreModelException("Add Basket Product", "Basket Does Not Exist");
+            return ModelOutcome.failure("Add Basket Product", ModelError.BASKET_DOES_NOT_EXIST);
         } else if (product == null) {
-            throw new StoreModelException("Add Basket Product", "Product Does Not Exist");
-        } else if (basket.getCustomer() == null) {
-            throw new StoreModelException("Add Basket Product", "Basket Has Not Being Assigned");
+            return ModelOutcome.failure("Add Basket Product", ModelError.PRODUCT_DOES_NOT_EXIST);
         }
-        //Add a product to the basket
-        basket.addProduct(productId, count);
 
-        return basket;
+        //Basket operations are serialized on the Basket, Inventory counts change atomically without locks
+        synchronized (basket) {
+            //The Basket may have been cleared and reused under another id since it was found
+            if (basketMap.get(basketId) != basket) {
+                return ModelOutcome.failure("Add Basket Product", ModelError.BASKET_DOES_NOT_EXIST);
+            } else if (basket.getCustomer() == null) {
+                return ModelOutcome.failure("Add Basket Product", ModelError.BASKET_NOT_ASSIGNED);
+            }
+            //Add a product to the basket
+            return basket.tryAddProduct(productId, count);
+        }
     }
 
     @Override
     public Basket removeBasketProduct(String basketId, String productId, int count, String token) throws StoreModelException {
+        return tryRemoveBasketProduct(basketId, productId, count, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryRemoveBasketProduct(String basketId, String productId, int count, String token) {
         Basket basket = basketMap.get(basketId);
         Product product = productMap.get(productId);
 
         //Check to see if basket already exists product we are trying to add to the basket
         //exists as well and basket has been assigned to the customer
         if (basket == null) {
-            throw new StoreModelException("Remove Basket Product", "Basket Does Not Exist");
+            return ModelOutcome.failure("Remove Basket Product", ModelError.BASKET_DOES_NOT_EXIST);
         } else if (product == null) {
-            throw new StoreModelException("Remove Basket Product", "Product Does Not Exist");
-        } else if (basket.getCustomer() == null) {
-            throw new StoreModelException("Remove Basket Product", "Basket Has Not Being Assigned");
+            return ModelOutcome.failure("Remove Basket Product", ModelError.PRODUCT_DOES_NOT_EXIST);
         }
-        //Remove product from the basket
-        basket.removeProduct(productId, count);
 
-        return basket;
+        synchronized (basket) {
+            //The Basket may have been cleared and reused under another id since it was found
+            if (basketMap.get(basketId) != basket) {
+                return ModelOutcome.failure("Remove Basket Product", ModelError.BASKET_DOES_NOT_EXIST);
+            } else if (basket.getCustomer() == null) {
+                return ModelOutcome.failure("Remove Basket Product", ModelError.BASKET_NOT_ASSIGNED);
+            }
+            //Remove product from the basket
+            return basket.tryRemoveProduct(productId, count);
+        }
     }
 
     @Override
     public Basket clearBasket(String basketId, String token) throws StoreModelException {
+        return tryClearBasket(basketId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryClearBasket(String basketId, String token) {
 
         Basket basket = basketMap.get(basketId);
 
         //Check to see if basket already exists and basket has been assigned to the customer
         if (basket == null) {
-            throw new StoreModelException("Clear Basket", "Basket Does Not Exist");
-        } else if (basket.getCustomer() == null) {
-            throw new StoreModelException("Clear Basket", "Basket Has Not Being Assigned");
+            return ModelOutcome.failure("Clear Basket", ModelError.BASKET_DOES_NOT_EXIST);
         }
-        basket.clearBasket();
 
-        return basket;
+        //Clearing drops the Basket from its Store, so it holds the lock of the Store like every other change
+        //to it. The Basket only moves to another Store holding the lock of both, so it is checked once locked
+        while (true) {
+            Store store = basket.getStore();
+            ModelOutcome<Basket> cleared = store == null ? clearBasket(basketId, basket)
+                    : withStoreLock(store.getId(), () -> basket.getStore() == store ? clearBasket(basketId, basket) : null);
+            if (cleared != null)
+                return cleared;
+        }
+    }
+
+    /**
+     * Method for clearing an assigned Basket and recycling it
+     *
+     * @param basketId
+     * @param basket
+     * @return
+     */
+    private ModelOutcome<Basket> clearBasket(String basketId, Basket basket) {
+        synchronized (basket) {
+            if (basketMap.get(basketId) != basket) {
+                return ModelOutcome.failure("Clear Basket", ModelError.BASKET_DOES_NOT_EXIST);
+            } else if (basket.getCustomer() == null) {
+                return ModelOutcome.failure("Clear Basket", ModelError.BASKET_NOT_ASSIGNED);
+            }
+            ModelOutcome<Basket> cleared = basket.tryClearBasket();
+            if (cleared.isSuccess())
+                recycleBasket(basket);
+            return cleared;
+        }
+    }
+
+    /**
+     * Method for retiring the id of a cleared Basket and returning the Basket to the pool of its Store, so that
+     * neither the Store nor the global table keep Baskets that are no longer in use. Called holding the monitor
+     * of the Basket
+     *
+     * @param basket
+     */
+    private void recycleBasket(Basket basket) {
+        basketMap.remove(basket.getId(), basket);
+        Store store = basket.getStore();
+        if (store != null)
+            store.releaseBasket(basket, poolingStores);
     }
 
     @Override
     public Basket showBasket(String basketId, String token) throws StoreModelException {
+        return tryShowBasket(basketId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Basket> tryShowBasket(String basketId, String token) {
         Basket basket = basketMap.get(basketId);
 
         //Check to see if basket already exists and basket has been assigned to the customer
         if (basket == null) {
-            throw new StoreModelException("Show Basket Product", "Basket Does Not Exist");
+            return ModelOutcome.failure("Show Basket Product", ModelError.BASKET_DOES_NOT_EXIST);
         } else if (basket.getCustomer() == null) {
-            throw new StoreModelException("Show Basket Product", "Basket Has Not Being Assigned");
+            return ModelOutcome.failure("Show Basket Product", ModelError.BASKET_NOT_ASSIGNED);
         }
 
-        return basket;
+        return ModelOutcome.of(basket);
     }
 
     @Override
     public Device provisionDevice(String deviceId, String name, String deviceType, String storeId,
                                   String aisleNumber, String token) throws StoreModelException {
+        return tryProvisionDevice(deviceId, name, deviceType, storeId, aisleNumber, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Device> tryProvisionDevice(String deviceId, String name, String deviceType, String storeId,
+                                                   String aisleNumber, String token) {
 
         Store store = storeMap.get(storeId);
-        Device device;
-        StoreLocation storeLocation;
 
         //Check to see if store exists
         if (store == null) {
-            throw new StoreModelException("Provision Device", "Store Does Not Exist");
-        } else {
+            return ModelOutcome.failure("Provision Device", ModelError.STORE_DOES_NOT_EXIST);
+        }
 
-            //Check to see if aisle exists
-            Aisle aisle = store.getAisle(aisleNumber);
-            if (aisle == null) {
-                throw new StoreModelException("Provision Device", "Aisle Does Not Exist");
-            } else {
-                storeLocation = new StoreLocation(storeId, aisleNumber);
-
-                //Check to see if device already exists
-                device = deviceMap.get(deviceId);
-                if (device != null) {
-                    throw new StoreModelException("Provision Device", "Device Already Exists");
-                }
+        return withStoreLock(storeId, () -> tryAddDevice(store, deviceId, name, deviceType, storeId, aisleNumber));
+    }
 
-                //Determine wha type of device we are trying to add
-                for (SensorType sensor : SensorType.values()) {
-                    if (sensor.name().equals(deviceType)) {
-                        device = new Sensor(deviceId, name, storeLocation, deviceType);
-                    }
-                }
-                for (ApplianceType appliance : ApplianceType.values()) {
-                    if (appliance.name().equals(deviceType)) {
-                        device = new Appliance(deviceId, name, storeLocation, deviceType);
-                    }
-                }
+    /**
+     * Method for creating a Device and adding it to a Store. Called with the lock of the Store
+     *
+     * @param store
+     * @param deviceId
+     * @param name
+     * @param deviceType
+     * @param storeId
+     * @param aisleNumber
+     * @return
+     */
+    private ModelOutcome<Device> tryAddDevice(Store store, String deviceId, String name, String deviceType,
+                                              String storeId, String aisleNumber) {
+        Device device;
 
-                //Add device to the global map
-                deviceMap.put(deviceId, device);
-                //Add device to the local store
-                store.addDevice(device);
+        //Check to see if aisle exists
+        ModelOutcome<Aisle> aisle = store.tryGetAisle(aisleNumber);
+        if (!aisle.isSuccess()) {
+            return aisle.propagate();
+        }
+        StoreLocation storeLocation = new StoreLocation(storeId, aisleNumber);
+
+        //Check to see if device already exists
+        device = deviceMap.get(deviceId);
+        if (device != null) {
+            return ModelOutcome.failure("Provision Device", ModelError.DEVICE_ALREADY_EXISTS);
+        }
 
+        //Determine wha type of device we are trying to add
+        for (SensorType sensor : SensorType.values()) {
+            if (sensor.name().equals(deviceType)) {
+                device = new Sensor(deviceId, name, storeLocation, deviceType);
             }
         }
-        return device;
+        for (ApplianceType appliance : ApplianceType.values()) {
+            if (appliance.name().equals(deviceType)) {
+                device = new Appliance(deviceId, name, storeLocation, deviceType);
+            }
+        }
+
+        //Add device to the global map unless another Store provisioned it in the meantime
+        if (deviceMap.putIfAbsent(deviceId, device) != null) {
+            return ModelOutcome.failure("Provision Device", ModelError.DEVICE_ALREADY_EXISTS);
+        }
+        //Add device to the local store
+        return store.tryAddDevice(device);
     }
 
     @Override
     public Device showDevice(String deviceId, String token) throws StoreModelException {
+        return tryShowDevice(deviceId, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Device> tryShowDevice(String deviceId, String token) {
         Device device = deviceMap.get(deviceId);
 
         //Check to see if device exists
         if (device == null)
-            throw new StoreModelException("Show Device", "Device Does Not Exist");
+            return ModelOutcome.failure("Show Device", ModelError.DEVICE_DOES_NOT_EXIST);
 
-        return device;
+        return ModelOutcome.of(device);
     }
 
     @Override
     public void raiseEvent(String deviceId, String event, String token) throws StoreModelException {
+        tryRaiseEvent(deviceId, event, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Void> tryRaiseEvent(String deviceId, String event, String token) {
         Device device = deviceMap.get(deviceId);
 
         //Check to see if device exists
         if (device == null) {
-            throw new StoreModelException("Raise Event", "Device Does Not Exist");
+            return ModelOutcome.failure("Raise Event", ModelError.DEVICE_DOES_NOT_EXIST);
         }
         device.processEvent(event);
-
+        return ModelOutcome.empty();
     }
 
     @Override
     public void issueCommand(String deviceId, String command, String token) throws StoreModelException {
+        tryIssueCommand(deviceId, command, token).orThrow();
+    }
+
+    @Override
+    public ModelOutcome<Void> tryIssueCommand(String deviceId, String command, String token) {
 
         Appliance appliance = (Appliance) deviceMap.get(deviceId);
 
         //Check to see if appliance exists
         if (appliance == null) {
-            throw new StoreModelException("Issue Command", "Device Does Not Exist");
+            return ModelOutcome.failure("Issue Command", ModelError.DEVICE_DOES_NOT_EXIST);
         }
         appliance.processCommand(command);
+        return ModelOutcome.empty();
     }
 }
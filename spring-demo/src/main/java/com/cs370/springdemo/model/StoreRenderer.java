@@ -0,0 +1,496 @@
+package com.cs370.springdemo.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Renderer writing a Store straight to an Appendable, piece by piece, instead of concatenating the whole
+ * Store into one String. The text format is the one of Store.toString; the JSON format keys every
+ * collection by id.
+ *
+ * The depth limits how far collections are expanded: the Store is at depth 0, its Aisles, Devices,
+ * Customers, Inventory and Baskets at depth 1, Shelves at depth 2 and Shelf Inventory at depth 3.
+ * Collections below the depth limit are rendered as their size. The fields select which fields of the
+ * Store itself are rendered.
+ */
+public final class StoreRenderer {
+
+    /**
+     * Output formats of the renderer
+     */
+    public enum Format {
+        text,
+        json
+    }
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    //Fields of the Store in rendering order
+    private static final List<String> FIELDS = List.of("id", "address", "description", "aisles", "devices",
+            "customers", "inventory", "baskets");
+    private static final StoreRenderer TEXT = new StoreRenderer(Format.text, UNLIMITED, null);
+
+    private final Format format;
+    private final int depth;
+    private final Set<String> fields;
+
+    /**
+     * Constructor for the StoreRenderer class. Null fields render every field of the Store
+     *
+     * @param format
+     * @param depth
+     * @param fields
+     */
+    public StoreRenderer(Format format, int depth, Set<String> fields) {
+        if (depth < 0)
+            throw new IllegalArgumentException("Depth must not be negative");
+        if (fields != null && !FIELDS.containsAll(fields))
+            throw new IllegalArgumentException("Unknown Store fields " + fields + ", expected some of " + FIELDS);
+        this.format = format;
+        this.depth = depth;
+        this.fields = fields;
+    }
+
+    /**
+     * Method for getting the renderer of the full Store in the text format of Store.toString
+     *
+     * @return
+     */
+    public static StoreRenderer text() {
+        return TEXT;
+    }
+
+    /**
+     * Method for creating a renderer from the options of a show store command, given as keyword value
+     * pairs starting at the given token: depth, fields (comma separated) and format. Throws
+     * IllegalArgumentException if the options are malformed
+     *
+     * @param tokens
+     * @param from
+     * @return
+     */
+    static StoreRenderer parse(List<String> tokens, int from) {
+        if (tokens.size() <= from)
+            return TEXT;
+
+        Format format = Format.text;
+        int depth = UNLIMITED;
+        Set<String> fields = null;
+        for (int i = from; i < tokens.size(); i += 2) {
+            if (i + 1 == tokens.size())
+                throw new IllegalArgumentException("Missing value of show store option " + tokens.get(i));
+            String value = tokens.get(i + 1);
+            switch (tokens.get(i).toLowerCase(Locale.ROOT)) {
+                case "depth" -> depth = Integer.parseInt(value);
+                case "fields" -> fields = new LinkedHashSet<>(Arrays.asList(value.toLowerCase(Locale.ROOT).split(",")));
+                case "format" -> format = Format.valueOf(value.toLowerCase(Locale.ROOT));
+                default -> throw new IllegalArgumentException("Unknown show store option " + tokens.get(i));
+            }
+        }
+        return new StoreRenderer(format, depth, fields);
+    }
+
+    /**
+     * Method for checking whether a field of the Store is rendered
+     *
+     * @param field
+     * @return
+     */
+    boolean renders(String field) {
+        return fields == null || fields.contains(field);
+    }
+
+    /**
+     * Method for checking whether collections at the given depth are rendered in full rather than as
+     * their size
+     *
+     * @param level
+     * @return
+     */
+    boolean expands(int level) {
+        return level <= depth;
+    }
+
+    /**
+     * Method for rendering a Store into a String
+     *
+     * @param store
+     * @return
+     */
+    public String render(Store store) {
+        StringBuilder out = new StringBuilder();
+        try {
+            render(store, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Method for rendering a Store to an Appendable
+     *
+     * @param store
+     * @param out
+     * @throws IOException
+     */
+    public void render(Store store, Appendable out) throws IOException {
+        if (format == Format.json) {
+            renderJson(store, out);
+            return;
+        }
+
+        out.append("Store{");
+        String separator = "";
+        for (String field : FIELDS) {
+            if (!renders(field))
+                continue;
+            out.append(separator);
+            separator = ", ";
+            switch (field) {
+                case "id" -> out.append("id='").append(store.getId()).append('\'');
+                case "address" -> out.append("address='").append(store.getAddress()).append('\'');
+                case "description" -> out.append("description='").append(store.getDescription()).append('\'');
+                case "aisles" -> {
+                    out.append("aislesMap=");
+                    if (collapsed(out, store.getAisleMap(), 1))
+                        break;
+                    String entrySeparator = "";
+                    out.append('{');
+                    for (Map.Entry<String, Aisle> entry : store.getAisleMap().entrySet()) {
+                        out.append(entrySeparator).append(entry.getKey()).append('=');
+                        renderText(entry.getValue(), out);
+                        entrySeparator = ", ";
+                    }
+                    out.append('}');
+                }
+                case "devices" -> renderText("deviceMap=", store.getDeviceMap(), out);
+                case "customers" -> renderText("customerMap=", store.getCustomerMap(), out);
+                case "inventory" -> {
+                    out.append("inventoryMap=");
+                    renderText(store.getInventoryMap(), 1, out);
+                }
+                case "baskets" -> renderText("basketMap=", store.getBasketMap(), out);
+            }
+        }
+        out.append('}');
+    }
+
+    private void renderText(Aisle aisle, Appendable out) throws IOException {
+        out.append("Aisle{number='").append(aisle.getNumber())
+                .append("', name='").append(aisle.getName())
+                .append("', description='").append(aisle.getDescription())
+                .append("', aisleLocation=").append(String.valueOf(aisle.getAisleLocation()))
+                .append(", shelfMap=");
+        Map<String, Shelf> shelfMap = aisle.getShelfMap();
+        if (!collapsed(out, shelfMap, 2)) {
+            String separator = "";
+            out.append('{');
+            for (Map.Entry<String, Shelf> entry : shelfMap.entrySet()) {
+                Shelf shelf = entry.getValue();
+                out.append(separator).append(entry.getKey()).append("=Shelf{id='").append(shelf.getId())
+                        .append("', name='").append(shelf.getName())
+                        .append("', level=").append(String.valueOf(shelf.getLevel()))
+                        .append(", description='").append(shelf.getDescription())
+                        .append("', temperature=").append(String.valueOf(shelf.getTemperature()))
+                        .append(", inventoryMap=");
+                renderText(shelf.getInventoryMap(), 3, out);
+                out.append('}');
+                separator = ", ";
+            }
+            out.append('}');
+        }
+        out.append('}');
+    }
+
+    //Entities at depth 1 without collections of their own are rendered with their toString
+    private void renderText(String name, Map<String, ?> entities, Appendable out) throws IOException {
+        out.append(name);
+        if (collapsed(out, entities, 1))
+            return;
+        String separator = "";
+        out.append('{');
+        for (Map.Entry<String, ?> entry : entities.entrySet()) {
+            out.append(separator).append(entry.getKey()).append('=').append(String.valueOf(entry.getValue()));
+            separator = ", ";
+        }
+        out.append('}');
+    }
+
+    //Inventory is the bulk of a Store, so it is written field by field instead of with its toString
+    private void renderText(Map<String, Inventory> inventoryMap, int level, Appendable out) throws IOException {
+        if (collapsed(out, inventoryMap, level))
+            return;
+        String separator = "";
+        out.append('{');
+        for (Map.Entry<String, Inventory> entry : inventoryMap.entrySet()) {
+            Inventory inventory = entry.getValue();
+            InventoryLocation location = inventory.getInventoryLocation();
+            out.append(separator).append(entry.getKey()).append("=Inventory{id='").append(inventory.getId())
+                    .append("', inventoryLocation=");
+            if (location == null)
+                out.append("null");
+            else
+                out.append("InventoryLocation{storeLocation='StoreLocation{storeId='").append(location.getStoreId())
+                        .append("', aisleId='").append(location.getAisleId())
+                        .append("'}', shelfId='").append(location.getShelfId()).append("'}");
+            out.append(", capacity=").append(Integer.toString(inventory.getCapacity()))
+                    .append(", count=").append(Integer.toString(inventory.getCount()))
+                    .append(", productId='").append(inventory.getProductId()).append("'}");
+            separator = ", ";
+        }
+        out.append('}');
+    }
+
+    private boolean collapsed(Appendable out, Map<String, ?> entities, int level) throws IOException {
+        if (expands(level))
+            return false;
+        if (format == Format.json)
+            out.append(Integer.toString(entities.size()));
+        else
+            out.append('(').append(Integer.toString(entities.size())).append(')');
+        return true;
+    }
+
+    private void renderJson(Store store, Appendable out) throws IOException {
+        out.append('{');
+        String separator = "";
+        for (String field : FIELDS) {
+            if (!renders(field))
+                continue;
+            out.append(separator);
+            separator = ",";
+            name(field, out);
+            switch (field) {
+                case "id" -> string(store.getId(), out);
+                case "address" -> string(store.getAddress(), out);
+                case "description" -> string(store.getDescription(), out);
+                case "aisles" -> {
+                    if (collapsed(out, store.getAisleMap(), 1))
+                        break;
+                    String entrySeparator = "";
+                    out.append('{');
+                    for (Map.Entry<String, Aisle> entry : store.getAisleMap().entrySet()) {
+                        out.append(entrySeparator);
+                        name(entry.getKey(), out);
+                        renderJson(entry.getValue(), out);
+                        entrySeparator = ",";
+                    }
+                    out.append('}');
+                }
+                case "devices" -> {
+                    if (collapsed(out, store.getDeviceMap(), 1))
+                        break;
+                    String entrySeparator = "";
+                    out.append('{');
+                    for (Device device : store.getDeviceMap().values()) {
+                        out.append(entrySeparator);
+                        name(device.getId(), out);
+                        out.append('{');
+                        name("id", out);
+                        string(device.getId(), out);
+                        out.append(',');
+                        name("name", out);
+                        string(device.getName(), out);
+                        out.append(',');
+                        name("type", out);
+                        string(device.getType(), out);
+                        location(device.getStoreLocation(), out);
+                        out.append('}');
+                        entrySeparator = ",";
+                    }
+                    out.append('}');
+                }
+                case "customers" -> {
+                    if (collapsed(out, store.getCustomerMap(), 1))
+                        break;
+                    String entrySeparator = "";
+                    out.append('{');
+                    for (Customer customer : store.getCustomerMap().values()) {
+                        out.append(entrySeparator);
+                        name(customer.getId(), out);
+                        renderJson(customer, out);
+                        entrySeparator = ",";
+                    }
+                    out.append('}');
+                }
+                case "inventory" -> renderJson(store.getInventoryMap(), 1, out);
+                case "baskets" -> {
+                    if (collapsed(out, store.getBasketMap(), 1))
+                        break;
+                    String entrySeparator = "";
+                    out.append('{');
+                    for (Basket basket : store.getBasketMap().values()) {
+                        out.append(entrySeparator);
+                        name(basket.getId(), out);
+                        out.append('{');
+                        name("id", out);
+                        string(basket.getId(), out);
+                        out.append('}');
+                        entrySeparator = ",";
+                    }
+                    out.append('}');
+                }
+            }
+        }
+        out.append('}');
+    }
+
+    private void renderJson(Aisle aisle, Appendable out) throws IOException {
+        out.append('{');
+        name("number", out);
+        string(aisle.getNumber(), out);
+        out.append(',');
+        name("name", out);
+        string(aisle.getName(), out);
+        out.append(',');
+        name("description", out);
+        string(aisle.getDescription(), out);
+        out.append(',');
+        name("location", out);
+        string(aisle.getAisleLocation(), out);
+        out.append(',');
+        name("shelves", out);
+        Map<String, Shelf> shelfMap = aisle.getShelfMap();
+        if (!collapsed(out, shelfMap, 2)) {
+            String separator = "";
+            out.append('{');
+            for (Shelf shelf : shelfMap.values()) {
+                out.append(separator);
+                name(shelf.getId(), out);
+                out.append('{');
+                name("id", out);
+                string(shelf.getId(), out);
+                out.append(',');
+                name("name", out);
+                string(shelf.getName(), out);
+                out.append(',');
+                name("level", out);
+                string(shelf.getLevel(), out);
+                out.append(',');
+                name("description", out);
+                string(shelf.getDescription(), out);
+                out.append(',');
+                name("temperature", out);
+                string(shelf.getTemperature(), out);
+                out.append(',');
+                name("inventory", out);
+                renderJson(shelf.getInventoryMap(), 3, out);
+                out.append('}');
+                separator = ",";
+            }
+            out.append('}');
+        }
+        out.append('}');
+    }
+
+    private void renderJson(Customer customer, Appendable out) throws IOException {
+        out.append('{');
+        name("id", out);
+        string(customer.getId(), out);
+        out.append(',');
+        name("firstName", out);
+        string(customer.getFirstName(), out);
+        out.append(',');
+        name("lastName", out);
+        string(customer.getLastName(), out);
+        out.append(',');
+        name("type", out);
+        string(customer.getType(), out);
+        out.append(',');
+        name("email", out);
+        string(customer.getEmail(), out);
+        out.append(',');
+        name("accountAddress", out);
+        string(customer.getAccountAddress(), out);
+        out.append(',');
+        name("ageGroup", out);
+        string(customer.getAgeGroup(), out);
+        location(customer.getStoreLocation(), out);
+        out.append(',');
+        name("lastSeen", out);
+        out.append(customer.getLastSeen() == null ? "null" : Long.toString(customer.getLastSeen().getTime()));
+        out.append(',');
+        name("basketId", out);
+        string(customer.getBasket() == null ? null : customer.getBasket().getId(), out);
+        out.append('}');
+    }
+
+    private void renderJson(Map<String, Inventory> inventoryMap, int level, Appendable out) throws IOException {
+        if (collapsed(out, inventoryMap, level))
+            return;
+        String separator = "";
+        out.append('{');
+        for (Inventory inventory : inventoryMap.values()) {
+            out.append(separator);
+            name(inventory.getId(), out);
+            out.append('{');
+            name("id", out);
+            string(inventory.getId(), out);
+            location(inventory.getInventoryLocation(), out);
+            out.append(',');
+            name("shelfId", out);
+            string(inventory.getInventoryLocation() == null ? null : inventory.getInventoryLocation().getShelfId(), out);
+            out.append(',');
+            name("capacity", out);
+            out.append(Integer.toString(inventory.getCapacity()));
+            out.append(',');
+            name("count", out);
+            out.append(Integer.toString(inventory.getCount()));
+            out.append(',');
+            name("productId", out);
+            string(inventory.getProductId(), out);
+            out.append('}');
+            separator = ",";
+        }
+        out.append('}');
+    }
+
+    //Appends the storeId and aisleId fields of a location, preceded by a comma
+    private static void location(StoreLocation location, Appendable out) throws IOException {
+        out.append(',');
+        name("storeId", out);
+        string(location == null ? null : location.getStoreId(), out);
+        out.append(',');
+        name("aisleId", out);
+        string(location == null ? null : location.getAisleId(), out);
+    }
+
+    private static void name(String name, Appendable out) throws IOException {
+        string(name, out);
+        out.append(':');
+    }
+
+    private static void string(Object value, Appendable out) throws IOException {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+
+        String text = value.toString();
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20)
+                        out.append(String.format("\\u%04x", (int) c));
+                    else
+                        out.append(c);
+                }
+            }
+        }
+        out.append('"');
+    }
+}
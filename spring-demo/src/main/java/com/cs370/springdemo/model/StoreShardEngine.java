@@ -0,0 +1,436 @@
+package com.cs370.springdemo.model;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Execution engine running the Store Model Service on shards with a single writer each. Stores are hashed by
+ * id to a fixed number of shards and every shard is owned by one thread, which executes the operations posted
+ * to its mailbox in order. Callers get a future completed with the outcome of the operation. Operations of one
+ * Store never run at the same time, so the Store locks taken by the service are never contended.
+ *
+ * Operations spanning two Stores, such as Customers changing Stores, are handed off: the operation is posted
+ * to the mailbox of both shards, the shard of the first Store runs it once the other shard has reached it and
+ * parked, and releases the other shard afterwards. Operations that are not confined to a Store (Products,
+ * defining Customers and Baskets, entities that cannot be found) are handed off across all the shards.
+ * Hand-offs are posted one at a time, so every shard sees them in the same order and they cannot wait on each
+ * other in a cycle. Operations of a single shard are only ordered against closing the engine, so callers
+ * posting to different shards do not wait for each other.
+ *
+ * Routes are computed from the model when an operation is posted, so operations of an entity that changes
+ * Stores are only ordered after the change has completed. An operation whose entity moves to another Store
+ * before the operation runs stays correct, the Store locks of the service still serialize it, but it runs
+ * without a single writer. Operations must not wait for futures of the engine they run on.
+ */
+public class StoreShardEngine implements AutoCloseable {
+
+    //Number of operations a shard may have queued before callers block
+    private static final int MAILBOX_CAPACITY = 4096;
+
+    private final StoreModelService storeModelService;
+    private final Shard[] shards;
+    //Read locked by postings to a single shard, write locked by hand-offs and close, see post
+    private final ReentrantReadWriteLock postLock = new ReentrantReadWriteLock();
+    private boolean closed;
+
+    /**
+     * Constructor for the StoreShardEngine class with a shard for every available processor
+     *
+     * @param storeModelService
+     */
+    public StoreShardEngine(StoreModelService storeModelService) {
+        this(storeModelService, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor for the StoreShardEngine class
+     *
+     * @param storeModelService
+     * @param shardCount
+     */
+    public StoreShardEngine(StoreModelService storeModelService, int shardCount) {
+        if (shardCount < 1)
+            throw new IllegalArgumentException("Shard count must be positive");
+        this.storeModelService = storeModelService;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].start();
+        }
+    }
+
+    /**
+     * Getter method for the number of shards
+     *
+     * @return
+     */
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Method for finding the index of the shard owning a Store
+     *
+     * @param storeId
+     * @return
+     */
+    public int shardOf(String storeId) {
+        return Math.floorMod(storeId.hashCode(), shards.length);
+    }
+
+    /**
+     * Method for running an operation on the shard owning a Store. An operation without a Store is handed
+     * off across all the shards
+     *
+     * @param storeId
+     * @param operation
+     * @return
+     */
+    public <T> CompletableFuture<ModelOutcome<T>> submit(String storeId, Supplier<ModelOutcome<T>> operation) {
+        return storeId == null ? submitGlobal(operation) : post(operation, shards[shardOf(storeId)]);
+    }
+
+    /**
+     * Method for running an operation that spans two Stores. The operation runs on the shard of the first
+     * Store while the shard of the second Store is parked; if both Stores are owned by the same shard, or one
+     * of them is not known, the operation runs like any other operation of a shard
+     *
+     * @param fromStoreId
+     * @param toStoreId
+     * @param operation
+     * @return
+     */
+    public <T> CompletableFuture<ModelOutcome<T>> submitHandOff(String fromStoreId, String toStoreId,
+                                                                Supplier<ModelOutcome<T>> operation) {
+        return postHandOff(fromStoreId, toStoreId, operation);
+    }
+
+    /**
+     * Method for running an operation while all the shards are parked
+     *
+     * @param operation
+     * @return
+     */
+    public <T> CompletableFuture<ModelOutcome<T>> submitGlobal(Supplier<ModelOutcome<T>> operation) {
+        return post(operation, shards);
+    }
+
+    /**
+     * Method for running a DSL command on the shard owning the Store it operates on. The future fails with
+     * a CommandException if the command is not recognized and with the exception thrown by malformed
+     * arguments
+     *
+     * @param command
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<?>> submitCommand(String command) {
+        List<String> tokens = CommandTokenizer.tokenize(command);
+        CommandVerb verb = CommandVerb.lookup(tokens);
+        if (verb == null) {
+            return CompletableFuture.failedFuture(
+                    new CommandException(CommandTokenizer.normalize(command), "Unrecognized Command"));
+        }
+
+        Supplier<ModelOutcome<?>> operation = () -> storeModelService.executeOutcome(verb, tokens);
+        if (verb == CommandVerb.UPDATE_CUSTOMER) {
+            return postHandOff(storeModelService.customerStoreId(token(tokens, 2)), storeOf(tokens, 4), operation);
+        } else if (verb == CommandVerb.ASSIGN_BASKET) {
+            return postHandOff(storeModelService.basketStoreId(token(tokens, 2)),
+                    storeModelService.customerStoreId(token(tokens, 4)), operation);
+        }
+
+        String storeId = routeStore(verb, tokens);
+        return storeId == null ? post(operation, shards) : post(operation, shards[shardOf(storeId)]);
+    }
+
+    /**
+     * Method for moving a Customer to an Aisle of a Store, handing off from the Store the Customer is in
+     *
+     * @param customerId
+     * @param storeId
+     * @param aisleNumber
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Customer>> updateCustomer(String customerId, String storeId,
+                                                                    String aisleNumber) {
+        return submitHandOff(storeModelService.customerStoreId(customerId), storeId,
+                () -> storeModelService.tryUpdateCustomer(customerId, storeId, aisleNumber, null));
+    }
+
+    /**
+     * Method for assigning a Basket to a Customer, handing off from the Store the Basket was used in
+     *
+     * @param customerId
+     * @param basketId
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Basket>> assignCustomerBasket(String customerId, String basketId) {
+        return submitHandOff(storeModelService.basketStoreId(basketId), storeModelService.customerStoreId(customerId),
+                () -> storeModelService.tryAssignCustomerBasket(customerId, basketId, null));
+    }
+
+    /**
+     * Method for adding Product to a Basket on the shard of the Store the Basket is used in
+     *
+     * @param basketId
+     * @param productId
+     * @param count
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Basket>> addBasketProduct(String basketId, String productId, int count) {
+        return submit(storeModelService.basketStoreId(basketId),
+                () -> storeModelService.tryAddBasketProduct(basketId, productId, count, null));
+    }
+
+    /**
+     * Method for removing Product from a Basket on the shard of the Store the Basket is used in
+     *
+     * @param basketId
+     * @param productId
+     * @param count
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Basket>> removeBasketProduct(String basketId, String productId, int count) {
+        return submit(storeModelService.basketStoreId(basketId),
+                () -> storeModelService.tryRemoveBasketProduct(basketId, productId, count, null));
+    }
+
+    /**
+     * Method for clearing a Basket on the shard of the Store the Basket is used in
+     *
+     * @param basketId
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Basket>> clearBasket(String basketId) {
+        return submit(storeModelService.basketStoreId(basketId),
+                () -> storeModelService.tryClearBasket(basketId, null));
+    }
+
+    /**
+     * Method for updating the count of an Inventory on the shard of its Store
+     *
+     * @param inventoryId
+     * @param count
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Inventory>> updateInventory(String inventoryId, int count) {
+        return submit(storeModelService.inventoryStoreId(inventoryId),
+                () -> storeModelService.tryUpdateInventory(inventoryId, count, null));
+    }
+
+    /**
+     * Method for showing a Store on the shard owning it
+     *
+     * @param storeId
+     * @return
+     */
+    public CompletableFuture<ModelOutcome<Store>> showStore(String storeId) {
+        return submit(storeId, () -> storeModelService.tryShowStore(storeId, null));
+    }
+
+    /**
+     * Method for stopping the shards once they have run every operation posted so far. Posting an operation
+     * once the engine is closing throws an IllegalStateException
+     */
+    @Override
+    public void close() {
+        //Stopping under the posting lock leaves no operation behind the stop of a shard
+        postLock.writeLock().lock();
+        try {
+            if (closed)
+                return;
+            closed = true;
+            for (Shard shard : shards) {
+                shard.put(Task.STOP);
+            }
+        } finally {
+            postLock.writeLock().unlock();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Method for determining the Store a command that concerns at most one Store operates on. Returns null
+     * if the command has to be handed off across all the shards
+     *
+     * @param verb
+     * @param tokens
+     * @return
+     */
+    private String routeStore(CommandVerb verb, List<String> tokens) {
+        return switch (verb) {
+            case DEFINE_STORE, SHOW_STORE, DEFINE_AISLE, SHOW_AISLE, DEFINE_SHELF, SHOW_SHELF -> storeOf(tokens, 2);
+            case DEFINE_INVENTORY -> storeOf(tokens, 4);
+            case SHOW_INVENTORY, UPDATE_INVENTORY -> storeModelService.inventoryStoreId(token(tokens, 2));
+            case DEFINE_DEVICE -> storeOf(tokens, 8);
+            case SHOW_DEVICE, CREATE_EVENT, CREATE_COMMAND -> storeModelService.deviceStoreId(token(tokens, 2));
+            case CREATE_EVENT_INLINE -> storeModelService.deviceStoreId(token(tokens, 1));
+            case SHOW_CUSTOMER -> storeModelService.customerStoreId(token(tokens, 2));
+            case GET_CUSTOMER_BASKET -> storeModelService.customerStoreId(token(tokens, 1));
+            case ADD_BASKET_ITEM, REMOVE_BASKET_ITEM, CLEAR_BASKET -> storeModelService.basketStoreId(token(tokens, 1));
+            case SHOW_BASKET_ITEMS -> storeModelService.basketStoreId(token(tokens, 2));
+            //Products, Customers and Baskets are global
+            default -> null;
+        };
+    }
+
+    private static String token(List<String> tokens, int index) {
+        return index < tokens.size() ? tokens.get(index) : null;
+    }
+
+    private static String storeOf(List<String> tokens, int index) {
+        String location = token(tokens, index);
+        if (location == null)
+            return null;
+        int separator = location.indexOf(':');
+        return separator < 0 ? location : location.substring(0, separator);
+    }
+
+    /**
+     * Method for posting an operation spanning two Stores, see submitHandOff. If neither Store is known the
+     * operation is handed off across all the shards
+     *
+     * @param fromStoreId
+     * @param toStoreId
+     * @param operation
+     * @return
+     */
+    private <R> CompletableFuture<R> postHandOff(String fromStoreId, String toStoreId, Supplier<R> operation) {
+        if (fromStoreId == null && toStoreId == null)
+            return post(operation, shards);
+
+        Shard from = shards[shardOf(fromStoreId == null ? toStoreId : fromStoreId)];
+        Shard to = shards[shardOf(toStoreId == null ? fromStoreId : toStoreId)];
+        return from == to ? post(operation, from) : post(operation, from, to);
+    }
+
+    /**
+     * Method for posting an operation to the mailboxes of the shards involved. The first shard runs the
+     * operation, the others park on it. Postings to a single shard share the posting lock, hand-offs and
+     * close hold it exclusively; the shards take operations without the lock, so a full mailbox only blocks
+     * hand-offs and close until it drains
+     *
+     * @param operation
+     * @param participants
+     * @return
+     */
+    private <R> CompletableFuture<R> post(Supplier<R> operation, Shard... participants) {
+        Task<R> task = new Task<>(operation, participants[0], participants.length - 1);
+        Lock lock = participants.length == 1 ? postLock.readLock() : postLock.writeLock();
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("Shard engine is closed");
+            for (Shard shard : participants) {
+                shard.put(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return task.future;
+    }
+
+    /**
+     * Operation posted to one or more shards, completing its future with the result of the operation
+     */
+    private static final class Task<R> {
+
+        static final Task<Void> STOP = new Task<>(null, null, 0);
+
+        final Supplier<R> operation;
+        final Shard owner;
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        //Counted down by every shard other than the owner once it has reached the task and parked
+        final CountDownLatch parked;
+        //Released by the owner once the operation has run
+        final CountDownLatch done;
+
+        Task(Supplier<R> operation, Shard owner, int parking) {
+            this.operation = operation;
+            this.owner = owner;
+            this.parked = parking == 0 ? null : new CountDownLatch(parking);
+            this.done = parking == 0 ? null : new CountDownLatch(1);
+        }
+
+        /**
+         * Method for running the operation on the owning shard once the other shards have parked. Anything
+         * thrown by the operation fails its future and leaves the shard running
+         *
+         * @throws InterruptedException
+         */
+        void execute() throws InterruptedException {
+            if (parked != null)
+                parked.await();
+            try {
+                future.complete(operation.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                if (done != null)
+                    done.countDown();
+            }
+        }
+
+        /**
+         * Method for parking a shard other than the owner until the operation has run
+         *
+         * @throws InterruptedException
+         */
+        void park() throws InterruptedException {
+            parked.countDown();
+            done.await();
+        }
+    }
+
+    /**
+     * Thread owning the Stores hashed to one shard, running the operations of its mailbox in order
+     */
+    private static final class Shard extends Thread {
+
+        private final BlockingQueue<Task<?>> mailbox = new ArrayBlockingQueue<>(MAILBOX_CAPACITY);
+
+        Shard(int index) {
+            super("store-shard-" + index);
+            setDaemon(true);
+        }
+
+        void put(Task<?> task) {
+            try {
+                mailbox.put(task);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while posting operation", e);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Task<?> task = mailbox.take();
+                    if (task == Task.STOP)
+                        return;
+                    if (task.owner == this)
+                        task.execute();
+                    else
+                        task.park();
+                }
+            } catch (InterruptedException e) {
+                //Shards are daemon threads; an interrupted shard stops taking operations
+            }
+        }
+    }
+}
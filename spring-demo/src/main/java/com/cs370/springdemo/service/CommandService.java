@@ -0,0 +1,81 @@
+package com.cs370.springdemo.service;
+
+import com.cs370.springdemo.model.CommandAPI;
+import com.cs370.springdemo.model.CommandBatchResult;
+import com.cs370.springdemo.model.CommandStatus;
+import com.cs370.springdemo.model.CommandVerb;
+import com.cs370.springdemo.model.StoreModelService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+@Service
+public class CommandService {
+
+    //Records are separated by newlines only, not by the default space between root values
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .setRootValueSeparator(null);
+
+    CommandAPI commandAPI = StoreModelService.getInstance();
+
+    /**
+     * Method for executing DSL lines as they are read and writing one NDJSON record per command. Blank and
+     * comment lines produce no record but are counted for line numbers. Output is flushed whenever no
+     * further input is ready, so neither side needs to hold the whole stream in memory
+     *
+     * @param reader
+     * @param out
+     * @throws IOException
+     */
+    public void execute(BufferedReader reader, OutputStream out) throws IOException {
+        CommandBatchResult batch = new CommandBatchResult();
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(out)) {
+            String line;
+            for (int lineNumber = 1; (line = reader.readLine()) != null; lineNumber++) {
+                batch.clear();
+                commandAPI.processCommandBatch(List.of(line).iterator(), batch);
+                if (batch.getStatus(0) != CommandStatus.SKIPPED) {
+                    write(json, batch, lineNumber);
+                }
+                if (!reader.ready()) {
+                    json.flush();
+                }
+            }
+        }
+    }
+
+    /**
+     * Method for writing the record of the single command held by the batch. Results are rendered for the
+     * commands that print them on the console
+     *
+     * @param json
+     * @param batch
+     * @param lineNumber
+     * @throws IOException
+     */
+    private static void write(JsonGenerator json, CommandBatchResult batch, int lineNumber) throws IOException {
+        CommandStatus status = batch.getStatus(0);
+        CommandVerb verb = batch.getVerb(0);
+
+        json.writeStartObject();
+        json.writeNumberField("line", lineNumber);
+        json.writeStringField("status", status.name());
+        if (status == CommandStatus.OK) {
+            if (verb.getOutputPrefix() != null) {
+                json.writeStringField("result", String.valueOf(batch.getResult(0)));
+            }
+        } else {
+            json.writeStringField("command", batch.getCommand(0));
+            json.writeStringField("action", batch.getErrorAction(0));
+            json.writeStringField("reason", batch.getErrorReason(0));
+        }
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+}
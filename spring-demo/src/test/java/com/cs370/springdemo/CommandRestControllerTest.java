@@ -0,0 +1,62 @@
+package com.cs370.springdemo;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class CommandRestControllerTest {
+
+    @LocalServerPort
+    private Integer port;
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    private static HttpHeaders headers;
+
+    @BeforeAll
+    static void init() {
+
+        headers = new HttpHeaders();
+        headers.setBasicAuth("sergey", "chapman");
+        headers.setContentType(MediaType.TEXT_PLAIN);
+    }
+
+    @Test
+    public void testPostCommands() {
+
+        String script = "define store store_r1 name A address \"1 Main St\"\nshow store store_r1\nshow store store_r2\n";
+
+        ResponseEntity<String> response = restTemplate.postForEntity("http://localhost:" + port + "/commands",
+                new HttpEntity<>(script, headers), String.class);
+
+        Assertions.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assertions.assertEquals("application/x-ndjson", response.getHeaders().getContentType().toString().split(";")[0]);
+        String[] records = response.getBody().split("\n");
+        Assertions.assertEquals(3, records.length);
+        Assertions.assertTrue(records[1].startsWith("{\"line\":2,\"status\":\"OK\",\"result\":\"Store{id='store_r1'"));
+        Assertions.assertTrue(records[2].contains("\"status\":\"MODEL_ERROR\""));
+    }
+
+    @Test
+    public void testPostOutsideCommandsRequiresCsrfToken() {
+
+        HttpHeaders jsonHeaders = new HttpHeaders();
+        jsonHeaders.setBasicAuth("sergey", "chapman");
+        jsonHeaders.setContentType(MediaType.APPLICATION_JSON);
+
+        ResponseEntity<String> response = restTemplate.postForEntity("http://localhost:" + port + "/stores",
+                new HttpEntity<>("{\"id\":\"store_r3\"}", jsonHeaders), String.class);
+
+        //Rejected requests are forwarded to the error page without credentials, so this is not a plain 403
+        Assertions.assertTrue(response.getStatusCode().is4xxClientError());
+        Assertions.assertEquals(HttpStatus.OK, restTemplate.exchange("http://localhost:" + port + "/stores",
+                HttpMethod.GET, new HttpEntity<>(jsonHeaders), String.class).getStatusCode());
+    }
+}
@@ -0,0 +1,47 @@
+package com.cs370.springdemo;
+
+import com.cs370.springdemo.model.CommandBatchResult;
+import com.cs370.springdemo.model.OutputSink;
+import com.cs370.springdemo.model.OutputSinks;
+import com.cs370.springdemo.model.StoreModelService;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkloadGeneratorTest {
+
+    private static String generate(String... settings) throws IOException {
+        WorkloadGenerator generator = new WorkloadGenerator();
+        for (String setting : settings) {
+            String[] nameValue = setting.split("=");
+            generator.set(nameValue[0], nameValue[1]);
+        }
+        StringWriter script = new StringWriter();
+        generator.generate(script);
+        return script.toString();
+    }
+
+    @Test
+    void sameSeedGeneratesSameScript() throws IOException {
+        assertThat(generate("seed=3", "skew=1.2")).isEqualTo(generate("seed=3", "skew=1.2"));
+        assertThat(generate("seed=3")).isNotEqualTo(generate("seed=4"));
+    }
+
+    @Test
+    void generatedScriptReplaysWithoutFailures() throws IOException {
+        String script = generate("seed=11", "stores=2", "aisles=4", "products=20", "inventories=40",
+                "customers=10", "devices=4", "events=50", "operations=500", "mix=40:30:10:20", "skew=1");
+
+        OutputSink previous = OutputSinks.install(OutputSinks.quiet());
+        try {
+            CommandBatchResult result = StoreModelService.getInstance()
+                    .processCommandBatch(script.lines().iterator());
+            assertThat(result.getFailureCount()).isZero();
+        } finally {
+            OutputSinks.install(previous);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncOutputSinkTest {
+
+    private static final String SEPARATOR = System.lineSeparator();
+
+    @Test
+    void linesOfEachThreadAreWrittenInOrder() throws InterruptedException {
+        StringWriter out = new StringWriter();
+        AsyncOutputSink sink = new AsyncOutputSink(out, "order-output");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "t" + t + "-";
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++)
+                    sink.println(prefix + i);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads)
+            thread.join();
+        sink.flush();
+
+        String[] lines = out.toString().split(SEPARATOR);
+        assertThat(lines).hasSize(40_000);
+        int[] next = new int[4];
+        for (String line : lines) {
+            int t = line.charAt(1) - '0';
+            assertThat(line).isEqualTo("t" + t + "-" + next[t]++);
+        }
+        sink.close();
+    }
+
+    @Test
+    void installFlushesThePreviousSink() {
+        //Every batch takes longer than the linger of the writer thread
+        StringWriter out = new StringWriter();
+        AsyncOutputSink sink = new AsyncOutputSink(new SlowWriter(out, 200), "install-output");
+        OutputSink previous = OutputSinks.install(sink);
+        try {
+            sink.println("first");
+            sink.println("second");
+        } finally {
+            assertThat(OutputSinks.install(previous)).isSameAs(sink);
+        }
+
+        assertThat(out.toString()).isEqualTo("first" + SEPARATOR + "second" + SEPARATOR);
+        sink.close();
+    }
+
+    @Test
+    void closeWritesPendingLinesAndRejectsNewOnes() {
+        StringWriter out = new StringWriter();
+        AtomicInteger closes = new AtomicInteger();
+        AsyncOutputSink sink = new AsyncOutputSink(new SlowWriter(out, 200) {
+            @Override
+            public void close() {
+                closes.incrementAndGet();
+            }
+        }, "close-output");
+        sink.println("last");
+        sink.close();
+        sink.close();
+
+        assertThat(out.toString()).isEqualTo("last" + SEPARATOR);
+        assertThat(closes).hasValue(1);
+        assertThatThrownBy(() -> sink.println("late")).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void consoleSinkFlushWritesToSystemOut() {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true, StandardCharsets.UTF_8));
+        try {
+            //The same flush the console sink runs from its shutdown hook
+            OutputSink console = OutputSinks.console();
+            console.println("to the console");
+            console.flush();
+        } finally {
+            System.setOut(stdout);
+        }
+
+        assertThat(captured.toString(StandardCharsets.UTF_8)).isEqualTo("to the console" + SEPARATOR);
+    }
+
+    @Test
+    void callersBlockOncePendingOutputReachesTheLimit() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicLong chars = new AtomicLong();
+        AsyncOutputSink sink = new AsyncOutputSink(new Writer() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                chars.addAndGet(len);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        }, "blocked-output");
+
+        String line = "x".repeat(1024);
+        int total = 20 * 1024;
+        AtomicInteger printed = new AtomicInteger();
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                sink.println(line);
+                printed.incrementAndGet();
+            }
+        });
+        producer.start();
+
+        //Wait for the producer to stop making progress while the writer is held
+        int seen;
+        do {
+            seen = printed.get();
+            Thread.sleep(200);
+        } while (printed.get() != seen);
+
+        assertThat(producer.isAlive()).isTrue();
+        assertThat(producer.getState()).isEqualTo(Thread.State.WAITING);
+        assertThat((long) seen * (line.length() + SEPARATOR.length())).isGreaterThanOrEqualTo(1 << 23);
+        assertThat(seen).isLessThan(total);
+
+        release.countDown();
+        producer.join(TimeUnit.SECONDS.toMillis(30));
+        sink.flush();
+        assertThat(chars).hasValue((long) total * (line.length() + SEPARATOR.length()));
+        sink.close();
+    }
+
+    /**
+     * Writer taking a while to accept every batch
+     */
+    private static class SlowWriter extends Writer {
+
+        private final Writer out;
+        private final long millis;
+
+        SlowWriter(Writer out, long millis) {
+            this.out = out;
+            this.millis = millis;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BasketLinesTest {
+
+    @Test
+    void linesMatchAMapOfQuantities() {
+        BasketLines lines = new BasketLines();
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            int productKey = random.nextInt(40);
+            int count = expected.getOrDefault(productKey, 0) > 0 && random.nextBoolean()
+                    ? -expected.get(productKey) : 1 + random.nextInt(3);
+            lines.add(productKey, count);
+            expected.merge(productKey, count, Integer::sum);
+            expected.remove(productKey, 0);
+        }
+
+        assertThat(lines.size()).isEqualTo(expected.size());
+        for (int productKey = 0; productKey < 40; productKey++)
+            assertThat(lines.get(productKey)).isEqualTo(expected.getOrDefault(productKey, 0));
+        assertThat(lines.productKeys()).containsExactlyInAnyOrder(expected.keySet().stream().mapToInt(Integer::intValue).toArray());
+
+        lines.clear();
+        assertThat(lines.size()).isZero();
+        assertThat(lines.get(expected.keySet().iterator().next())).isZero();
+    }
+}
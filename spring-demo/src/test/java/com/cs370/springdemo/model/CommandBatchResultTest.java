@@ -0,0 +1,37 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandBatchResultTest {
+
+    @Test
+    void processCommandBatchRecordsEveryCommand() throws IOException {
+        CommandBatchResult batch = StoreModelService.getInstance().processCommandBatch(List.of(
+                "# batch",
+                "define  store  store_batch1 name Batch address \"1 Main St\"",
+                "show  store  store_batch1",
+                "show  store  store_batch2",
+                "Appliance Commands",
+                "show  store").iterator());
+
+        assertThat(batch.size()).isEqualTo(6);
+        assertThat(batch.getFailureCount()).isEqualTo(3);
+        assertThat(batch.getStatus(0)).isEqualTo(CommandStatus.SKIPPED);
+        assertThat(batch.getStatus(1)).isEqualTo(CommandStatus.OK);
+        assertThat(batch.getResult(2)).isInstanceOf(Store.class);
+        assertThat(batch.getStatus(3)).isEqualTo(CommandStatus.MODEL_ERROR);
+        assertThat(batch.getErrorReason(3)).isEqualTo("Store Does Not Exist");
+        assertThat(batch.getStatus(4)).isEqualTo(CommandStatus.UNRECOGNIZED_COMMAND);
+        assertThat(batch.getVerb(4)).isNull();
+        assertThat(batch.getStatus(5)).isEqualTo(CommandStatus.INVALID_COMMAND);
+
+        StringBuilder out = new StringBuilder();
+        batch.writeTo(out);
+        assertThat(out).contains("Failed due to: Unrecognized Command for Command: Appliance Commands On Line Number: 5");
+    }
+}
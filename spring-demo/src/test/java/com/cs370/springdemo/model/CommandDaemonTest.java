@@ -0,0 +1,61 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandDaemonTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void daemonStreamsCommandAndScriptOutput() throws Exception {
+        Path script = Files.writeString(directory.resolve("daemon.script"),
+                "define store store_d2 name B address \"2 Main St\"\nshow store store_d2\n");
+
+        CommandDaemon daemon = new CommandDaemon(StoreModelService.getInstance(), CommandDaemon.parseAddress("0"));
+        Thread server = new Thread(() -> {
+            try {
+                daemon.serve();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        server.start();
+
+        List<String> output = new ArrayList<>();
+        try (Socket socket = new Socket()) {
+            socket.connect(daemon.getLocalAddress());
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            out.println("define store store_d1 name A address \"1 Main St\"");
+            out.println("@run " + script);
+            out.println("@run " + directory.resolve("missing.script"));
+            out.println("@shutdown");
+            for (String line; (line = in.readLine()) != null; ) {
+                output.add(line);
+            }
+        }
+        server.join(10_000);
+
+        assertThat(server.isAlive()).isFalse();
+        assertThat(output).contains(">>> Processing DSL : define store store_d1 name A address \"1 Main St\"",
+                ">>> Processing DSL : show store store_d2");
+        assertThat(output).anyMatch(line -> line.startsWith("# ok " + script));
+        assertThat(output.get(output.size() - 1)).startsWith("# error Script Not Found");
+        assertThat(StoreModelService.getInstance().showStore("store_d1", null).getId()).isEqualTo("store_d1");
+    }
+}
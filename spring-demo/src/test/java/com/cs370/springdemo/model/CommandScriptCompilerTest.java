@@ -0,0 +1,53 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandScriptCompilerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void compileIfStaleCreatesCache() throws IOException {
+        Path script = Files.writeString(directory.resolve("create.script"),
+                "# comment\ndefine  store  store_c1 name A address \"1 Main St\"\n");
+
+        Path compiled = CommandScriptCompiler.compileIfStale(script);
+
+        assertThat(compiled).isEqualTo(directory.resolve("create.script.bin"));
+        assertThat(compiled).exists();
+        assertThat(Files.size(compiled)).isLessThan(Files.size(script) + 64);
+    }
+
+    @Test
+    void compileIfStaleReusesCurrentCache() throws IOException {
+        Path script = Files.writeString(directory.resolve("reuse.script"), "show  store  store_c2\n");
+        Path compiled = CommandScriptCompiler.compileIfStale(script);
+        FileTime marker = FileTime.fromMillis(0);
+        Files.setLastModifiedTime(compiled, marker);
+
+        CommandScriptCompiler.compileIfStale(script);
+
+        assertThat(Files.getLastModifiedTime(compiled)).isEqualTo(marker);
+    }
+
+    @Test
+    void compileIfStaleRecompilesChangedScript() throws IOException {
+        Path script = Files.writeString(directory.resolve("change.script"), "show  store  store_c3\n");
+        Path compiled = CommandScriptCompiler.compileIfStale(script);
+        byte[] before = Files.readAllBytes(compiled);
+
+        Files.writeString(script, "show  store  store_c4\n");
+        CommandScriptCompiler.compileIfStale(script);
+
+        assertThat(Files.readAllBytes(compiled)).isNotEqualTo(before);
+    }
+}
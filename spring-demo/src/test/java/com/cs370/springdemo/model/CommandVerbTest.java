@@ -0,0 +1,36 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandVerbTest {
+
+    @Test
+    void lookupCompoundVerb() {
+        assertThat(CommandVerb.lookup(CommandTokenizer.tokenize("Show  basket_items  b1")))
+                .isEqualTo(CommandVerb.SHOW_BASKET_ITEMS);
+        assertThat(CommandVerb.lookup(CommandTokenizer.tokenize("create  command  turn_a3  message  X Y")))
+                .isEqualTo(CommandVerb.CREATE_COMMAND);
+    }
+
+    @Test
+    void lookupSingleKeywordVerb() {
+        assertThat(CommandVerb.lookup(CommandTokenizer.tokenize("create_event  cam_A1  event  a b c")))
+                .isEqualTo(CommandVerb.CREATE_EVENT_INLINE);
+        assertThat(CommandVerb.lookup(CommandTokenizer.tokenize("add_basket_item  b3  product  prod11  item_count  2")))
+                .isEqualTo(CommandVerb.ADD_BASKET_ITEM);
+    }
+
+    @Test
+    void lookupUnknownVerb() {
+        assertThat(CommandVerb.lookup(CommandTokenizer.tokenize("Appliance Commands"))).isNull();
+        assertThat(CommandVerb.lookup(CommandTokenizer.tokenize("define"))).isNull();
+    }
+
+    @Test
+    void tokenizeStripsQuotes() {
+        assertThat(CommandTokenizer.tokenize("define  store  store_123 name Bristol address \"700 Spectrum\""))
+                .containsExactly("define", "store", "store_123", "name", "Bristol", "address", "700 Spectrum");
+    }
+}
@@ -0,0 +1,78 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdTableTest {
+
+    @Test
+    void keysAreDenseInInsertionOrder() {
+        IdTable<String> table = new IdTable<>();
+        for (int i = 0; i < 1000; i++) {
+            assertThat(table.putIfAbsent("id_" + i, "entity_" + i)).isNull();
+        }
+
+        assertThat(table.size()).isEqualTo(1000);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(table.keyOf("id_" + i)).isEqualTo(i);
+            assertThat(table.idOf(i)).isEqualTo("id_" + i);
+            assertThat(table.get("id_" + i)).isEqualTo("entity_" + i);
+            assertThat(table.get(i)).isEqualTo("entity_" + i);
+        }
+        assertThat(table.values()).hasSize(1000).startsWith("entity_0", "entity_1");
+    }
+
+    @Test
+    void missingIdsHaveNoKey() {
+        IdTable<String> table = new IdTable<>();
+        table.putIfAbsent("a", "entity_a");
+
+        assertThat(table.keyOf("b")).isEqualTo(-1);
+        assertThat(table.get("b")).isNull();
+        assertThat(table.get(1)).isNull();
+        assertThat(table.idOf(1)).isNull();
+    }
+
+    @Test
+    void putKeepsKeyAndPutIfAbsentKeepsEntity() {
+        IdTable<String> table = new IdTable<>();
+        table.putIfAbsent("a", "first");
+        table.putIfAbsent("b", "other");
+
+        assertThat(table.putIfAbsent("a", "second")).isEqualTo("first");
+        assertThat(table.get("a")).isEqualTo("first");
+
+        assertThat(table.put("a", "third")).isEqualTo("first");
+        assertThat(table.get("a")).isEqualTo("third");
+        assertThat(table.keyOf("a")).isZero();
+        assertThat(table.size()).isEqualTo(2);
+    }
+
+    @Test
+    void removedKeysAreReusedByLaterIds() {
+        IdTable<String> table = new IdTable<>();
+        table.putIfAbsent("a", "entity_a");
+        table.putIfAbsent("b", "entity_b");
+
+        assertThat(table.remove("a", "other")).isFalse();
+        assertThat(table.remove("a", "entity_a")).isTrue();
+        assertThat(table.remove("a", "entity_a")).isFalse();
+        assertThat(table.get("a")).isNull();
+        assertThat(table.keyOf("a")).isEqualTo(-1);
+        assertThat(table.idOf(0)).isNull();
+        assertThat(table.values()).containsExactly("entity_b");
+
+        //Ids added and removed over and over keep reusing the same key, with the slots they leave behind rebuilt
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(table.putIfAbsent("c_" + i, "entity_c")).isNull();
+            assertThat(table.keyOf("c_" + i)).isZero();
+            assertThat(table.remove("c_" + i, "entity_c")).isTrue();
+        }
+        assertThat(table.size()).isEqualTo(2);
+        assertThat(table.get("b")).isEqualTo("entity_b");
+        assertThat(table.putIfAbsent("a", "entity_a")).isNull();
+        assertThat(table.get("a")).isEqualTo("entity_a");
+        assertThat(table.keyOf("b")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,92 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryLedgerTest {
+
+    private final InventoryLocation location = new InventoryLocation("store_ledger", "aisle_1", "shelf_1");
+
+    @Test
+    void ledgerBackedInventoryKeepsViewApi() {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryLedger previous = InventoryLedger.install(ledger);
+        try {
+            Inventory full = Inventory.create("inv_ledger1", location, 10, 10, "prod_ledger");
+            Inventory low = Inventory.create("inv_ledger2", location, 30, 2, "prod_ledger");
+
+            assertThat(ledger.size()).isEqualTo(2);
+            assertThat(low.reserve(3)).isFalse();
+            assertThat(low.reserve(2)).isTrue();
+            assertThat(full.release(1)).isFalse();
+            assertThat(full.tryUpdateInventory(-5).isSuccess()).isTrue();
+            assertThat(full.getCount()).isEqualTo(5);
+            assertThat(low.getCount()).isZero();
+            assertThat(full.toString()).contains("capacity=10", "count=5");
+
+            assertThat(ledger.totalCount()).isEqualTo(5);
+            assertThat(ledger.totalCapacity()).isEqualTo(40);
+            assertThat(ledger.fillRatio()).isEqualTo(5.0 / 40);
+            assertThat(ledger.lowStock(0.5)).containsExactly(low);
+        } finally {
+            InventoryLedger.install(previous);
+        }
+    }
+
+    @Test
+    void scansSeeConsistentSlotsWhileTheLedgerGrows() {
+        InventoryLedger ledger = new InventoryLedger();
+        //Allocate across several page boundaries while scanning
+        CompletableFuture<Void> growth = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < 5 * 4096; i++)
+                ledger.add("inv_ledger_scan" + i, location, 2, 1, "prod_ledger");
+        });
+        while (!growth.isDone()) {
+            long capacity = ledger.totalCapacity();
+            assertThat(capacity % 2).isZero();
+            assertThat(ledger.lowStock(0.5).count()).isZero();
+        }
+        growth.join();
+
+        assertThat(ledger.totalCount()).isEqualTo(5 * 4096);
+        assertThat(ledger.totalCapacity()).isEqualTo(2 * 5 * 4096);
+    }
+
+    @Test
+    void ledgerIsTheStorageOfItsViews() {
+        InventoryLedger ledger = new InventoryLedger();
+        InventoryLedger previous = InventoryLedger.install(ledger);
+        try {
+            Inventory first = Inventory.create("inv_ledger4", new InventoryLocation("store_ledger", "aisle_1", "shelf_1"),
+                    10, 1, "prod_ledger");
+            Inventory second = Inventory.create("inv_ledger5", new InventoryLocation("store_ledger", "aisle_1", "shelf_1"),
+                    10, 2, "prod_ledger");
+
+            //Inventory of a Shelf share one location
+            assertThat(second.getInventoryLocation()).isSameAs(first.getInventoryLocation());
+            assertThat(ledger.lowStock(1.0)).containsExactly(first, second);
+
+            Inventory snapshot = first.snapshot();
+            first.setCount(7);
+            first.setId("inv_ledger4_renamed");
+            assertThat(ledger.lowStock(1.0).findFirst().get().getId()).isEqualTo("inv_ledger4_renamed");
+            assertThat(snapshot.getId()).isEqualTo("inv_ledger4");
+            assertThat(snapshot.getCount()).isEqualTo(1);
+            assertThat(snapshot).isNotEqualTo(first);
+        } finally {
+            InventoryLedger.install(previous);
+        }
+    }
+
+    @Test
+    void inventoryOutsideLedgerUsesItsFields() {
+        Inventory inventory = Inventory.create("inv_ledger3", location, 10, 4, "prod_ledger");
+
+        assertThat(InventoryLedger.installed()).isNull();
+        assertThat(inventory.reserve(4)).isTrue();
+        assertThat(inventory.getCount()).isZero();
+    }
+}
@@ -0,0 +1,83 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Scripts are run by the TestDriver in a JVM of their own, since the Store Model is a singleton and ids
+ * defined by one run would be rejected by the next
+ */
+class ParallelCommandRunnerTest {
+
+    private static final Path STORE_SCRIPT = Path.of("..", "Assignment 2", "store.script");
+    private static final int PARTITIONS = 4;
+
+    @Test
+    void partitionedRunMatchesSerialRun() throws Exception {
+        List<String> serial = run(STORE_SCRIPT);
+        List<String> partitioned = run(STORE_SCRIPT, String.valueOf(PARTITIONS));
+
+        assertThat(serial).isNotEmpty();
+        assertThat(sorted(partitioned)).isEqualTo(sorted(serial));
+    }
+
+    @Test
+    void rejectedDefinitionKeepsTheOwningPartition(@TempDir Path dir) throws Exception {
+        List<String> script = new ArrayList<>();
+        for (String storeId : List.of("store_pa", "store_pb")) {
+            script.add("define store " + storeId + " name Store address Address");
+            script.add("define aisle " + storeId + ":aisle_1 name Aisle description Aisle location floor");
+            script.add("define shelf " + storeId + ":aisle_1:shelf_1 name Shelf level high description Shelf"
+                    + " temperature ambient");
+        }
+        script.add("define product prod_pa name P description P size 1 category Food unit_price 1 temperature ambient");
+        script.add("define inventory inv_pa location store_pa:aisle_1:shelf_1 capacity 1000 count 0 product prod_pa");
+        //Rejected by the model, there is no such Shelf in store_pb
+        script.add("define inventory inv_pa location store_pb:aisle_1:shelf_9 capacity 1000 count 0 product prod_pa");
+        for (int i = 0; i < 200; i++) {
+            script.add("update inventory inv_pa update_count 1");
+            script.add("show shelf store_pa:aisle_1:shelf_1");
+        }
+        Path file = dir.resolve("duplicate.script");
+        Files.write(file, script, StandardCharsets.UTF_8);
+
+        //Updates run on the partition of store_pa, ordered with the Shelf showing the Inventory
+        assertThat(inventoryLines(run(file, String.valueOf(PARTITIONS)))).isEqualTo(inventoryLines(run(file)));
+    }
+
+    private static List<String> run(Path script, String... partitions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                "com.cs370.springdemo.TestDriver", script.toString()));
+        command.addAll(List.of(partitions));
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        List<String> lines;
+        try (var reader = process.inputReader(StandardCharsets.UTF_8)) {
+            lines = reader.lines().collect(Collectors.toList());
+        }
+        assertThat(process.waitFor(60, TimeUnit.SECONDS)).isTrue();
+        assertThat(process.exitValue()).isZero();
+        //Customers carry the time they were last seen
+        return lines.stream().map(line -> line.replaceAll("lastSeen=[^,}]*", "")).collect(Collectors.toList());
+    }
+
+    private static List<String> sorted(List<String> lines) {
+        return lines.stream().sorted().collect(Collectors.toList());
+    }
+
+    private static List<String> inventoryLines(List<String> lines) {
+        return lines.stream().filter(line -> line.contains("inv_pa")).collect(Collectors.toList());
+    }
+}
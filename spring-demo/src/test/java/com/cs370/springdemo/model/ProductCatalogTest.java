@@ -0,0 +1,79 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductCatalogTest {
+
+    @Test
+    void catalogRepricesAndTotalsCategories() {
+        ProductCatalog catalog = new ProductCatalog();
+        Product milk = new Product("prod_cat1", "Milk", "Milk", "1", "dairy", 2.99, Temperature.refrigerated);
+        Product cheese = new Product("prod_cat2", "Cheese", "Cheese", "1", "dairy", 5.49, Temperature.refrigerated);
+        Product bread = new Product("prod_cat3", "Bread", "Bread", "1", "bakery", 1.99, Temperature.ambient);
+        catalog.add(milk);
+        catalog.add(cheese);
+        catalog.add(bread);
+
+        assertThat(catalog.size()).isEqualTo(3);
+        assertThat(catalog.totalPriceCents("dairy")).isEqualTo(848);
+        assertThat(catalog.products("dairy")).containsExactly(milk, cheese);
+        assertThat(catalog.products("frozen")).isEmpty();
+
+        assertThat(catalog.reprice("dairy", 5)).isEqualTo(2);
+        assertThat(milk.getPrice()).isEqualTo(3.14);
+        assertThat(cheese.getPrice()).isEqualTo(5.76);
+        assertThat(bread.getPrice()).isEqualTo(1.99);
+
+        bread.setCategory("dairy");
+        bread.setPrice(null);
+        assertThat(bread.getCategory()).isEqualTo("dairy");
+        assertThat(bread.getTemperature()).isEqualTo(Temperature.ambient);
+        assertThat(catalog.totalPriceCents("dairy")).isEqualTo(890);
+        assertThat(catalog.products("dairy")).containsExactly(milk, cheese, bread);
+        assertThat(milk.toString()).contains("category='dairy'", "price=3.14", "temperature=refrigerated");
+    }
+
+    @Test
+    void findIntersectsCategoryTemperatureAndPrice() {
+        ProductCatalog catalog = new ProductCatalog();
+        Product milk = new Product("prod_find1", "Milk", "Milk", "1", "dairy", 2.99, Temperature.refrigerated);
+        Product cream = new Product("prod_find2", "Cream", "Cream", "1", "dairy", 7.99, Temperature.refrigerated);
+        Product butter = new Product("prod_find3", "Butter", "Butter", "1", "dairy", 4.99, Temperature.frozen);
+        Product free = new Product("prod_find4", "Sample", "Sample", "1", "dairy", 0.0, Temperature.refrigerated);
+        for (Product product : List.of(milk, cream, butter, free))
+            catalog.add(product);
+
+        assertThat(catalog.find("dairy", Temperature.refrigerated, null, 5.0)).containsExactly(milk, free);
+        assertThat(catalog.find(null, null, 2.99, 5.0)).containsExactly(milk, butter);
+        assertThat(catalog.find("dairy", Temperature.ambient, null, null)).isEmpty();
+        assertThat(catalog.find("bakery", null, null, null)).isEmpty();
+
+        cream.setPrice(3.49);
+        butter.setTemperature(Temperature.refrigerated);
+        assertThat(catalog.find("dairy", Temperature.refrigerated, 1.0, 5.0)).containsExactly(milk, cream, butter);
+    }
+
+    @Test
+    void listProductCommandFiltersTheCatalog() {
+        CommandBatchResult batch = StoreModelService.getInstance().processCommandBatch(List.of(
+                "define product prod_list1 name Milk description Milk size 1 category dairy_list unit_price 2.99 temperature refrigerated",
+                "define product prod_list2 name Ice description Ice size 1 category dairy_list unit_price 3.99 temperature frozen",
+                "list product where category dairy_list temperature refrigerated price_under 5",
+                "list product where colour red",
+                "list product where category",
+                "list product with category dairy_list",
+                "list product where price_under cheap").iterator());
+
+        assertThat(batch.getFailureCount()).isEqualTo(4);
+        assertThat(batch.getVerb(2)).isEqualTo(CommandVerb.LIST_PRODUCT);
+        assertThat((List<?>) batch.getResult(2)).extracting("id").containsExactly("prod_list1");
+        for (int i = 3; i < 7; i++) {
+            assertThat(batch.getStatus(i)).isEqualTo(CommandStatus.MODEL_ERROR);
+            assertThat(batch.getErrorReason(i)).isEqualTo(ModelError.PRODUCT_FILTER_NOT_VALID.getReason());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoreLocksTest {
+
+    @Test
+    void everyStoreKeyHasALockOfItsOwn() {
+        StoreLocks locks = new StoreLocks();
+        Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int key = 0; key < 5000; key++) {
+            distinct.add(locks.of(key));
+        }
+
+        assertThat(distinct).hasSize(5000);
+        assertThat(locks.of(4321)).isSameAs(locks.of(4321));
+    }
+
+    @Test
+    void storesBeyondTheFirstPageDoNotContend() throws Exception {
+        StoreLocks locks = new StoreLocks();
+        locks.lockBoth(1, 257);
+        try {
+            //Keys that would have shared a stripe with 256 stripes
+            boolean locked = CompletableFuture.supplyAsync(() -> {
+                boolean acquired = locks.of(513).tryLock();
+                if (acquired)
+                    locks.of(513).unlock();
+                return acquired;
+            }).get(5, TimeUnit.SECONDS);
+            assertThat(locked).isTrue();
+        } finally {
+            locks.unlockBoth(1, 257);
+        }
+        assertThat(locks.of(1).isLocked()).isFalse();
+        assertThat(locks.of(257).isLocked()).isFalse();
+    }
+}
@@ -0,0 +1,138 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoreModelConcurrencyTest {
+
+    private static final int THREADS = 4;
+    private static final int ROUNDS = 2_000;
+
+    @Test
+    void concurrentShoppersConserveInventory() throws Exception {
+        StoreModelService service = StoreModelService.getInstance();
+        service.provisionStore("store_cc1", "Concurrent 1", "1 Lock St", null);
+        service.provisionStore("store_cc2", "Concurrent 2", "2 Lock St", null);
+        for (String storeId : List.of("store_cc1", "store_cc2")) {
+            service.provisionAisle(storeId, "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+            service.provisionShelf(storeId, "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                    Temperature.ambient, null);
+        }
+        service.provisionProduct("prod_cc", "Product", "Product", "1", "grocery", 1.0, Temperature.ambient, null);
+        service.provisionInventory("inv_cc1", "store_cc1", "aisle_1", "shelf_1", 1_000, 500, "prod_cc", null);
+        service.provisionInventory("inv_cc2", "store_cc2", "aisle_1", "shelf_1", 1_000, 500, "prod_cc", null);
+
+        service.provisionCustomer("cust_cc_mover", "Mover", "Mover", CustomerType.guest, "m@x", "m", null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                String storeId = t % 2 == 0 ? "store_cc1" : "store_cc2";
+                String customerId = "cust_cc" + t;
+                String basketId = "basket_cc" + t;
+                service.provisionCustomer(customerId, "Shopper", "Shopper", CustomerType.registered, "s@x", "s", null);
+                service.updateCustomer(customerId, storeId, "aisle_1", null);
+                service.provisionBasket(basketId, null);
+                service.assignCustomerBasket(customerId, basketId, null);
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < ROUNDS; i++) {
+                        assertThat(service.tryAddBasketProduct(basketId, "prod_cc", 1, null).isSuccess()).isTrue();
+                        assertThat(service.tryRemoveBasketProduct(basketId, "prod_cc", 1, null).isSuccess()).isTrue();
+                    }
+                    return null;
+                }));
+            }
+            //Moving between the Stores takes both Store locks while the shoppers hold one of them
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < ROUNDS; i++) {
+                    String storeId = i % 2 == 0 ? "store_cc1" : "store_cc2";
+                    service.tryUpdateCustomer("cust_cc_mover", storeId, "aisle_1", null);
+                }
+                return null;
+            }));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(service.showInventory("inv_cc1", null).getCount()).isEqualTo(500);
+        assertThat(service.showInventory("inv_cc2", null).getCount()).isEqualTo(500);
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        Inventory inventory = Inventory.create("inv_cc_hot", new InventoryLocation("store_cc", "aisle_1", "shelf_1"),
+                ROUNDS, ROUNDS, "prod_cc");
+        AtomicInteger reserved = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(executor.submit(() -> {
+                    for (int i = 0; i < ROUNDS; i++) {
+                        if (inventory.reserve(1))
+                            reserved.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(reserved.get()).isEqualTo(ROUNDS);
+        assertThat(inventory.getCount()).isZero();
+        assertThat(inventory.release(ROUNDS + 1)).isFalse();
+        assertThat(inventory.release(ROUNDS)).isTrue();
+        assertThat(inventory.getCount()).isEqualTo(ROUNDS);
+    }
+
+    @Test
+    void showStoreSeesInventoryWritesInOrder() throws Exception {
+        StoreModelService service = StoreModelService.getInstance();
+        service.provisionStore("store_cc3", "Concurrent 3", "3 Lock St", null);
+        service.provisionAisle("store_cc3", "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        service.provisionShelf("store_cc3", "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                Temperature.ambient, null);
+        service.provisionProduct("prod_cc3", "Product", "Product", "1", "grocery", 1.0, Temperature.ambient, null);
+        service.provisionInventory("inv_cc3a", "store_cc3", "aisle_1", "shelf_1", ROUNDS, 0, "prod_cc3", null);
+        service.provisionInventory("inv_cc3b", "store_cc3", "aisle_1", "shelf_1", ROUNDS, 0, "prod_cc3", null);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            //The first count is always written before the second one
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < ROUNDS; i++) {
+                    service.updateInventory("inv_cc3a", 1, null);
+                    service.updateInventory("inv_cc3b", 1, null);
+                }
+                return null;
+            });
+            while (!writer.isDone()) {
+                Map<String, Inventory> inventory = service.showStore("store_cc3", null).getInventoryMap();
+                int first = inventory.get("inv_cc3a").getCount();
+                int second = inventory.get("inv_cc3b").getCount();
+                assertThat(first - second).isBetween(0, 1);
+            }
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
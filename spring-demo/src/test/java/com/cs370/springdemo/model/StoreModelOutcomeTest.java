@@ -0,0 +1,271 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class StoreModelOutcomeTest {
+
+    private final StoreModelService storeModelService = StoreModelService.getInstance();
+
+    @Test
+    void rejectedOperationReturnsErrorCode() {
+        ModelOutcome<Store> outcome = storeModelService.tryShowStore("store_outcome_missing", null);
+
+        assertThat(outcome.isSuccess()).isFalse();
+        assertThat(outcome.getAction()).isEqualTo("Show Store");
+        assertThat(outcome.getError()).isEqualTo(ModelError.STORE_DOES_NOT_EXIST);
+        assertThat(outcome.getValue()).isNull();
+    }
+
+    @Test
+    void successfulOperationReturnsValue() {
+        ModelOutcome<Store> outcome = storeModelService.tryProvisionStore("store_outcome1", "Outcome", "1 Main St", null);
+
+        assertThat(outcome.isSuccess()).isTrue();
+        assertThat(outcome.getValue().getId()).isEqualTo("store_outcome1");
+        assertThat(storeModelService.tryProvisionStore("store_outcome1", "Outcome", "1 Main St", null).getError())
+                .isEqualTo(ModelError.STORE_ALREADY_EXISTS);
+    }
+
+    @Test
+    void exceptionApiAdaptsOutcome() {
+        StoreModelException e = catchThrowableOfType(
+                () -> storeModelService.showDevice("device_outcome_missing", null), StoreModelException.class);
+
+        assertThat(e.getAction()).isEqualTo("Show Device");
+        assertThat(e.getReason()).isEqualTo("Device Does Not Exist");
+    }
+
+    @Test
+    void basketProductsAreFoundInTheCustomersAisle() throws StoreModelException {
+        storeModelService.provisionStore("store_outcome2", "Outcome", "2 Main St", null);
+        storeModelService.provisionProduct("prod_outcome2", "Product", "Product", "1", "grocery", 1.0,
+                Temperature.ambient, null);
+        for (String aisleNumber : new String[]{"aisle_1", "aisle_2", "aisle_3"}) {
+            storeModelService.provisionAisle("store_outcome2", aisleNumber, "Aisle", "Aisle", AisleLocation.floor, null);
+            storeModelService.provisionShelf("store_outcome2", aisleNumber, "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                    Temperature.ambient, null);
+        }
+        storeModelService.provisionShelf("store_outcome2", "aisle_3", "shelf_2", "Shelf", ShelfLevel.low, "Shelf",
+                Temperature.ambient, null);
+        storeModelService.provisionInventory("inv_outcome2_1", "store_outcome2", "aisle_1", "shelf_1", 10, 5,
+                "prod_outcome2", null);
+        storeModelService.provisionInventory("inv_outcome2_3", "store_outcome2", "aisle_3", "shelf_1", 10, 5,
+                "prod_outcome2", null);
+        storeModelService.provisionInventory("inv_outcome2_4", "store_outcome2", "aisle_3", "shelf_2", 10, 5,
+                "prod_outcome2", null);
+        storeModelService.provisionCustomer("cust_outcome2", "First", "Last", CustomerType.registered, "e@x", "a", null);
+        storeModelService.provisionBasket("basket_outcome2", null);
+        storeModelService.updateCustomer("cust_outcome2", "store_outcome2", "aisle_1", null);
+        storeModelService.assignCustomerBasket("cust_outcome2", "basket_outcome2", null);
+
+        assertThat(storeModelService.tryAddBasketProduct("basket_outcome2", "prod_outcome2", 2, null).isSuccess())
+                .isTrue();
+        assertThat(storeModelService.showInventory("inv_outcome2_1", null).getCount()).isEqualTo(3);
+
+        storeModelService.updateCustomer("cust_outcome2", "store_outcome2", "aisle_2", null);
+        assertThat(storeModelService.tryAddBasketProduct("basket_outcome2", "prod_outcome2", 1, null).getError())
+                .isEqualTo(ModelError.CUSTOMER_NOT_NEAR_PRODUCT);
+
+        storeModelService.updateCustomer("cust_outcome2", "store_outcome2", "aisle_3", null);
+        assertThat(storeModelService.tryAddBasketProduct("basket_outcome2", "prod_outcome2", 1, null).getError())
+                .isEqualTo(ModelError.SEVERAL_PRODUCTS_IN_AISLE);
+    }
+
+    @Test
+    void basketCannotBeAssignedToCustomerOutsideOfStores() throws StoreModelException {
+        storeModelService.provisionCustomer("cust_outcome7", "First", "Last", CustomerType.registered, "e@x", "a", null);
+        storeModelService.provisionBasket("basket_outcome7", null);
+
+        ModelOutcome<Basket> outcome = storeModelService.tryAssignCustomerBasket("cust_outcome7", "basket_outcome7", null);
+        assertThat(outcome.getAction()).isEqualTo("Assign Customer Basket");
+        assertThat(outcome.getError()).isEqualTo(ModelError.CUSTOMER_NOT_IN_STORE);
+        assertThat(storeModelService.tryShowBasket("basket_outcome7", null).getError())
+                .isEqualTo(ModelError.BASKET_NOT_ASSIGNED);
+    }
+
+    @Test
+    void customerIsHeldOnlyByTheStoreItIsIn() throws StoreModelException {
+        Store first = storeModelService.provisionStore("store_outcome15a", "Outcome", "15 Main St", null);
+        Store second = storeModelService.provisionStore("store_outcome15b", "Outcome", "16 Main St", null);
+        for (String storeId : new String[]{"store_outcome15a", "store_outcome15b"})
+            storeModelService.provisionAisle(storeId, "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        Customer customer = storeModelService.provisionCustomer("cust_outcome15", "First", "Last",
+                CustomerType.registered, "e@x", "a", null);
+
+        storeModelService.updateCustomer("cust_outcome15", "store_outcome15a", "aisle_1", null);
+        assertThat(first.getCustomer("cust_outcome15")).isSameAs(customer);
+        assertThat(customer.getCurrentStore()).isSameAs(first);
+
+        storeModelService.updateCustomer("cust_outcome15", "store_outcome15b", "aisle_1", null);
+        storeModelService.updateCustomer("cust_outcome15", "store_outcome15a", "aisle_1", null);
+
+        assertThat(first.getCustomer("cust_outcome15")).isSameAs(customer);
+        assertThat(second.getCustomer("cust_outcome15")).isNull();
+        assertThat(customer.getCurrentStore()).isSameAs(first);
+        assertThat(customer.getStoreLocation().getStoreId()).isEqualTo("store_outcome15a");
+    }
+
+    @Test
+    void clearedBasketsAreRecycledByTheirStore() throws StoreModelException {
+        storeModelService.provisionStore("store_outcome5", "Outcome", "5 Main St", null);
+        storeModelService.provisionAisle("store_outcome5", "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        storeModelService.provisionShelf("store_outcome5", "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                Temperature.ambient, null);
+        storeModelService.provisionProduct("prod_outcome5", "Product", "Product", "1", "grocery", 1.0,
+                Temperature.ambient, null);
+        storeModelService.provisionInventory("inv_outcome5", "store_outcome5", "aisle_1", "shelf_1", 10, 5,
+                "prod_outcome5", null);
+        storeModelService.provisionCustomer("cust_outcome5", "First", "Last", CustomerType.registered, "e@x", "a", null);
+        storeModelService.updateCustomer("cust_outcome5", "store_outcome5", "aisle_1", null);
+        Basket basket = storeModelService.provisionBasket("basket_outcome5", null);
+        storeModelService.assignCustomerBasket("cust_outcome5", "basket_outcome5", null);
+        storeModelService.addBasketProduct("basket_outcome5", "prod_outcome5", 2, null);
+
+        Basket cleared = storeModelService.clearBasket("basket_outcome5", null);
+        assertThat(cleared).isSameAs(basket);
+        assertThat(storeModelService.showInventory("inv_outcome5", null).getCount()).isEqualTo(5);
+        assertThat(storeModelService.showStore("store_outcome5", null).getBasketMap()).isEmpty();
+
+        //Clearing retires the id of the Basket
+        assertThat(storeModelService.tryShowBasket("basket_outcome5", null).getError())
+                .isEqualTo(ModelError.BASKET_DOES_NOT_EXIST);
+        assertThat(storeModelService.tryAddBasketProduct("basket_outcome5", "prod_outcome5", 1, null).getError())
+                .isEqualTo(ModelError.BASKET_DOES_NOT_EXIST);
+        assertThat(storeModelService.tryClearBasket("basket_outcome5", null).getError())
+                .isEqualTo(ModelError.BASKET_DOES_NOT_EXIST);
+
+        //The id can be provisioned again and is used like a new Basket
+        Basket provisioned = storeModelService.provisionBasket("basket_outcome5", null);
+        assertThat(provisioned.getId()).isEqualTo("basket_outcome5");
+        assertThat(provisioned.getCustomer()).isNull();
+        assertThat(provisioned.getStore()).isNull();
+        assertThat(storeModelService.tryShowBasket("basket_outcome5", null).getError())
+                .isEqualTo(ModelError.BASKET_NOT_ASSIGNED);
+        assertThat(storeModelService.assignCustomerBasket("cust_outcome5", "basket_outcome5", null))
+                .isSameAs(provisioned);
+        assertThat(storeModelService.showStore("store_outcome5", null).getBasketMap())
+                .containsOnlyKeys("basket_outcome5");
+        assertThat(storeModelService.tryAddBasketProduct("basket_outcome5", "prod_outcome5", 1, null).isSuccess())
+                .isTrue();
+        assertThat(storeModelService.showInventory("inv_outcome5", null).getCount()).isEqualTo(4);
+    }
+
+    @Test
+    void basketCyclesKeepTheBasketTablesFlat() throws StoreModelException {
+        Store store = storeModelService.provisionStore("store_outcome9", "Outcome", "9 Main St", null);
+        storeModelService.provisionAisle("store_outcome9", "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        storeModelService.provisionShelf("store_outcome9", "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                Temperature.ambient, null);
+        storeModelService.provisionProduct("prod_outcome9", "Product", "Product", "1", "grocery", 1.0,
+                Temperature.ambient, null);
+        storeModelService.provisionInventory("inv_outcome9", "store_outcome9", "aisle_1", "shelf_1", 10, 5,
+                "prod_outcome9", null);
+        storeModelService.provisionCustomer("cust_outcome9", "First", "Last", CustomerType.registered, "e@x", "a", null);
+        storeModelService.updateCustomer("cust_outcome9", "store_outcome9", "aisle_1", null);
+
+        int keys = 0;
+        Basket cleared = null;
+        for (int i = 0; i < 1_000; i++) {
+            String basketId = "basket_outcome9_" + i;
+            Basket basket = storeModelService.provisionBasket(basketId, null);
+            //Once the pools filled by other Stores are drained, every Basket is the one cleared before
+            if (i >= 900)
+                assertThat(basket).isSameAs(cleared);
+            storeModelService.assignCustomerBasket("cust_outcome9", basketId, null);
+            storeModelService.addBasketProduct(basketId, "prod_outcome9", 1, null);
+            cleared = storeModelService.clearBasket(basketId, null);
+            if (i == 0)
+                keys = StoreModelService.basketKeys();
+        }
+
+        assertThat(StoreModelService.basketKeys()).isEqualTo(keys);
+        assertThat(store.getBasketMap()).isEmpty();
+        assertThat(storeModelService.showInventory("inv_outcome9", null).getCount()).isEqualTo(5);
+    }
+
+    @Test
+    void shelvesAreUniqueByLevelAndId() {
+        Aisle aisle = new Aisle("aisle_1", "Aisle", "Aisle", AisleLocation.floor);
+
+        assertThat(aisle.tryAddShelf("shelf_1", "Shelf", ShelfLevel.low, "Shelf", Temperature.ambient).isSuccess())
+                .isTrue();
+        assertThat(aisle.tryAddShelf("shelf_2", "Shelf", ShelfLevel.low, "Shelf", Temperature.ambient).getError())
+                .isEqualTo(ModelError.SHELF_ALREADY_EXISTS_AT_LEVEL);
+        assertThat(aisle.tryAddShelf("shelf_1", "Shelf", ShelfLevel.high, "Shelf", Temperature.ambient).getError())
+                .isEqualTo(ModelError.SHELF_ALREADY_EXISTS);
+        assertThat(aisle.tryAddShelf("shelf_0", "Shelf", ShelfLevel.high, "Shelf", Temperature.ambient).isSuccess())
+                .isTrue();
+
+        assertThat(aisle.getShelf("shelf_1").getLevel()).isEqualTo(ShelfLevel.low);
+        assertThat(aisle.getShelfMap()).containsOnlyKeys("shelf_0", "shelf_1");
+    }
+
+    @Test
+    void showReturnsPointInTimeCopies() throws StoreModelException {
+        storeModelService.provisionStore("store_outcome3", "Outcome", "3 Main St", null);
+        storeModelService.provisionAisle("store_outcome3", "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        storeModelService.provisionShelf("store_outcome3", "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                Temperature.ambient, null);
+        storeModelService.provisionProduct("prod_outcome3", "Product", "Product", "1", "grocery", 1.0,
+                Temperature.ambient, null);
+        storeModelService.provisionInventory("inv_outcome3", "store_outcome3", "aisle_1", "shelf_1", 10, 5,
+                "prod_outcome3", null);
+
+        Store store = storeModelService.showStore("store_outcome3", null);
+        Inventory inventory = storeModelService.showInventory("inv_outcome3", null);
+        String shown = store.toString();
+
+        storeModelService.updateInventory("inv_outcome3", 3, null);
+        storeModelService.provisionAisle("store_outcome3", "aisle_2", "Aisle", "Aisle", AisleLocation.floor, null);
+
+        assertThat(store.toString()).isEqualTo(shown).contains("count=5").doesNotContain("aisle_2");
+        assertThat(inventory.getCount()).isEqualTo(5);
+        assertThat(storeModelService.showInventory("inv_outcome3", null).getCount()).isEqualTo(8);
+        assertThat(storeModelService.showStore("store_outcome3", null).toString()).contains("count=8", "aisle_2");
+    }
+
+    @Test
+    void showStoreSharesOneCopyUntilTheStoreChanges() throws StoreModelException {
+        storeModelService.provisionStore("store_outcome8", "Outcome", "8 Main St", null);
+        storeModelService.provisionAisle("store_outcome8", "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        storeModelService.provisionShelf("store_outcome8", "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                Temperature.ambient, null);
+        storeModelService.provisionProduct("prod_outcome8", "Product", "Product", "1", "grocery", 1.0,
+                Temperature.ambient, null);
+        storeModelService.provisionInventory("inv_outcome8", "store_outcome8", "aisle_1", "shelf_1", 10, 5,
+                "prod_outcome8", null);
+        storeModelService.provisionDevice("mic_outcome8", "Microphone", "microphone", "store_outcome8", "aisle_1",
+                null);
+        storeModelService.provisionCustomer("cust_outcome8", "First", "Last", CustomerType.registered, "e@x", "a", null);
+        storeModelService.updateCustomer("cust_outcome8", "store_outcome8", "aisle_1", null);
+        Basket basket = storeModelService.provisionBasket("basket_outcome8", null);
+        storeModelService.assignCustomerBasket("cust_outcome8", "basket_outcome8", null);
+
+        Store store = storeModelService.showStore("store_outcome8", null);
+        assertThat(storeModelService.showStore("store_outcome8", null)).isSameAs(store);
+
+        //The copy holds no live entities
+        Customer customer = store.getCustomerMap().get("cust_outcome8");
+        assertThat(customer).isNotSameAs(storeModelService.showCustomer("cust_outcome8", null));
+        assertThat(customer.getBasket()).isNotSameAs(basket).isSameAs(store.getBasketMap().get("basket_outcome8"));
+        assertThat(customer.getBasket().getCustomer()).isSameAs(customer);
+        assertThat(store.getDeviceMap().get("mic_outcome8"))
+                .isNotSameAs(storeModelService.showDevice("mic_outcome8", null));
+
+        //Writes to Inventory counts and cleared Baskets publish a new copy
+        storeModelService.updateInventory("inv_outcome8", 1, null);
+        Store updated = storeModelService.showStore("store_outcome8", null);
+        assertThat(updated).isNotSameAs(store);
+        assertThat(updated.getInventoryMap().get("inv_outcome8").getCount()).isEqualTo(6);
+        assertThat(store.getInventoryMap().get("inv_outcome8").getCount()).isEqualTo(5);
+
+        storeModelService.clearBasket("basket_outcome8", null);
+        Store cleared = storeModelService.showStore("store_outcome8", null);
+        assertThat(cleared).isNotSameAs(updated);
+        assertThat(cleared.getBasketMap()).isEmpty();
+        assertThat(cleared.getCustomerMap().get("cust_outcome8").getBasket()).isNull();
+    }
+}
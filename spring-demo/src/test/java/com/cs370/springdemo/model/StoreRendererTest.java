@@ -0,0 +1,97 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StoreRendererTest {
+
+    @Test
+    void rendererHonoursDepthFieldsAndFormat() throws StoreModelException {
+        Store store = new Store("store_render", "1 \"Main\" St", "Render");
+        Aisle aisle = store.addAisle("aisle_1", "Aisle", "Dairy", AisleLocation.floor);
+        Shelf shelf = aisle.addShelf("shelf_1", "Shelf", ShelfLevel.high, "Top", Temperature.refrigerated);
+        store.addInventory(shelf.addInventory("inv_render", "store_render", "aisle_1", "shelf_1", 10, 5, "prod_render"));
+
+        assertThat(store.toString()).isEqualTo("Store{id='store_render', address='1 \"Main\" St', description='Render'"
+                + ", aislesMap={aisle_1=" + aisle + "}, deviceMap={}, customerMap={}"
+                + ", inventoryMap={inv_render=" + store.getInventoryMap().get("inv_render") + "}, basketMap={}}");
+
+        assertThat(new StoreRenderer(StoreRenderer.Format.text, 1, Set.of("id", "aisles")).render(store))
+                .isEqualTo("Store{id='store_render', aislesMap={aisle_1=Aisle{number='aisle_1', name='Aisle'"
+                        + ", description='Dairy', aisleLocation=floor, shelfMap=(1)}}}");
+
+        assertThat(new StoreRenderer(StoreRenderer.Format.json, 2, Set.of("address", "aisles", "devices")).render(store))
+                .isEqualTo("{\"address\":\"1 \\\"Main\\\" St\",\"aisles\":{\"aisle_1\":{\"number\":\"aisle_1\""
+                        + ",\"name\":\"Aisle\",\"description\":\"Dairy\",\"location\":\"floor\",\"shelves\":{\"shelf_1\""
+                        + ":{\"id\":\"shelf_1\",\"name\":\"Shelf\",\"level\":\"high\",\"description\":\"Top\""
+                        + ",\"temperature\":\"refrigerated\",\"inventory\":1}}}},\"devices\":{}}");
+
+        assertThat(new StoreRenderer(StoreRenderer.Format.json, 0, null).render(store))
+                .endsWith("\"aisles\":1,\"devices\":0,\"customers\":0,\"inventory\":1,\"baskets\":0}");
+    }
+
+    @Test
+    void showStoreCommandStreamsWithOptions() {
+        List<String> lines = new ArrayList<>();
+        OutputSink previous = OutputSinks.install(new OutputSink() {
+            @Override
+            public void println(String line) {
+                lines.add(line);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        try {
+            StoreModelService service = StoreModelService.getInstance();
+            service.processCommandLine("define  store  store_render1 name Render address \"1 Main St\"", 1);
+            service.processCommandLine("show  store  store_render1  depth 0  fields id,aisles  format json", 2);
+            service.processCommandLine("show  store  store_render1  depth banana", 3);
+        } finally {
+            OutputSinks.install(previous);
+        }
+        assertThat(lines).contains("<<< {\"id\":\"store_render1\",\"aisles\":0}",
+                "\u001B[31mFailed due to: Show Store Options Are Not Valid for Command: Show Store\u001B[0m");
+
+        CommandBatchResult batch = StoreModelService.getInstance().processCommandBatch(List.of(
+                "show  store  store_render1  depth -1", "show  store  store_render1  format",
+                "show  store  store_render1  fields id,shelves").iterator());
+        for (int i = 0; i < 3; i++)
+            assertThat(batch.getStatus(i)).isEqualTo(CommandStatus.MODEL_ERROR);
+    }
+
+    @Test
+    void showStoreCopiesWhatTheRendererRenders() throws StoreModelException {
+        StoreModelService service = StoreModelService.getInstance();
+        service.provisionStore("store_render2", "Render", "Render", null);
+        service.provisionAisle("store_render2", "aisle_1", "Aisle", "Aisle", AisleLocation.floor, null);
+        service.provisionShelf("store_render2", "aisle_1", "shelf_1", "Shelf", ShelfLevel.high, "Shelf",
+                Temperature.ambient, null);
+        service.provisionProduct("prod_render2", "Product", "Product", "1", "grocery", 1.0, Temperature.ambient, null);
+        service.provisionInventory("inv_render2", "store_render2", "aisle_1", "shelf_1", 10, 5, "prod_render2", null);
+
+        Store full = service.showStore("store_render2", null);
+        for (StoreRenderer renderer : List.of(new StoreRenderer(StoreRenderer.Format.text, 0, null),
+                new StoreRenderer(StoreRenderer.Format.text, 1, Set.of("id", "aisles")),
+                new StoreRenderer(StoreRenderer.Format.json, 2, null))) {
+            assertThat(renderer.render(service.tryShowStore("store_render2", renderer, null).getValue()))
+                    .isEqualTo(renderer.render(full));
+        }
+
+        //Shelves are only counted at depth 1 and Inventory is not rendered, so neither is copied
+        Store copy = service.tryShowStore("store_render2",
+                new StoreRenderer(StoreRenderer.Format.text, 1, Set.of("id", "aisles")), null).getValue();
+        assertThat(copy.getInventoryMap()).isEmpty();
+        assertThat(copy.getAisleMap().get("aisle_1").getShelfMap().get("shelf_1").getInventoryMap()).isEmpty();
+    }
+}
@@ -0,0 +1,166 @@
+package com.cs370.springdemo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StoreShardEngineTest {
+
+    private static final int SHOPPERS = 4;
+    private static final int ROUNDS = 2_000;
+    private static final int POSTERS = 4;
+
+    @Test
+    void shardsConserveInventoryWhileCustomersAreHandedOff() throws Exception {
+        StoreModelService service = StoreModelService.getInstance();
+        try (StoreShardEngine engine = new StoreShardEngine(service, 3)) {
+            for (String storeId : List.of("store_se1", "store_se2")) {
+                assertThat(engine.submitCommand("define store " + storeId + " name Shard address Shard").get()
+                        .isSuccess()).isTrue();
+                engine.submitCommand("define aisle " + storeId + ":aisle_1 name Aisle description Aisle location floor");
+                //Commands of one Store run in order, so waiting for the last one waits for all of them
+                assertThat(engine.submitCommand("define shelf " + storeId + ":aisle_1:shelf_1 name Shelf level high"
+                        + " description Shelf temperature ambient").get().isSuccess()).isTrue();
+            }
+            service.provisionProduct("prod_se", "Product", "Product", "1", "grocery", 1.0, Temperature.ambient, null);
+            service.provisionInventory("inv_se1", "store_se1", "aisle_1", "shelf_1", 1_000, 500, "prod_se", null);
+            service.provisionInventory("inv_se2", "store_se2", "aisle_1", "shelf_1", 1_000, 500, "prod_se", null);
+            service.provisionCustomer("cust_se_mover", "Mover", "Mover", CustomerType.guest, "m@x", "m", null);
+
+            List<CompletableFuture<ModelOutcome<Basket>>> shopping = new ArrayList<>();
+            for (int t = 0; t < SHOPPERS; t++) {
+                String storeId = t % 2 == 0 ? "store_se1" : "store_se2";
+                String customerId = "cust_se" + t;
+                String basketId = "basket_se" + t;
+                service.provisionCustomer(customerId, "Shopper", "Shopper", CustomerType.registered, "s@x", "s", null);
+                service.provisionBasket(basketId, null);
+                assertThat(engine.updateCustomer(customerId, storeId, "aisle_1").get().isSuccess()).isTrue();
+                assertThat(engine.assignCustomerBasket(customerId, basketId).get().isSuccess()).isTrue();
+            }
+
+            //Shoppers stay in their Store while the mover is handed off between the two shards. Moves are
+            //routed from the Store the mover is in when they are posted, so the mover waits for every move
+            for (int i = 0; i < ROUNDS; i++) {
+                for (int t = 0; t < SHOPPERS; t++) {
+                    shopping.add(engine.addBasketProduct("basket_se" + t, "prod_se", 1));
+                    shopping.add(engine.removeBasketProduct("basket_se" + t, "prod_se", 1));
+                }
+                assertThat(engine.updateCustomer("cust_se_mover", i % 2 == 0 ? "store_se1" : "store_se2", "aisle_1")
+                        .get().isSuccess()).isTrue();
+            }
+            for (CompletableFuture<ModelOutcome<Basket>> outcome : shopping)
+                assertThat(outcome.get().isSuccess()).isTrue();
+
+            assertThat(engine.submitCommand("show inventory inv_se1").get().getValue())
+                    .extracting("count").isEqualTo(500);
+            assertThat(engine.updateInventory("inv_se2", -1).get().getValue().getCount()).isEqualTo(499);
+            assertThat(engine.showStore("store_se2").get().getValue().getCustomerMap()).containsKey("cust_se_mover");
+            assertThat(engine.showStore("store_se1").get().getValue().getCustomerMap()).doesNotContainKey("cust_se_mover");
+        }
+    }
+
+    @Test
+    void operationsPostedWhileClosingCompleteOrAreRejected() throws Exception {
+        StoreShardEngine engine = new StoreShardEngine(StoreModelService.getInstance(), 2);
+        ExecutorService executor = Executors.newFixedThreadPool(POSTERS);
+        try {
+            List<Future<List<CompletableFuture<ModelOutcome<Void>>>>> posters = new ArrayList<>();
+            for (int t = 0; t < POSTERS; t++) {
+                String storeId = "store_se_closing" + t;
+                posters.add(executor.submit(() -> {
+                    List<CompletableFuture<ModelOutcome<Void>>> posted = new ArrayList<>();
+                    try {
+                        while (true) {
+                            posted.add(engine.submit(storeId, ModelOutcome::empty));
+                        }
+                    } catch (IllegalStateException e) {
+                        //Rejected once the engine is closing
+                        return posted;
+                    }
+                }));
+            }
+            Thread.sleep(20);
+            engine.close();
+
+            for (Future<List<CompletableFuture<ModelOutcome<Void>>>> poster : posters) {
+                for (CompletableFuture<ModelOutcome<Void>> outcome : poster.get(10, TimeUnit.SECONDS))
+                    assertThat(outcome.get(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+            }
+            assertThatThrownBy(() -> engine.showStore("store_se_closing0"))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void fullMailboxDoesNotBlockOtherShards() throws Exception {
+        try (StoreShardEngine engine = new StoreShardEngine(StoreModelService.getInstance(), 2)) {
+            String blockedStore = "store_se_blocked";
+            String otherStore = blockedStore;
+            for (int i = 0; engine.shardOf(otherStore) == engine.shardOf(blockedStore); i++)
+                otherStore = "store_se_free" + i;
+
+            String freeStore = otherStore;
+            CountDownLatch release = new CountDownLatch(1);
+            engine.submit(blockedStore, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ModelOutcome.empty();
+            });
+            //Fills the mailbox of the blocked shard until posting to it blocks
+            Thread poster = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++)
+                    engine.submit(blockedStore, ModelOutcome::empty);
+            });
+            poster.start();
+            try {
+                while (poster.getState() != Thread.State.WAITING)
+                    Thread.sleep(10);
+
+                //Posted from another thread, so a posting that blocks fails the test rather than hanging it
+                assertThat(CompletableFuture.supplyAsync(() -> engine.submit(freeStore, ModelOutcome::empty))
+                        .thenCompose(outcome -> outcome).get(10, TimeUnit.SECONDS).isSuccess()).isTrue();
+            } finally {
+                release.countDown();
+            }
+            poster.join(TimeUnit.SECONDS.toMillis(30));
+            assertThat(poster.isAlive()).isFalse();
+        }
+    }
+
+    @Test
+    void errorsFailTheirFutureAndLeaveTheShardRunning() throws Exception {
+        try (StoreShardEngine engine = new StoreShardEngine(StoreModelService.getInstance(), 1)) {
+            CompletableFuture<ModelOutcome<Void>> failed = engine.submit("store_se_error", () -> {
+                throw new AssertionError("operation failed");
+            });
+            assertThatThrownBy(() -> failed.get(10, TimeUnit.SECONDS))
+                    .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(AssertionError.class);
+            assertThat(engine.submit("store_se_error", ModelOutcome::empty).get(10, TimeUnit.SECONDS).isSuccess())
+                    .isTrue();
+        }
+    }
+
+    @Test
+    void unrecognizedCommandsFailTheirFuture() {
+        try (StoreShardEngine engine = new StoreShardEngine(StoreModelService.getInstance(), 2)) {
+            assertThatThrownBy(() -> engine.submitCommand("shelve everything").get())
+                    .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(CommandException.class);
+        }
+    }
+}
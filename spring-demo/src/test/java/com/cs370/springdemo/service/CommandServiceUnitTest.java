@@ -0,0 +1,59 @@
+package com.cs370.springdemo.service;
+
+import com.cs370.springdemo.model.OutputSink;
+import com.cs370.springdemo.model.OutputSinks;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CommandServiceUnitTest {
+
+    @Test
+    public void testExecuteWritesRecordPerCommand() throws IOException {
+        String script = "# comment\n"
+                + "define store store_s1 name A address \"1 Main St\"\n"
+                + "\n"
+                + "show store store_s1\n"
+                + "define store store_s1 name A address \"1 Main St\"\n"
+                + "bogus command\n";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputSink previous = OutputSinks.install(OutputSinks.quiet());
+        try {
+            new CommandService().execute(new BufferedReader(new StringReader(script)), out);
+        } finally {
+            OutputSinks.install(previous);
+        }
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(4, lines.length);
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode define = mapper.readTree(lines[0]);
+        assertEquals(2, define.get("line").asInt());
+        assertEquals("OK", define.get("status").asText());
+        assertFalse(define.has("result"));
+
+        JsonNode show = mapper.readTree(lines[1]);
+        assertEquals(4, show.get("line").asInt());
+        assertTrue(show.get("result").asText().startsWith("Store{id='store_s1'"));
+
+        JsonNode duplicate = mapper.readTree(lines[2]);
+        assertEquals("MODEL_ERROR", duplicate.get("status").asText());
+        assertEquals("Store Already Exists", duplicate.get("reason").asText());
+
+        JsonNode unrecognized = mapper.readTree(lines[3]);
+        assertEquals(6, unrecognized.get("line").asInt());
+        assertEquals("UNRECOGNIZED_COMMAND", unrecognized.get("status").asText());
+    }
+}